@@ -410,18 +410,21 @@ public final class FBReader extends FBReaderMainActivity implements ZLApplicatio
         }else if (Intent.ACTION_SEARCH.equals(action)) {
             Logger.e("这里是输入要搜索的数据后，回车走的方法------");
             final String pattern = intent.getStringExtra(SearchManager.QUERY);
-            final Runnable runnable = new Runnable() {
-                public void run() {
-                    final TextSearchPopup popup = (TextSearchPopup)myFBReaderApp.getPopupById(TextSearchPopup.ID);
-                    popup.initPosition();
-                    myFBReaderApp.MiscOptions.TextSearchPattern.setValue(pattern);
-                    if (myFBReaderApp.getTextView().search(pattern, true, false, false, false) != 0) {
-                        runOnUiThread(new Runnable() {
-                            public void run() {
-                                myFBReaderApp.showPopup(popup.getId());
-                            }
-                        });
-                    }else {
+            final TextSearchPopup popup = (TextSearchPopup)myFBReaderApp.getPopupById(TextSearchPopup.ID);
+            popup.initPosition();
+            myFBReaderApp.MiscOptions.TextSearchPattern.setValue(pattern);
+            // results are streamed: the popup appears with the first hit, not after the whole book is searched
+            myFBReaderApp.getTextView().startSearch(pattern, true, false, false, false, new ZLTextView.SearchListener() {
+                public void onFirstHit() {
+                    runOnUiThread(new Runnable() {
+                        public void run() {
+                            myFBReaderApp.showPopup(popup.getId());
+                        }
+                    });
+                }
+
+                public void onSearchFinished(int count) {
+                    if (count == 0) {
                         runOnUiThread(new Runnable() {
                             public void run() {
                                 UIMessageUtil.showErrorMessage(FBReader.this, "textNotFound");
@@ -430,8 +433,7 @@ public final class FBReader extends FBReaderMainActivity implements ZLApplicatio
                         });
                     }
                 }
-            };
-            UIUtil.wait("search", runnable, this);
+            });
         }if (FBReaderIntents.Action.PLUGIN_CRASH.equals(intent.getAction())) {
             final Book book = FBReaderIntents.getBookExtra(intent, myFBReaderApp.Collection);
             myFBReaderApp.ExternalBook = null;
@@ -557,6 +557,19 @@ public class BookCollectionShadow extends AbstractBookCollection<Book> implement
         return false;
     }
 
+    public List<LibraryTextIndex.Hit> searchText(final String query, final int offset, final int limit) {
+        return listCall(new ListCallable<LibraryTextIndex.Hit>() {
+            public List<LibraryTextIndex.Hit> call() throws RemoteException {
+                final List<String> serialized = myInterface.searchText(query, offset, limit);
+                final List<LibraryTextIndex.Hit> hits = new ArrayList<LibraryTextIndex.Hit>(serialized.size());
+                for (String s : serialized) {
+                    hits.add(Util.stringToHit(s));
+                }
+                return hits;
+            }
+        });
+    }
+
     private interface ListCallable<T> {
 
         List<T> call() throws RemoteException;
@@ -388,6 +388,15 @@ public class LibraryService extends Service {
                 return false;
             }
         }
+
+        public List<String> searchText(String query, int offset, int limit) {
+            final List<LibraryTextIndex.Hit> hits = myCollection.searchText(query, offset, limit);
+            final List<String> serialized = new ArrayList<String>(hits.size());
+            for (LibraryTextIndex.Hit h : hits) {
+                serialized.add(Util.hitToString(h));
+            }
+            return serialized;
+        }
     }
 
     private volatile LibraryImplementation myLibrary;
@@ -21,6 +21,7 @@ package org.geometerplus.android.fbreader.libraryService;
 
 import org.geometerplus.fbreader.book.Author;
 import org.geometerplus.fbreader.book.IBookCollection;
+import org.geometerplus.fbreader.book.LibraryTextIndex;
 import org.geometerplus.fbreader.book.Tag;
 
 abstract class Util {
@@ -79,4 +80,24 @@ abstract class Util {
         descriptor.IsActive = "1".equals(split[2]);
         return descriptor;
     }
+
+    static String hitToString(LibraryTextIndex.Hit hit) {
+        return hit.BookId + "\000" + hit.ParagraphIndex + "\000" + hit.Score + "\000" + hit.Snippet;
+    }
+
+    static LibraryTextIndex.Hit stringToHit(String string) {
+        if (string == null) {
+            throw new IllegalArgumentException();
+        }
+
+        // the snippet is the last, so that it is never split
+        final String[] split = string.split("\000", 4);
+        if (split.length != 4) {
+            throw new IllegalArgumentException();
+        }
+
+        return new LibraryTextIndex.Hit(
+            Long.parseLong(split[0]), Integer.parseInt(split[1]), Float.parseFloat(split[2]), split[3]
+        );
+    }
 }
@@ -50,6 +50,8 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
 
     private volatile Status myStatus = Status.NotStarted;
 
+    private final LibraryTextIndex myTextIndex;
+
     private final Map<Integer, HighlightingStyle> myStyles = Collections.synchronizedMap(new TreeMap<Integer, HighlightingStyle>());
 
     public BookCollection(SystemInfo systemInfo, BooksDatabase db, List<String> bookDirectories) {
@@ -57,6 +59,7 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
         PluginCollection = org.geometerplus.fbreader.formats.PluginCollection.Instance(systemInfo);
         myDatabase = db;
         BookDirectories = Collections.unmodifiableList(new ArrayList<String>(bookDirectories));
+        myTextIndex = new LibraryTextIndex(this, PluginCollection, systemInfo.tempDirectory() + "/fulltext");
 
         final String formats = db.getOptionValue("formats");
         if (formats != null) {
@@ -256,6 +259,7 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
             }
             myDatabase.deleteBook(book.getId());
         }
+        myTextIndex.remove(book);
         fireBookEvent(BookEvent.Removed, book);
     }
 
@@ -473,6 +477,9 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
                     for (DbBook book : new ArrayList<DbBook>(myBooksByFile.values())) {
                         getHash(book, false);
                     }
+                    // also resumes indexing interrupted in the previous session
+                    myTextIndex.enqueue(new ArrayList<DbBook>(myBooksByFile.values()));
+                    myTextIndex.start();
                 }
             }
         };
@@ -514,6 +521,7 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
                 if (book != null) {
                     saveBook(book);
                     getHash(book, false);
+                    myTextIndex.enqueue(Collections.singletonList(book));
                 }
             }
 
@@ -523,6 +531,7 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
                     myDuplicateResolver.removeFile(f);
                     if (book != null) {
                         myBooksById.remove(book.getId());
+                        myTextIndex.remove(book);
                         fireBookEvent(BookEvent.Removed, book);
                     }
                 }
@@ -532,6 +541,14 @@ public class BookCollection extends AbstractBookCollection<DbBook> {
         }
     }
 
+    /**
+     * Full-text search over the indexed books; the index is filled in background
+     * after the library build, so the result may miss recently added books.
+     */
+    public List<LibraryTextIndex.Hit> searchText(String query, int offset, int limit) {
+        return myTextIndex.search(query, offset, limit);
+    }
+
     private void build() {
         // Step 0: get database books marked as "existing"
         final FileInfoSet fileInfos = new FileInfoSet(myDatabase);
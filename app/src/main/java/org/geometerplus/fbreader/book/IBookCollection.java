@@ -147,4 +147,6 @@ public interface IBookCollection<B extends AbstractBook> extends AbstractSeriali
     boolean setActiveFormats(List<String> formatIds);
 
     void rescan(String path);
+
+    List<LibraryTextIndex.Hit> searchText(String query, int offset, int limit);
 }
@@ -0,0 +1,766 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.book;
+
+import org.geometerplus.fbreader.bookmodel.BookModel;
+import org.geometerplus.fbreader.formats.BookReadingException;
+import org.geometerplus.fbreader.formats.FormatPlugin;
+import org.geometerplus.fbreader.formats.PluginCollection;
+import org.geometerplus.zlibrary.text.model.CachedCharStorageException;
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+import org.geometerplus.zlibrary.text.model.ZLTextParagraph;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Offline full-text index of the library. Every book gets a segment file with
+ * word -> paragraphs posting lists and a compressed copy of the paragraph text
+ * (for snippets). Books to index are kept in a queue file, so indexing resumes
+ * where it stopped after the process is killed.
+ */
+public final class LibraryTextIndex {
+
+    public static final class Hit {
+
+        public final long BookId;
+        public final int ParagraphIndex;
+        public final float Score;
+        public final String Snippet;
+
+        public Hit(long bookId, int paragraphIndex, float score, String snippet) {
+            BookId = bookId;
+            ParagraphIndex = paragraphIndex;
+            Score = score;
+            Snippet = snippet;
+        }
+    }
+
+    private static final int MAGIC = 0x464c5449;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 48;
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    // only the beginning of long paragraphs is kept for snippets
+    private static final int MAX_STORED_PARAGRAPH_LENGTH = 4096;
+    private static final int PARAGRAPHS_PER_GROUP = 64;
+    private static final int SNIPPET_LENGTH = 160;
+    // hits beyond this number are never returned, however the pages are requested
+    private static final int MAX_HITS_NUMBER = 10000;
+    // BM25 length normalization; every query word counts once per paragraph
+    private static final float BM25_K1 = 1.2f;
+    private static final float BM25_B = .75f;
+
+    private final BookCollection myCollection;
+    private final PluginCollection myPluginCollection;
+    private final File myDirectory;
+    private final File myQueueFile;
+    // the id of the book being parsed; found at start, it means the parse killed the process
+    private final File myAttemptFile;
+    // books are parsed here, never into the model cache of the reader
+    private final File myModelDirectory;
+    private final LinkedHashSet<Long> myQueue = new LinkedHashSet<Long>();
+    private Thread myIndexer;
+    // open segments by file path; a segment is mapped again when its file changes
+    private final HashMap<String, Segment> mySegments = new HashMap<String, Segment>();
+
+    LibraryTextIndex(BookCollection collection, PluginCollection pluginCollection, String directory) {
+        myCollection = collection;
+        myPluginCollection = pluginCollection;
+        myDirectory = new File(directory);
+        myQueueFile = new File(myDirectory, "queue");
+        myAttemptFile = new File(myDirectory, "attempt");
+        myModelDirectory = new File(myDirectory, "model");
+        readQueue();
+    }
+
+    private File segmentFile(long bookId) {
+        return new File(myDirectory, bookId + ".seg");
+    }
+
+    // tokens are lower-cased runs of letters and digits; every CJK ideograph
+    // or kana/hangul syllable is a token of its own, as these scripts have no spaces
+    private static boolean isIdeographic(char ch) {
+        return (ch >= 0x3040 && ch <= 0x30FF)
+            || (ch >= 0x3400 && ch <= 0x4DBF)
+            || (ch >= 0x4E00 && ch <= 0x9FFF)
+            || (ch >= 0xAC00 && ch <= 0xD7AF)
+            || (ch >= 0xF900 && ch <= 0xFAFF);
+    }
+
+    private interface TokenHandler {
+
+        void onToken(long hash);
+    }
+
+    private static void tokenize(CharSequence text, TokenHandler handler) {
+        long hash = 0;
+        int length = 0;
+        final int size = text.length();
+        for (int i = 0; i <= size; ++i) {
+            final char ch = i < size ? text.charAt(i) : ' ';
+            if (ch == '\u200b' || ch == '\u00ad') {
+                continue;
+            }
+            final boolean ideographic = isIdeographic(ch);
+            if (Character.isLetterOrDigit(ch) && !ideographic) {
+                if (length == 0) {
+                    hash = 0xcbf29ce484222325L;
+                }
+                if (length < MAX_TOKEN_LENGTH) {
+                    hash = (hash ^ Character.toLowerCase(ch)) * 0x100000001b3L;
+                    ++length;
+                }
+                continue;
+            }
+            if (length > 0) {
+                handler.onToken(hash);
+                length = 0;
+            }
+            if (ideographic) {
+                handler.onToken((0xcbf29ce484222325L ^ ch) * 0x100000001b3L);
+            }
+        }
+    }
+
+    // ---- queue ----
+
+    private synchronized void readQueue() {
+        if (!myQueueFile.exists()) {
+            return;
+        }
+        try {
+            final BufferedReader reader = new BufferedReader(new FileReader(myQueueFile));
+            try {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    try {
+                        myQueue.add(Long.parseLong(line.trim()));
+                    }catch (NumberFormatException e) {
+                        // skip
+                    }
+                }
+            }finally {
+                reader.close();
+            }
+        }catch (IOException e) {
+            // the books are queued again on the next library build
+        }
+    }
+
+    private synchronized void writeQueue() {
+        myDirectory.mkdirs();
+        final File tmp = new File(myQueueFile.getPath() + ".tmp");
+        try {
+            final FileWriter writer = new FileWriter(tmp);
+            try {
+                for (Long id : myQueue) {
+                    writer.write(id + "\n");
+                }
+            }finally {
+                writer.close();
+            }
+            if (!tmp.renameTo(myQueueFile)) {
+                tmp.delete();
+            }
+        }catch (IOException e) {
+            tmp.delete();
+        }
+    }
+
+    void enqueue(Collection<? extends AbstractBook> books) {
+        synchronized (this) {
+            boolean changed = false;
+            for (AbstractBook book : books) {
+                if (book.getId() != -1 && !isUpToDate(book)) {
+                    changed |= myQueue.add(book.getId());
+                }
+            }
+            if (!changed) {
+                return;
+            }
+            writeQueue();
+        }
+        start();
+    }
+
+    void remove(AbstractBook book) {
+        synchronized (this) {
+            if (myQueue.remove(book.getId())) {
+                writeQueue();
+            }
+            mySegments.remove(segmentFile(book.getId()).getPath());
+        }
+        segmentFile(book.getId()).delete();
+    }
+
+    public synchronized int queueSize() {
+        return myQueue.size();
+    }
+
+    // ---- indexing ----
+
+    synchronized void start() {
+        if (myIndexer != null || myQueue.isEmpty()) {
+            return;
+        }
+        myIndexer = new Thread("Library.index") {
+            public void run() {
+                try {
+                    indexQueue();
+                }finally {
+                    // also when the thread dies of an error, so that the next enqueue() starts it again
+                    synchronized (LibraryTextIndex.this) {
+                        if (myIndexer == this) {
+                            myIndexer = null;
+                        }
+                    }
+                }
+            }
+        };
+        myIndexer.setPriority(Thread.MIN_PRIORITY);
+        myIndexer.start();
+    }
+
+    private void indexQueue() {
+        // the books that failed for a reason that may go away; they are tried again on the next start()
+        final HashSet<Long> failed = new HashSet<Long>();
+        while (true) {
+            Long id = null;
+            synchronized (this) {
+                for (Long queued : myQueue) {
+                    if (!failed.contains(queued)) {
+                        id = queued;
+                        break;
+                    }
+                }
+                if (id == null) {
+                    myIndexer = null;
+                    return;
+                }
+            }
+            final long start = System.currentTimeMillis();
+            final DbBook book = myCollection.getBookById(id);
+            if (book != null && !isUpToDate(book)) {
+                if (readAttempt() == id) {
+                    // the previous parse of the book killed the process, do not try again
+                    writeEmptySegment(book);
+                }else {
+                    writeAttempt(id);
+                    try {
+                        writeSegment(book);
+                    }catch (BookReadingException e) {
+                        writeEmptySegment(book);
+                    }catch (CachedCharStorageException e) {
+                        // the model files cannot be written or read back
+                        failed.add(id);
+                    }catch (IOException e) {
+                        failed.add(id);
+                    }catch (RuntimeException e) {
+                        // a plugin failure is not going to disappear on retry
+                        writeEmptySegment(book);
+                    }finally {
+                        deleteDirectory(myModelDirectory);
+                    }
+                }
+            }
+            synchronized (this) {
+                myQueue.remove(id);
+                if (failed.contains(id)) {
+                    // to the end of the queue, after the books not tried yet
+                    myQueue.add(id);
+                }
+                writeQueue();
+            }
+            myAttemptFile.delete();
+            // never take more than a half of a core
+            try {
+                Thread.sleep(Math.min(5000, System.currentTimeMillis() - start));
+            }catch (InterruptedException e) {
+                synchronized (this) {
+                    myIndexer = null;
+                }
+                return;
+            }
+        }
+    }
+
+    private long readAttempt() {
+        try {
+            final BufferedReader reader = new BufferedReader(new FileReader(myAttemptFile));
+            try {
+                return Long.parseLong(reader.readLine().trim());
+            }finally {
+                reader.close();
+            }
+        }catch (Exception e) {
+            // no attempt file or a broken one
+            return -1;
+        }
+    }
+
+    private void writeAttempt(long id) {
+        myDirectory.mkdirs();
+        try {
+            final FileWriter writer = new FileWriter(myAttemptFile);
+            try {
+                writer.write(id + "\n");
+            }finally {
+                writer.close();
+            }
+        }catch (IOException e) {
+            // the book is attempted unguarded
+        }
+    }
+
+    // for unreadable books; an empty segment keeps the book from being retried until the file changes
+    private void writeEmptySegment(DbBook book) {
+        try {
+            writeSegment(book, null);
+        }catch (IOException e) {
+            // will be retried
+        }
+    }
+
+    private boolean isUpToDate(AbstractBook book) {
+        final File file = segmentFile(book.getId());
+        if (!file.exists() || !(book instanceof DbBook)) {
+            return false;
+        }
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                return raf.readInt() == MAGIC
+                    && raf.readInt() == VERSION
+                    && raf.readLong() == ((DbBook)book).File.size()
+                    && raf.readLong() == ((DbBook)book).File.lastModified();
+            }finally {
+                raf.close();
+            }
+        }catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void writeSegment(DbBook book) throws BookReadingException, IOException {
+        final FormatPlugin plugin = BookUtil.getPlugin(myPluginCollection, book);
+        // models are built for Book, not DbBook
+        final Book copy = new Book(book.getId(), book.getPath(), book.getTitle(), book.getEncodingNoDetection(), book.getLanguage());
+        copy.updateFrom(book);
+        // the model files of the previous book may be left after a crash
+        deleteDirectory(myModelDirectory);
+        final BookModel model = BookModel.createModel(copy, plugin, myModelDirectory.getPath());
+        writeSegment(book, model.getTextModel());
+    }
+
+    private static void deleteDirectory(File directory) {
+        final File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteDirectory(child);
+            }
+        }
+        directory.delete();
+    }
+
+    private void writeSegment(DbBook book, ZLTextModel textModel) throws IOException {
+        final int paragraphsNumber = textModel != null ? textModel.getParagraphsNumber() : 0;
+
+        final HashMap<Long, int[]> postings = new HashMap<Long, int[]>();
+        // numbers of tokens, for the length normalization of scores
+        final int[] lengths = new int[paragraphsNumber];
+        long tokensNumber = 0;
+        final ByteArrayOutputStream groups = new ByteArrayOutputStream();
+        final int[] groupOffsets = new int[(paragraphsNumber + PARAGRAPHS_PER_GROUP - 1) / PARAGRAPHS_PER_GROUP + 1];
+        DataOutputStream group = null;
+        Deflater deflater = null;
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphsNumber; ++i) {
+            if (i % PARAGRAPHS_PER_GROUP == 0) {
+                if (group != null) {
+                    group.close();
+                    deflater.end();
+                }
+                groupOffsets[i / PARAGRAPHS_PER_GROUP] = groups.size();
+                deflater = new Deflater(Deflater.BEST_SPEED);
+                group = new DataOutputStream(new DeflaterOutputStream(groups, deflater));
+            }
+            text.setLength(0);
+            for (ZLTextParagraph.EntryIterator it = textModel.getParagraph(i).iterator(); it.next(); ) {
+                if (it.getType() == ZLTextParagraph.Entry.TEXT) {
+                    text.append(it.getTextData(), it.getTextOffset(), it.getTextLength());
+                }
+            }
+            final int paragraph = i;
+            tokenize(text, new TokenHandler() {
+                public void onToken(long hash) {
+                    ++lengths[paragraph];
+                    int[] list = postings.get(hash);
+                    if (list == null) {
+                        list = new int[4];
+                        postings.put(hash, list);
+                    }else if (list[list[0]] == paragraph) {
+                        return;
+                    }else if (list[0] + 1 == list.length) {
+                        list = Arrays.copyOf(list, list.length * 2);
+                        postings.put(hash, list);
+                    }
+                    list[++list[0]] = paragraph;
+                }
+            });
+            tokensNumber += lengths[i];
+            group.writeUTF(text.length() > MAX_STORED_PARAGRAPH_LENGTH ? text.substring(0, MAX_STORED_PARAGRAPH_LENGTH) : text.toString());
+        }
+        if (group != null) {
+            group.close();
+            deflater.end();
+        }
+        groupOffsets[groupOffsets.length - 1] = groups.size();
+
+        final Long[] hashes = postings.keySet().toArray(new Long[postings.size()]);
+        Arrays.sort(hashes);
+        int postingsNumber = 0;
+        for (Long h : hashes) {
+            postingsNumber += postings.get(h)[0];
+        }
+
+        myDirectory.mkdirs();
+        final File file = segmentFile(book.getId());
+        final File tmp = new File(file.getPath() + ".tmp");
+        final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeLong(book.File.size());
+            stream.writeLong(book.File.lastModified());
+            stream.writeInt(paragraphsNumber);
+            stream.writeInt(hashes.length);
+            stream.writeInt(postingsNumber);
+            stream.writeInt(groupOffsets.length - 1);
+            stream.writeLong(tokensNumber);
+            for (Long h : hashes) {
+                stream.writeLong(h);
+            }
+            int offset = 0;
+            for (Long h : hashes) {
+                stream.writeInt(offset);
+                offset += postings.get(h)[0];
+            }
+            stream.writeInt(offset);
+            for (Long h : hashes) {
+                final int[] list = postings.get(h);
+                for (int i = 1; i <= list[0]; ++i) {
+                    stream.writeInt(list[i]);
+                }
+            }
+            for (int o : groupOffsets) {
+                stream.writeInt(o);
+            }
+            for (int l : lengths) {
+                stream.writeInt(l);
+            }
+            groups.writeTo(stream);
+        }finally {
+            stream.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp);
+        }
+    }
+
+    // ---- search ----
+
+    private static final class Segment {
+
+        final ByteBuffer Buffer;
+        final long FileLength;
+        final long LastModified;
+        final int ParagraphsNumber;
+        final int TokensNumber;
+        final int GroupsNumber;
+        final float AverageLength;
+        final int HashesOffset;
+        final int StartsOffset;
+        final int PostingsOffset;
+        final int GroupOffsetsOffset;
+        final int LengthsOffset;
+        final int GroupsOffset;
+
+        Segment(File file) throws IOException {
+            FileLength = file.length();
+            LastModified = file.lastModified();
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                Buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            }finally {
+                raf.close();
+            }
+            if (Buffer.capacity() < HEADER_SIZE || Buffer.getInt(0) != MAGIC || Buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported segment " + file);
+            }
+            ParagraphsNumber = Buffer.getInt(24);
+            TokensNumber = Buffer.getInt(28);
+            final int postingsNumber = Buffer.getInt(32);
+            GroupsNumber = Buffer.getInt(36);
+            AverageLength = ParagraphsNumber > 0 ? Math.max(1f, (float)Buffer.getLong(40) / ParagraphsNumber) : 1f;
+            HashesOffset = HEADER_SIZE;
+            StartsOffset = HashesOffset + 8 * TokensNumber;
+            PostingsOffset = StartsOffset + 4 * (TokensNumber + 1);
+            GroupOffsetsOffset = PostingsOffset + 4 * postingsNumber;
+            LengthsOffset = GroupOffsetsOffset + 4 * (GroupsNumber + 1);
+            GroupsOffset = LengthsOffset + 4 * ParagraphsNumber;
+            if (ParagraphsNumber < 0 || TokensNumber < 0 || postingsNumber < 0 || GroupsNumber < 0 || GroupsOffset > Buffer.capacity()) {
+                throw new IOException("Broken segment " + file);
+            }
+        }
+
+        // index of the token, or -1
+        int find(long hash) {
+            int low = 0;
+            int high = TokensNumber - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final long value = Buffer.getLong(HashesOffset + 8 * middle);
+                if (value < hash) {
+                    low = middle + 1;
+                }else if (value > hash) {
+                    high = middle - 1;
+                }else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        int start(int token) {
+            return Buffer.getInt(StartsOffset + 4 * token);
+        }
+
+        int posting(int index) {
+            return Buffer.getInt(PostingsOffset + 4 * index);
+        }
+
+        int length(int paragraph) {
+            return Buffer.getInt(LengthsOffset + 4 * paragraph);
+        }
+
+        String paragraphText(int paragraph) throws IOException {
+            final int groupIndex = paragraph / PARAGRAPHS_PER_GROUP;
+            final int from = Buffer.getInt(GroupOffsetsOffset + 4 * groupIndex);
+            final int to = Buffer.getInt(GroupOffsetsOffset + 4 * (groupIndex + 1));
+            final byte[] data = new byte[to - from];
+            final ByteBuffer slice = Buffer.duplicate();
+            slice.position(GroupsOffset + from);
+            slice.get(data);
+            final DataInputStream stream = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+            try {
+                String text = null;
+                for (int i = groupIndex * PARAGRAPHS_PER_GROUP; i <= paragraph; ++i) {
+                    text = stream.readUTF();
+                }
+                return text;
+            }finally {
+                stream.close();
+            }
+        }
+    }
+
+    private static final class Candidate {
+
+        final long BookId;
+        final int ParagraphIndex;
+        final float Score;
+        final Segment Segment;
+
+        Candidate(long bookId, int paragraphIndex, float score, Segment segment) {
+            BookId = bookId;
+            ParagraphIndex = paragraphIndex;
+            Score = score;
+            Segment = segment;
+        }
+    }
+
+    /**
+     * Returns hits [offset, offset + limit) of the paragraphs containing all the
+     * words of the query, best first. A paragraph scores more for rarer words
+     * and for fewer other words.
+     */
+    public List<Hit> search(String query, int offset, int limit) {
+        final List<Long> tokens = new ArrayList<Long>();
+        tokenize(query, new TokenHandler() {
+            public void onToken(long hash) {
+                if (!tokens.contains(hash)) {
+                    tokens.add(hash);
+                }
+            }
+        });
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        offset = Math.max(0, offset);
+        final int wanted = Math.min(offset + limit, MAX_HITS_NUMBER);
+        if (offset >= wanted) {
+            return Collections.emptyList();
+        }
+        final File[] files = myDirectory.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        // the best hits of all the segments; the worst of them on the top, to be replaced
+        final PriorityQueue<Candidate> best = new PriorityQueue<Candidate>(wanted, Collections.reverseOrder(RANKING));
+        for (File file : files) {
+            final String name = file.getName();
+            if (!name.endsWith(".seg")) {
+                continue;
+            }
+            try {
+                final long bookId = Long.parseLong(name.substring(0, name.length() - 4));
+                collectCandidates(bookId, segment(file), tokens, best, wanted);
+            }catch (Exception e) {
+                // a segment of a deleted book or a broken one, skip it
+            }
+        }
+
+        final List<Candidate> candidates = new ArrayList<Candidate>(best);
+        Collections.sort(candidates, RANKING);
+
+        final List<Hit> hits = new ArrayList<Hit>();
+        for (int i = offset; i < candidates.size() && hits.size() < limit; ++i) {
+            final Candidate c = candidates.get(i);
+            String snippet;
+            try {
+                snippet = snippet(c.Segment.paragraphText(c.ParagraphIndex), query);
+            }catch (IOException e) {
+                snippet = "";
+            }
+            hits.add(new Hit(c.BookId, c.ParagraphIndex, c.Score, snippet));
+        }
+        return hits;
+    }
+
+    private synchronized Segment segment(File file) throws IOException {
+        final String path = file.getPath();
+        Segment segment = mySegments.get(path);
+        if (segment == null || segment.FileLength != file.length() || segment.LastModified != file.lastModified()) {
+            mySegments.remove(path);
+            segment = new Segment(file);
+            mySegments.put(path, segment);
+        }
+        return segment;
+    }
+
+    // best first; the book and paragraph order makes the ranking total, and the pages stable
+    private static final Comparator<Candidate> RANKING = new Comparator<Candidate>() {
+        public int compare(Candidate c0, Candidate c1) {
+            if (c0.Score != c1.Score) {
+                return c0.Score > c1.Score ? -1 : 1;
+            }
+            if (c0.BookId != c1.BookId) {
+                return c0.BookId < c1.BookId ? -1 : 1;
+            }
+            return c0.ParagraphIndex - c1.ParagraphIndex;
+        }
+    };
+
+    private static void collectCandidates(long bookId, Segment segment, List<Long> tokens, PriorityQueue<Candidate> best, int wanted) {
+        final int[] tokenIndices = new int[tokens.size()];
+        float weight = 0;
+        for (int i = 0; i < tokenIndices.length; ++i) {
+            tokenIndices[i] = segment.find(tokens.get(i));
+            if (tokenIndices[i] < 0) {
+                return;
+            }
+            final int frequency = segment.start(tokenIndices[i] + 1) - segment.start(tokenIndices[i]);
+            weight += (float)Math.log(1 + (double)segment.ParagraphsNumber / frequency);
+        }
+        // walk the postings of the first token, checking the others by binary search
+        final int first = tokenIndices[0];
+        for (int p = segment.start(first); p < segment.start(first + 1); ++p) {
+            final int paragraph = segment.posting(p);
+            boolean matches = true;
+            for (int i = 1; i < tokenIndices.length && matches; ++i) {
+                matches = contains(segment, tokenIndices[i], paragraph);
+            }
+            if (matches) {
+                // shorter paragraphs are more about the query words
+                final float norm = 1 - BM25_B + BM25_B * segment.length(paragraph) / segment.AverageLength;
+                final Candidate candidate = new Candidate(bookId, paragraph, weight * (BM25_K1 + 1) / (1 + BM25_K1 * norm), segment);
+                if (best.size() < wanted) {
+                    best.add(candidate);
+                }else if (RANKING.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+    }
+
+    private static boolean contains(Segment segment, int token, int paragraph) {
+        int low = segment.start(token);
+        int high = segment.start(token + 1) - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int value = segment.posting(middle);
+            if (value < paragraph) {
+                low = middle + 1;
+            }else if (value > paragraph) {
+                high = middle - 1;
+            }else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String snippet(String text, String query) {
+        if (text.length() <= SNIPPET_LENGTH) {
+            return text;
+        }
+        int position = -1;
+        final String lowerText = text.toLowerCase();
+        for (String word : query.toLowerCase().split("\\s+")) {
+            if (word.length() > 0) {
+                position = lowerText.indexOf(word);
+                if (position >= 0) {
+                    break;
+                }
+            }
+        }
+        final int start = Math.max(0, Math.min(text.length() - SNIPPET_LENGTH, position - SNIPPET_LENGTH / 3));
+        return (start > 0 ? "\u2026" : "") + text.substring(start, start + SNIPPET_LENGTH) + (start + SNIPPET_LENGTH < text.length() ? "\u2026" : "");
+    }
+}
@@ -33,6 +33,8 @@ import org.geometerplus.zlibrary.text.model.CachedCharStorage;
 import org.geometerplus.zlibrary.text.model.ZLTextModel;
 import org.geometerplus.zlibrary.text.model.ZLTextPlainModel;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -40,8 +42,17 @@ import java.util.List;
 public final class BookModel {
 
     public static BookModel createModel(Book book, FormatPlugin plugin) throws BookReadingException {
+        return createModel(book, plugin, null);
+    }
+
+    /**
+     * Reads the model into the given directory, past the model cache of the reader.
+     * The directory must belong to the caller alone; it is not cleaned afterwards.
+     */
+    public static BookModel createModel(Book book, FormatPlugin plugin, String scratchDirectory) throws BookReadingException {
         if (plugin instanceof BuiltinFormatPlugin) {
             final BookModel model = new BookModel(book);
+            model.myScratchDirectory = scratchDirectory;
             ((BuiltinFormatPlugin)plugin).readModel(model);
             Logger.e("这里已经解析完毕，但是不知道是走的那个解析*********************"+plugin.toString());
             return model;
@@ -80,11 +91,26 @@ public final class BookModel {
     }
 
     private LabelResolver myResolver;
+    private LabelIndex myLabelIndex;
+    private BookModelCache.Recorder myRecorder;
+    private String myScratchDirectory;
 
     public void setLabelResolver(LabelResolver resolver) {
         myResolver = resolver;
     }
 
+    void setRecorder(BookModelCache.Recorder recorder) {
+        myRecorder = recorder;
+    }
+
+    BookModelCache.Recorder getRecorder() {
+        return myRecorder;
+    }
+
+    public String getScratchDirectory() {
+        return myScratchDirectory;
+    }
+
     public Label getLabel(String id) {
         Label label = getLabelInternal(id);
         if (label == null && myResolver != null) {
@@ -99,6 +125,9 @@ public final class BookModel {
     }
 
     public void registerFontFamilyList(String[] families) {
+        if (myRecorder != null) {
+            myRecorder.registerFontFamilyList(families);
+        }
         FontManager.index(Arrays.asList(families));
     }
 
@@ -107,18 +136,31 @@ public final class BookModel {
     }
 
     public void registerFontEntry(String family, FileInfo normal, FileInfo bold, FileInfo italic, FileInfo boldItalic) {
+        if (myRecorder != null) {
+            myRecorder.registerFontEntry(family, normal, bold, italic, boldItalic);
+        }
         registerFontEntry(family, new FontEntry(family, normal, bold, italic, boldItalic));
     }
 
     public ZLTextModel createTextModel(String id, String language, int paragraphsNumber, int[] entryIndices, int[] entryOffsets, int[] paragraphLenghts, int[] textSizes, byte[] paragraphKinds, String directoryName, String fileExtension, int blocksNumber) {
-        return new ZLTextPlainModel(id, language, paragraphsNumber, entryIndices, entryOffsets, paragraphLenghts, textSizes, paragraphKinds, directoryName, fileExtension, blocksNumber, myImageMap, FontManager);
+        final ZLTextModel model = new ZLTextPlainModel(id, language, paragraphsNumber, entryIndices, entryOffsets, paragraphLenghts, textSizes, paragraphKinds, directoryName, fileExtension, blocksNumber, myImageMap, FontManager);
+        if (myRecorder != null) {
+            myRecorder.createTextModel(model, id, language, paragraphsNumber, entryIndices, entryOffsets, paragraphLenghts, textSizes, paragraphKinds, directoryName, fileExtension, blocksNumber);
+        }
+        return model;
     }
 
     public void setBookTextModel(ZLTextModel model) {
+        if (myRecorder != null) {
+            myRecorder.setTextModel(model, false);
+        }
         myBookTextModel = model;
     }
 
     public void setFootnoteModel(ZLTextModel model) {
+        if (myRecorder != null) {
+            myRecorder.setTextModel(model, true);
+        }
         myFootnotes.put(model.getId(), model);
     }
 
@@ -131,22 +173,37 @@ public final class BookModel {
     }
 
     public void addImage(String id, ZLImage image) {
+        if (myRecorder != null) {
+            myRecorder.addImage(id, image);
+        }
         myImageMap.put(id, image);
     }
 
     public void initInternalHyperlinks(String directoryName, String fileExtension, int blocksNumber) {
+        if (myRecorder != null) {
+            myRecorder.initInternalHyperlinks(directoryName, fileExtension, blocksNumber);
+        }
         myInternalHyperlinks = new CachedCharStorage(directoryName, fileExtension, blocksNumber);
+        synchronized (this) {
+            myLabelIndex = null;
+        }
     }
 
     private TOCTree myCurrentTree = TOCTree;
 
     public void addTOCItem(String text, int reference) {
+        if (myRecorder != null) {
+            myRecorder.addTOCItem(text, reference);
+        }
         myCurrentTree = new TOCTree(myCurrentTree);
         myCurrentTree.setText(text);
         myCurrentTree.setReference(myBookTextModel, reference);
     }
 
     public void leaveTOCItem() {
+        if (myRecorder != null) {
+            myRecorder.leaveTOCItem();
+        }
         myCurrentTree = myCurrentTree.Parent;
         if (myCurrentTree == null) {
             myCurrentTree = TOCTree;
@@ -154,28 +211,32 @@ public final class BookModel {
     }
 
     private Label getLabelInternal(String id) {
-        final int len = id.length();
-        final int size = myInternalHyperlinks.size();
-
-        for (int i = 0; i < size; ++i) {
-            final char[] block = myInternalHyperlinks.block(i);
-            for (int offset = 0; offset < block.length; ) {
-                final int labelLength = (int)block[offset++];
-                if (labelLength == 0) {
-                    break;
-                }
-                final int idLength = (int)block[offset + labelLength];
-                if (labelLength != len || !id.equals(new String(block, offset, labelLength))) {
-                    offset += labelLength + idLength + 3;
-                    continue;
-                }
-                offset += labelLength + 1;
-                final String modelId = (idLength > 0) ? new String(block, offset, idLength) : null;
-                offset += idLength;
-                final int paragraphNumber = (int)block[offset] + (((int)block[offset + 1]) << 16);
-                return new Label(modelId, paragraphNumber);
+        final LabelIndex index = labelIndex();
+        return index != null ? index.get(id) : null;
+    }
+
+    private synchronized LabelIndex labelIndex() {
+        if (myLabelIndex == null && myInternalHyperlinks != null) {
+            myLabelIndex = LabelIndex.build(myInternalHyperlinks);
+        }
+        return myLabelIndex;
+    }
+
+    void readLabelIndex(File file) {
+        try {
+            final LabelIndex index = LabelIndex.read(file);
+            synchronized (this) {
+                myLabelIndex = index;
             }
+        }catch (IOException e) {
+            // will be rebuilt from the hyperlinks storage on the first lookup
+        }
+    }
+
+    void writeLabelIndex(File file) throws IOException {
+        final LabelIndex index = labelIndex();
+        if (index != null) {
+            index.write(file);
         }
-        return null;
     }
 }
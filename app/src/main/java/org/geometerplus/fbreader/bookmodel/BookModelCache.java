@@ -0,0 +1,717 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.bookmodel;
+
+import org.geometerplus.fbreader.book.Book;
+import org.geometerplus.fbreader.book.BookUtil;
+import org.geometerplus.fbreader.book.UID;
+import org.geometerplus.zlibrary.core.drm.FileEncryptionInfo;
+import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.fonts.FileInfo;
+import org.geometerplus.zlibrary.core.image.ZLFileImage;
+import org.geometerplus.zlibrary.core.image.ZLImage;
+import org.geometerplus.zlibrary.text.model.CharBlockPack;
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Persistent cache of parsed book models. The native reader writes text blocks
+ * into a per-book directory, and every BookModel callback it makes is recorded
+ * into an index file in the same directory. Reopening the book replays the
+ * index instead of parsing the book again.
+ */
+public final class BookModelCache {
+
+    // increase when the index layout changes
+    private static final int VERSION = 1;
+    private static final int MAGIC = 0x464d4358;
+    private static final String INDEX_FILE_NAME = "model.index";
+    private static final String LABELS_FILE_NAME = "labels.index";
+    private static final String SEARCH_INDEX_FILE_NAME = "search.index";
+    private static final String LAYOUT_DIRECTORY_NAME = "layout";
+
+    public static final long DEFAULT_MAX_SIZE = 64L << 20;
+
+    private static final byte OP_IMAGE = 1;
+    private static final byte OP_INTERNAL_HYPERLINKS = 2;
+    private static final byte OP_ADD_TOC_ITEM = 3;
+    private static final byte OP_LEAVE_TOC_ITEM = 4;
+    private static final byte OP_TEXT_MODEL = 5;
+    private static final byte OP_BOOK_TEXT_MODEL = 6;
+    private static final byte OP_FOOTNOTE_MODEL = 7;
+    private static final byte OP_FONT_FAMILY_LIST = 8;
+    private static final byte OP_FONT_ENTRY = 9;
+    private static final byte OP_END = 0;
+
+    // packing and eviction, off the book opening path
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "BookModelCache");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // directories of this process that eviction must not touch: the ones being
+    // recorded (the native reader writes there) and the last opened ones; both guarded by ourRecording
+    private static final HashSet<File> ourRecording = new HashSet<File>();
+    private static final LinkedList<File> ourOpened = new LinkedList<File>();
+    private static final int OPENED_PINS_NUMBER = 2;
+
+    private final File myRoot;
+    private final String myPluginId;
+    private final long myMaxSize;
+
+    public BookModelCache(String rootDirectory, String pluginId) {
+        this(rootDirectory, pluginId, DEFAULT_MAX_SIZE);
+    }
+
+    public BookModelCache(String rootDirectory, String pluginId, long maxSize) {
+        myRoot = new File(rootDirectory);
+        myPluginId = pluginId;
+        myMaxSize = maxSize;
+    }
+
+    /**
+     * Fills the model from the cache; returns false (leaving the model untouched)
+     * if there is no valid cached copy of the book.
+     */
+    public boolean read(BookModel model) {
+        final File directory = directory(model.Book);
+        if (directory == null) {
+            return false;
+        }
+        final File index = new File(directory, INDEX_FILE_NAME);
+        if (!index.exists()) {
+            return false;
+        }
+        try {
+            final ByteBuffer buffer = map(index);
+            // dry run first: the model must not be touched by a broken index
+            final List<BlockFiles> blockFiles = new ArrayList<BlockFiles>();
+            if (!replay(buffer.duplicate(), null, blockFiles)) {
+                deleteDirectory(directory);
+                return false;
+            }
+            pinOpened(directory);
+            replay(buffer, model, null);
+            model.readLabelIndex(new File(directory, LABELS_FILE_NAME));
+            attachCaches(model, directory);
+            index.setLastModified(System.currentTimeMillis());
+            deletePackedBlockFiles(blockFiles);
+            return true;
+        }catch (Exception e) {
+            deleteDirectory(directory);
+            return false;
+        }
+    }
+
+    /**
+     * Starts recording the model callbacks; returns the directory the native reader
+     * should write the text blocks to, or null if the book cannot be cached.
+     */
+    public String startRecording(BookModel model) {
+        final File directory = directory(model.Book);
+        if (directory == null) {
+            return null;
+        }
+        synchronized (ourRecording) {
+            ourRecording.add(directory);
+        }
+        deleteDirectory(directory);
+        final File blocksDirectory = freshDirectory(directory, false);
+        if (blocksDirectory == null) {
+            unpinRecording(directory);
+            return null;
+        }
+        model.setRecorder(new Recorder());
+        return blocksDirectory.getPath();
+    }
+
+    /**
+     * Creates a new uniquely named subdirectory of the parent for the block files
+     * of one model read, deleting the other subdirectories if asked; null if it
+     * cannot be created. Block files are never rewritten in place: storages of a
+     * model read before map them, and a mapped file truncated under a reader
+     * kills it with SIGBUS, while a deleted one stays readable through its mapping.
+     */
+    public static File freshDirectory(File parent, boolean deleteOthers) {
+        if (deleteOthers) {
+            deleteDirectory(parent);
+        }
+        parent.mkdirs();
+        long stamp = System.currentTimeMillis();
+        for (int attempt = 0; attempt < 16; ++attempt, ++stamp) {
+            final File directory = new File(parent, Long.toString(stamp, 36));
+            if (directory.mkdir()) {
+                return directory;
+            }
+        }
+        return null;
+    }
+
+    public void finishRecording(BookModel model, boolean success) {
+        final Recorder recorder = model.getRecorder();
+        model.setRecorder(null);
+        final File directory = directory(model.Book);
+        if (recorder == null || directory == null) {
+            return;
+        }
+        unpinRecording(directory);
+        if (!success || recorder.myFailed) {
+            deleteDirectory(directory);
+            return;
+        }
+        try {
+            model.writeLabelIndex(new File(directory, LABELS_FILE_NAME));
+        }catch (IOException e) {
+            // optional, the index is rebuilt when missing
+        }
+        try {
+            recorder.myStream.writeByte(OP_END);
+            final File tmp = new File(directory, INDEX_FILE_NAME + ".tmp");
+            final FileOutputStream stream = new FileOutputStream(tmp);
+            try {
+                recorder.myBytes.writeTo(stream);
+            }finally {
+                stream.close();
+            }
+            if (!tmp.renameTo(new File(directory, INDEX_FILE_NAME))) {
+                throw new IOException("Cannot rename " + tmp);
+            }
+        }catch (IOException e) {
+            deleteDirectory(directory);
+            return;
+        }
+        pinOpened(directory);
+        attachCaches(model, directory);
+        final List<BlockFiles> blockFiles = recorder.myBlockFiles;
+        ourExecutor.execute(new Runnable() {
+            public void run() {
+                // the native code writes raw UTF-16 blocks; keep a compact copy in the cache;
+                // the open model goes on reading the block files, the pack is used next time
+                for (BlockFiles files : blockFiles) {
+                    try {
+                        CharBlockPack.pack(files.DirectoryName, files.FileExtension, files.BlocksNumber);
+                    }catch (IOException e) {
+                        // the block files are still in place
+                    }
+                }
+                evict(directory);
+            }
+        });
+    }
+
+    private static void unpinRecording(File directory) {
+        synchronized (ourRecording) {
+            ourRecording.remove(directory);
+        }
+    }
+
+    private static void pinOpened(File directory) {
+        synchronized (ourRecording) {
+            ourOpened.remove(directory);
+            ourOpened.addFirst(directory);
+            while (ourOpened.size() > OPENED_PINS_NUMBER) {
+                ourOpened.removeLast();
+            }
+        }
+    }
+
+    private static boolean isPinned(File directory) {
+        synchronized (ourRecording) {
+            return ourRecording.contains(directory) || ourOpened.contains(directory);
+        }
+    }
+
+    // the block files packed after the previous opening are not needed any more;
+    // removed in background, a storage that has mapped one keeps its mapping
+    private static void deletePackedBlockFiles(final List<BlockFiles> blockFiles) {
+        ourExecutor.execute(new Runnable() {
+            public void run() {
+                for (BlockFiles files : blockFiles) {
+                    if (CharBlockPack.file(files.DirectoryName, files.FileExtension).exists()) {
+                        CharBlockPack.deleteBlockFiles(files.DirectoryName, files.FileExtension, files.BlocksNumber);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void attachCaches(BookModel model, File directory) {
+        final ZLTextModel textModel = model.getTextModel();
+        if (textModel != null) {
+            textModel.attachSearchIndex(new File(directory, SEARCH_INDEX_FILE_NAME).getPath());
+            textModel.setLayoutCacheDirectory(new File(directory, LAYOUT_DIRECTORY_NAME).getPath());
+        }
+    }
+
+    private File directory(Book book) {
+        final String key = key(book);
+        return key != null ? new File(myRoot, key) : null;
+    }
+
+    private String key(Book book) {
+        UID uid = null;
+        for (UID u : book.uids()) {
+            if (uid == null || "SHA-256".equals(u.Type)) {
+                uid = u;
+            }
+        }
+        if (uid == null) {
+            return null;
+        }
+        final ZLFile file = BookUtil.fileByBook(book);
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("MD5");
+            final String source = myPluginId + '\000' + VERSION + '\000' + uid.Type + '\000' + uid.Id + '\000' + file.size() + '\000' + file.lastModified();
+            final StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest(source.getBytes("UTF-8"))) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        }catch (NoSuchAlgorithmException e) {
+            return null;
+        }catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void evict(File keep) {
+        final File[] directories = myRoot.listFiles();
+        if (directories == null) {
+            return;
+        }
+        final long[] sizes = new long[directories.length];
+        long total = 0;
+        for (int i = 0; i < directories.length; ++i) {
+            sizes[i] = size(directories[i]);
+            total += sizes[i];
+        }
+        if (total <= myMaxSize) {
+            return;
+        }
+        final Integer[] order = new Integer[directories.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i0, Integer i1) {
+                final long diff = lastUsed(directories[i0]) - lastUsed(directories[i1]);
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        for (int i : order) {
+            if (total <= myMaxSize) {
+                break;
+            }
+            if (!directories[i].equals(keep) && !isPinned(directories[i])) {
+                deleteDirectory(directories[i]);
+                total -= sizes[i];
+            }
+        }
+    }
+
+    private static long lastUsed(File directory) {
+        final File index = new File(directory, INDEX_FILE_NAME);
+        // a directory without an index is left by an interrupted recording
+        return index.exists() ? index.lastModified() : directory.lastModified();
+    }
+
+    private static long size(File file) {
+        final File[] children = file.listFiles();
+        if (children == null) {
+            return file.length();
+        }
+        long size = 0;
+        for (File child : children) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static void deleteDirectory(File directory) {
+        final File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteDirectory(child);
+            }
+        }
+        directory.delete();
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }finally {
+            raf.close();
+        }
+    }
+
+    private static boolean blocksExist(String directoryName, String fileExtension, int blocksNumber) {
+        return blocksNumber == 0
+            || CharBlockPack.file(directoryName, fileExtension).exists()
+            || new File(directoryName, (blocksNumber - 1) + "." + fileExtension).exists();
+    }
+
+    // with a null model only checks the index is complete and the block files are in place,
+    // collecting the block files of all the storages into blockFiles
+    private boolean replay(ByteBuffer buffer, BookModel model, List<BlockFiles> blockFiles) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+        final List<ZLTextModel> textModels = new ArrayList<ZLTextModel>();
+        int textModelsNumber = 0;
+        while (true) {
+            final byte op = buffer.get();
+            switch (op) {
+                case OP_END:
+                    return true;
+                case OP_IMAGE: {
+                    final String id = readString(buffer);
+                    final String uri = readString(buffer);
+                    final FileEncryptionInfo encryptionInfo = readEncryptionInfo(buffer);
+                    if (model != null) {
+                        model.addImage(id, ZLFileImage.byUrlPath(uri, encryptionInfo));
+                    }
+                    break;
+                }
+                case OP_INTERNAL_HYPERLINKS: {
+                    final String directoryName = readString(buffer);
+                    final String fileExtension = readString(buffer);
+                    final int blocksNumber = buffer.getInt();
+                    if (model != null) {
+                        model.initInternalHyperlinks(directoryName, fileExtension, blocksNumber);
+                    }else if (!blocksExist(directoryName, fileExtension, blocksNumber)) {
+                        return false;
+                    }else {
+                        blockFiles.add(new BlockFiles(directoryName, fileExtension, blocksNumber));
+                    }
+                    break;
+                }
+                case OP_ADD_TOC_ITEM: {
+                    final String text = readString(buffer);
+                    final int reference = buffer.getInt();
+                    if (model != null) {
+                        model.addTOCItem(text, reference);
+                    }
+                    break;
+                }
+                case OP_LEAVE_TOC_ITEM:
+                    if (model != null) {
+                        model.leaveTOCItem();
+                    }
+                    break;
+                case OP_TEXT_MODEL: {
+                    final String id = readString(buffer);
+                    final String language = readString(buffer);
+                    final int paragraphsNumber = buffer.getInt();
+                    final int[] entryIndices = readIntArray(buffer);
+                    final int[] entryOffsets = readIntArray(buffer);
+                    final int[] paragraphLengths = readIntArray(buffer);
+                    final int[] textSizes = readIntArray(buffer);
+                    final byte[] paragraphKinds = new byte[buffer.getInt()];
+                    buffer.get(paragraphKinds);
+                    final String directoryName = readString(buffer);
+                    final String fileExtension = readString(buffer);
+                    final int blocksNumber = buffer.getInt();
+                    if (model != null) {
+                        textModels.add(model.createTextModel(id, language, paragraphsNumber, entryIndices, entryOffsets, paragraphLengths, textSizes, paragraphKinds, directoryName, fileExtension, blocksNumber));
+                    }else if (!blocksExist(directoryName, fileExtension, blocksNumber)) {
+                        return false;
+                    }else {
+                        blockFiles.add(new BlockFiles(directoryName, fileExtension, blocksNumber));
+                    }
+                    ++textModelsNumber;
+                    break;
+                }
+                case OP_BOOK_TEXT_MODEL:
+                case OP_FOOTNOTE_MODEL: {
+                    final int index = buffer.getInt();
+                    if (index < 0 || index >= textModelsNumber) {
+                        return false;
+                    }
+                    if (model != null) {
+                        if (op == OP_BOOK_TEXT_MODEL) {
+                            model.setBookTextModel(textModels.get(index));
+                        }else {
+                            model.setFootnoteModel(textModels.get(index));
+                        }
+                    }
+                    break;
+                }
+                case OP_FONT_FAMILY_LIST: {
+                    final String[] families = new String[buffer.getInt()];
+                    for (int i = 0; i < families.length; ++i) {
+                        families[i] = readString(buffer);
+                    }
+                    if (model != null) {
+                        model.registerFontFamilyList(families);
+                    }
+                    break;
+                }
+                case OP_FONT_ENTRY: {
+                    final String family = readString(buffer);
+                    final FileInfo normal = readFileInfo(buffer);
+                    final FileInfo bold = readFileInfo(buffer);
+                    final FileInfo italic = readFileInfo(buffer);
+                    final FileInfo boldItalic = readFileInfo(buffer);
+                    if (model != null) {
+                        model.registerFontEntry(family, normal, bold, italic, boldItalic);
+                    }
+                    break;
+                }
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final char[] data = new char[length];
+        buffer.asCharBuffer().get(data);
+        buffer.position(buffer.position() + 2 * length);
+        return new String(data);
+    }
+
+    private static int[] readIntArray(ByteBuffer buffer) {
+        final int[] array = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(array);
+        buffer.position(buffer.position() + 4 * array.length);
+        return array;
+    }
+
+    private static FileEncryptionInfo readEncryptionInfo(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        return new FileEncryptionInfo(readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+    }
+
+    private static FileInfo readFileInfo(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        final String path = readString(buffer);
+        return new FileInfo(path, readEncryptionInfo(buffer));
+    }
+
+    private static final class BlockFiles {
+
+        final String DirectoryName;
+        final String FileExtension;
+        final int BlocksNumber;
+
+        BlockFiles(String directoryName, String fileExtension, int blocksNumber) {
+            DirectoryName = directoryName;
+            FileExtension = fileExtension;
+            BlocksNumber = blocksNumber;
+        }
+    }
+
+    static final class Recorder {
+
+        private final ByteArrayOutputStream myBytes = new ByteArrayOutputStream();
+        private final DataOutputStream myStream = new DataOutputStream(myBytes);
+        private final IdentityHashMap<ZLTextModel, Integer> myTextModels = new IdentityHashMap<ZLTextModel, Integer>();
+        private final List<BlockFiles> myBlockFiles = new ArrayList<BlockFiles>();
+        private boolean myFailed;
+
+        Recorder() {
+            try {
+                myStream.writeInt(MAGIC);
+                myStream.writeInt(VERSION);
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void addImage(String id, ZLImage image) {
+            if (!(image instanceof ZLFileImage)) {
+                myFailed = true;
+                return;
+            }
+            final ZLFileImage fileImage = (ZLFileImage)image;
+            try {
+                myStream.writeByte(OP_IMAGE);
+                writeString(id);
+                writeString(fileImage.getURI().substring(ZLFileImage.SCHEME.length() + 3));
+                writeEncryptionInfo(fileImage.getEncryptionInfo());
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void initInternalHyperlinks(String directoryName, String fileExtension, int blocksNumber) {
+            try {
+                myStream.writeByte(OP_INTERNAL_HYPERLINKS);
+                writeString(directoryName);
+                writeString(fileExtension);
+                myStream.writeInt(blocksNumber);
+                myBlockFiles.add(new BlockFiles(directoryName, fileExtension, blocksNumber));
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void addTOCItem(String text, int reference) {
+            try {
+                myStream.writeByte(OP_ADD_TOC_ITEM);
+                writeString(text);
+                myStream.writeInt(reference);
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void leaveTOCItem() {
+            try {
+                myStream.writeByte(OP_LEAVE_TOC_ITEM);
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void createTextModel(ZLTextModel model, String id, String language, int paragraphsNumber, int[] entryIndices, int[] entryOffsets, int[] paragraphLengths, int[] textSizes, byte[] paragraphKinds, String directoryName, String fileExtension, int blocksNumber) {
+            try {
+                myStream.writeByte(OP_TEXT_MODEL);
+                writeString(id);
+                writeString(language);
+                myStream.writeInt(paragraphsNumber);
+                writeIntArray(entryIndices);
+                writeIntArray(entryOffsets);
+                writeIntArray(paragraphLengths);
+                writeIntArray(textSizes);
+                myStream.writeInt(paragraphKinds.length);
+                myStream.write(paragraphKinds);
+                writeString(directoryName);
+                writeString(fileExtension);
+                myStream.writeInt(blocksNumber);
+                myBlockFiles.add(new BlockFiles(directoryName, fileExtension, blocksNumber));
+                myTextModels.put(model, myTextModels.size());
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void setTextModel(ZLTextModel model, boolean isFootnote) {
+            final Integer index = myTextModels.get(model);
+            if (index == null) {
+                myFailed = true;
+                return;
+            }
+            try {
+                myStream.writeByte(isFootnote ? OP_FOOTNOTE_MODEL : OP_BOOK_TEXT_MODEL);
+                myStream.writeInt(index);
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void registerFontFamilyList(String[] families) {
+            try {
+                myStream.writeByte(OP_FONT_FAMILY_LIST);
+                myStream.writeInt(families.length);
+                for (String f : families) {
+                    writeString(f);
+                }
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        void registerFontEntry(String family, FileInfo normal, FileInfo bold, FileInfo italic, FileInfo boldItalic) {
+            try {
+                myStream.writeByte(OP_FONT_ENTRY);
+                writeString(family);
+                writeFileInfo(normal);
+                writeFileInfo(bold);
+                writeFileInfo(italic);
+                writeFileInfo(boldItalic);
+            }catch (IOException e) {
+                myFailed = true;
+            }
+        }
+
+        private void writeString(String str) throws IOException {
+            if (str == null) {
+                myStream.writeInt(-1);
+            }else {
+                myStream.writeInt(str.length());
+                myStream.writeChars(str);
+            }
+        }
+
+        private void writeIntArray(int[] array) throws IOException {
+            myStream.writeInt(array.length);
+            final ByteBuffer buffer = ByteBuffer.allocate(4 * array.length);
+            buffer.asIntBuffer().put(array);
+            myStream.write(buffer.array());
+        }
+
+        private void writeEncryptionInfo(FileEncryptionInfo info) throws IOException {
+            if (info == null) {
+                myStream.writeByte(0);
+            }else {
+                myStream.writeByte(1);
+                writeString(info.Uri);
+                writeString(info.Method);
+                writeString(info.Algorithm);
+                writeString(info.ContentId);
+            }
+        }
+
+        private void writeFileInfo(FileInfo info) throws IOException {
+            if (info == null) {
+                myStream.writeByte(0);
+            }else {
+                myStream.writeByte(1);
+                writeString(info.Path);
+                writeEncryptionInfo(info.EncryptionInfo);
+            }
+        }
+    }
+}
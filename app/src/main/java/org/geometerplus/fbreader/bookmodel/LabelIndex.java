@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.fbreader.bookmodel;
+
+import org.geometerplus.zlibrary.text.model.CachedCharStorage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Label -> (model id, paragraph) map over the internal hyperlinks storage.
+ * Labels are kept in a single char pool and looked up through an open-addressing
+ * table of entry numbers, so resolving a link allocates nothing after the first call.
+ */
+final class LabelIndex {
+
+    private static final int MAGIC = 0x464c4258;
+    private static final int VERSION = 1;
+
+    private final char[] myChars;
+    private final int[] myStarts;
+    private final int[] myHashes;
+    private final int[] myModels;
+    private final int[] myParagraphs;
+    private final String[] myModelIds;
+    private final BookModel.Label[] myLabels;
+    // entry number + 1, 0 marks an empty slot
+    private final int[] myTable;
+    private final int myMask;
+
+    private LabelIndex(char[] chars, int[] starts, int[] models, int[] paragraphs, String[] modelIds) {
+        myChars = chars;
+        myStarts = starts;
+        myModels = models;
+        myParagraphs = paragraphs;
+        myModelIds = modelIds;
+
+        final int size = paragraphs.length;
+        myLabels = new BookModel.Label[size];
+        myHashes = new int[size];
+
+        int capacity = 4;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        myTable = new int[capacity];
+        myMask = capacity - 1;
+
+        for (int i = 0; i < size; ++i) {
+            int hash = 0;
+            for (int j = starts[i]; j < starts[i + 1]; ++j) {
+                hash = 31 * hash + chars[j];
+            }
+            myHashes[i] = hash;
+            // the first entry wins for duplicate labels, as with the linear scan
+            for (int slot = mix(hash) & myMask; ; slot = (slot + 1) & myMask) {
+                final int entry = myTable[slot] - 1;
+                if (entry < 0) {
+                    myTable[slot] = i + 1;
+                    break;
+                }
+                if (myHashes[entry] == hash && equals(entry, chars, starts[i], starts[i + 1] - starts[i])) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        return hash * 0x45d9f3b;
+    }
+
+    private boolean equals(int entry, char[] chars, int start, int length) {
+        final int entryStart = myStarts[entry];
+        if (myStarts[entry + 1] - entryStart != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (myChars[entryStart + i] != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equals(int entry, String id) {
+        final int start = myStarts[entry];
+        final int length = id.length();
+        if (myStarts[entry + 1] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (myChars[start + i] != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    BookModel.Label get(String id) {
+        // String.hashCode() is cached and uses the same formula as the constructor
+        final int hash = id.hashCode();
+        for (int slot = mix(hash) & myMask; ; slot = (slot + 1) & myMask) {
+            final int entry = myTable[slot] - 1;
+            if (entry < 0) {
+                return null;
+            }
+            if (myHashes[entry] == hash && equals(entry, id)) {
+                BookModel.Label label = myLabels[entry];
+                if (label == null) {
+                    label = new BookModel.Label(myModelIds[myModels[entry]], myParagraphs[entry]);
+                    myLabels[entry] = label;
+                }
+                return label;
+            }
+        }
+    }
+
+    static LabelIndex build(CachedCharStorage storage) {
+        final StringBuilder chars = new StringBuilder();
+        final List<String> modelIds = new ArrayList<String>();
+        // FB2 books may have thousands of footnote models, a list lookup per label is quadratic
+        final HashMap<String, Integer> modelNumbers = new HashMap<String, Integer>();
+        int[] starts = new int[64];
+        int[] models = new int[64];
+        int[] paragraphs = new int[64];
+        int size = 0;
+
+        for (int i = 0; i < storage.size(); ++i) {
+            final CharBuffer block = storage.buffer(i);
+            final int limit = block.limit();
+            for (int offset = 0; offset < limit; ) {
+                final int labelLength = (int)block.get(offset++);
+                if (labelLength == 0) {
+                    break;
+                }
+                final int idLength = (int)block.get(offset + labelLength);
+                if (size + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, size * 2);
+                    models = Arrays.copyOf(models, size * 2);
+                    paragraphs = Arrays.copyOf(paragraphs, size * 2);
+                }
+                starts[size] = chars.length();
+                for (int j = 0; j < labelLength; ++j) {
+                    chars.append(block.get(offset + j));
+                }
+                offset += labelLength + 1;
+                String modelId = null;
+                if (idLength > 0) {
+                    final char[] data = new char[idLength];
+                    for (int j = 0; j < idLength; ++j) {
+                        data[j] = block.get(offset + j);
+                    }
+                    modelId = new String(data);
+                }
+                offset += idLength;
+                Integer model = modelNumbers.get(modelId);
+                if (model == null) {
+                    model = modelIds.size();
+                    modelIds.add(modelId);
+                    modelNumbers.put(modelId, model);
+                }
+                models[size] = model;
+                paragraphs[size] = (int)block.get(offset) + (((int)block.get(offset + 1)) << 16);
+                offset += 2;
+                ++size;
+            }
+        }
+        starts[size] = chars.length();
+
+        final char[] pool = new char[chars.length()];
+        chars.getChars(0, pool.length, pool, 0);
+        return new LabelIndex(
+            pool,
+            Arrays.copyOf(starts, size + 1),
+            Arrays.copyOf(models, size),
+            Arrays.copyOf(paragraphs, size),
+            modelIds.toArray(new String[modelIds.size()])
+        );
+    }
+
+    static LabelIndex read(File file) throws IOException {
+        final DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                throw new IOException("Unsupported label index " + file);
+            }
+            final String[] modelIds = new String[stream.readInt()];
+            for (int i = 0; i < modelIds.length; ++i) {
+                modelIds[i] = stream.readBoolean() ? stream.readUTF() : null;
+            }
+            final char[] chars = new char[stream.readInt()];
+            for (int i = 0; i < chars.length; ++i) {
+                chars[i] = stream.readChar();
+            }
+            final int size = stream.readInt();
+            final int[] starts = new int[size + 1];
+            final int[] models = new int[size];
+            final int[] paragraphs = new int[size];
+            for (int i = 0; i < size; ++i) {
+                starts[i] = stream.readInt();
+                models[i] = stream.readInt();
+                paragraphs[i] = stream.readInt();
+                if (starts[i] < 0 || starts[i] > chars.length || (i > 0 && starts[i] < starts[i - 1])
+                    || models[i] < 0 || models[i] >= modelIds.length) {
+                    throw new IOException("Broken label index " + file);
+                }
+            }
+            starts[size] = chars.length;
+            return new LabelIndex(chars, starts, models, paragraphs, modelIds);
+        }finally {
+            stream.close();
+        }
+    }
+
+    void write(File file) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(myModelIds.length);
+            for (String id : myModelIds) {
+                stream.writeBoolean(id != null);
+                if (id != null) {
+                    stream.writeUTF(id);
+                }
+            }
+            stream.writeInt(myChars.length);
+            for (char ch : myChars) {
+                stream.writeChar(ch);
+            }
+            stream.writeInt(myParagraphs.length);
+            for (int i = 0; i < myParagraphs.length; ++i) {
+                stream.writeInt(myStarts[i]);
+                stream.writeInt(myModels[i]);
+                stream.writeInt(myParagraphs[i]);
+            }
+        }finally {
+            stream.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp);
+        }
+    }
+}
@@ -86,6 +86,7 @@ public final class FBReaderApp extends ZLApplication {
 
     public FBReaderApp(SystemInfo systemInfo, final IBookCollection<Book> collection) {
         super(systemInfo);
+        ZLTextHyphenator.setCacheDirectory(systemInfo.tempDirectory() + "/hyphenation");
 
         Collection = collection;
 
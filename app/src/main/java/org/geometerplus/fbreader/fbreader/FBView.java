@@ -61,6 +61,60 @@ public final class FBView extends ZLTextView {
         }
     }
 
+    @Override
+    protected int[] getSectionRange(int paragraphIndex) {
+        final BookModel model = myReader.Model;
+        final ZLTextModel textModel = getModel();
+        if (model == null || textModel == null || textModel != model.getTextModel()) {
+            return null;
+        }
+
+        // the deepest TOC item starting at or before the paragraph
+        TOCTree section = null;
+        for (TOCTree tree : model.TOCTree) {
+            final TOCTree.Reference reference = tree.getReference();
+            if (reference == null || reference.Model != textModel) {
+                continue;
+            }
+            if (reference.ParagraphIndex > paragraphIndex) {
+                break;
+            }
+            section = tree;
+        }
+        if (section == null) {
+            return null;
+        }
+
+        // the section (with its subsections) lasts until the next item outside of it
+        final int start = section.getReference().ParagraphIndex;
+        int end = textModel.getParagraphsNumber();
+        boolean afterSection = false;
+        for (TOCTree tree : model.TOCTree) {
+            if (tree == section) {
+                afterSection = true;
+                continue;
+            }
+            if (!afterSection || isInside(tree, section)) {
+                continue;
+            }
+            final TOCTree.Reference reference = tree.getReference();
+            if (reference != null && reference.Model == textModel && reference.ParagraphIndex > start) {
+                end = reference.ParagraphIndex;
+                break;
+            }
+        }
+        return new int[]{start, end};
+    }
+
+    private static boolean isInside(TOCTree tree, TOCTree section) {
+        for (TOCTree parent = tree.Parent; parent != null; parent = parent.Parent) {
+            if (parent == section) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private int myStartY;
     private boolean myIsBrightnessAdjustmentInProgress;
     private int myStartBrightness;
@@ -338,6 +392,14 @@ public final class FBView extends ZLTextView {
         return myViewOptions.getTextStyleCollection();
     }
 
+    @Override
+    protected String getLayoutFingerprint() {
+        // margins and columns are covered by the text area size; images are laid out fitted
+        return super.getLayoutFingerprint()
+            + "," + getImageFitting()
+            + "," + getTextStyleCollection().Screen;
+    }
+
     @Override
     public ImageFitting getImageFitting() {
         return myReader.ImageOptions.FitToScreen.getValue();
@@ -24,6 +24,7 @@ import com.orhanobut.logger.Logger;
 import org.geometerplus.fbreader.book.AbstractBook;
 import org.geometerplus.fbreader.book.BookUtil;
 import org.geometerplus.fbreader.bookmodel.BookModel;
+import org.geometerplus.fbreader.bookmodel.BookModelCache;
 import org.geometerplus.fbreader.formats.fb2.FB2NativePlugin;
 import org.geometerplus.fbreader.formats.oeb.OEBNativePlugin;
 import org.geometerplus.zlibrary.core.drm.FileEncryptionInfo;
@@ -35,6 +36,7 @@ import org.geometerplus.zlibrary.core.image.ZLFileImageProxy;
 import org.geometerplus.zlibrary.core.util.SystemInfo;
 import org.geometerplus.zlibrary.text.model.CachedCharStorageException;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -43,6 +45,9 @@ public class NativeFormatPlugin extends BuiltinFormatPlugin {
 
     private static final Object ourNativeLock = new Object();
 
+    // increase when the native model writer changes its output
+    private static final int MODEL_VERSION = 1;
+
     public static NativeFormatPlugin create(SystemInfo systemInfo, String fileType) {
         if ("fb2".equals(fileType)) {
             return new FB2NativePlugin(systemInfo);
@@ -107,21 +112,47 @@ public class NativeFormatPlugin extends BuiltinFormatPlugin {
     @Override
     synchronized public void readModel(BookModel model) throws BookReadingException {
         final int code;
-        final String tempDirectory = SystemInfo.tempDirectory();
+        final String scratchDirectory = model.getScratchDirectory();
+        final BookModelCache cache;
+        final String modelDirectory;
+        if (scratchDirectory != null) {
+            // a private parse (e.g. by the library indexer in the service process):
+            // the model cache of the reader is neither read, nor written, nor evicted
+            cache = null;
+            modelDirectory = freshDirectory(new File(scratchDirectory), scratchDirectory);
+        }else {
+            final String tempDirectory = SystemInfo.tempDirectory();
+            cache = new BookModelCache(tempDirectory + "/models", supportedFileType() + '/' + MODEL_VERSION);
+            if (cache.read(model)) {
+                return;
+            }
+            final String recordingDirectory = cache.startRecording(model);
+            modelDirectory = recordingDirectory != null
+                ? recordingDirectory : freshDirectory(new File(tempDirectory, "model"), tempDirectory);
+        }
         Logger.e("这里是具体的解析----------------jni 的解析方式");
         synchronized (ourNativeLock) {
-            code = readModelNative(model, tempDirectory);
+            code = readModelNative(model, modelDirectory);
+        }
+        if (cache != null) {
+            cache.finishRecording(model, code == 0);
         }
         switch (code) {
             case 0:
                 return;
             case 3:
-                throw new CachedCharStorageException("Cannot write file from native code to " + tempDirectory);
+                throw new CachedCharStorageException("Cannot write file from native code to " + modelDirectory);
             default:
                 throw new BookReadingException("nativeCodeFailure", BookUtil.fileByBook(model.Book), new String[]{String.valueOf(code), model.Book.getPath()});
         }
     }
 
+    // the block files of the previous read may still be mapped by its model, they are not overwritten
+    private static String freshDirectory(File parent, String fallback) {
+        final File directory = BookModelCache.freshDirectory(parent, true);
+        return directory != null ? directory.getPath() : fallback;
+    }
+
     private native int readModelNative(BookModel model, String cacheDir);
 
     @Override
@@ -38,6 +38,10 @@ public class ZLFileImage implements ZLStreamImage {
     public static final String ENCODING_BASE64 = "base64";
 
     public static ZLFileImage byUrlPath(String urlPath) {
+        return byUrlPath(urlPath, null);
+    }
+
+    public static ZLFileImage byUrlPath(String urlPath, FileEncryptionInfo encryptionInfo) {
         try {
             final String[] data = urlPath.split("\000");
             int count = Integer.parseInt(data[2]);
@@ -47,7 +51,7 @@ public class ZLFileImage implements ZLStreamImage {
                 offsets[i] = Integer.parseInt(data[3 + i]);
                 lengths[i] = Integer.parseInt(data[3 + count + i]);
             }
-            return new ZLFileImage(ZLFile.createFileByPath(data[0]), data[1], offsets, lengths, null);
+            return new ZLFileImage(ZLFile.createFileByPath(data[0]), data[1], offsets, lengths, encryptionInfo);
         }catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -76,6 +80,10 @@ public class ZLFileImage implements ZLStreamImage {
         this(file, ENCODING_NONE, 0, (int)file.size());
     }
 
+    public FileEncryptionInfo getEncryptionInfo() {
+        return myEncryptionInfo;
+    }
+
     public String getURI() {
         String result = SCHEME + "://" + myFile.getPath() + "\000" + myEncoding + "\000" + myOffsets.length;
         for (int offset : myOffsets) {
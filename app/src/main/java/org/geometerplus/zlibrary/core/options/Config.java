@@ -20,6 +20,8 @@
 package org.geometerplus.zlibrary.core.options;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Config {
 
@@ -46,6 +48,28 @@ public abstract class Config {
 
     private final Set<String> myCachedGroups = new HashSet<String>();
 
+    // by option group; incremented after every change of a cached value of the group,
+    // including the changes broadcast by other processes; values derived from the
+    // options of a group stay valid while its revision is the same
+    private final ConcurrentHashMap<String, AtomicInteger> myRevisions = new ConcurrentHashMap<String, AtomicInteger>();
+
+    public final int getRevision(String group) {
+        final AtomicInteger revision = myRevisions.get(group);
+        return revision != null ? revision.get() : 0;
+    }
+
+    private void onValueChanged(String group) {
+        AtomicInteger revision = myRevisions.get(group);
+        if (revision == null) {
+            final AtomicInteger created = new AtomicInteger();
+            revision = myRevisions.putIfAbsent(group, created);
+            if (revision == null) {
+                revision = created;
+            }
+        }
+        revision.incrementAndGet();
+    }
+
     public final String getValue(StringPair id, String defaultValue) {
         String value = myCache.get(id);
         if (value == null) {
@@ -72,6 +96,7 @@ public abstract class Config {
             return;
         }
         myCache.put(id, value);
+        onValueChanged(id.Group);
         setValueInternal(id.Group, id.Name, value);
     }
 
@@ -95,11 +120,17 @@ public abstract class Config {
 
     public final void unsetValue(StringPair id) {
         myCache.put(id, myNullString);
+        onValueChanged(id.Group);
         unsetValueInternal(id.Group, id.Name);
     }
 
     protected final void setToCache(String group, String name, String value) {
-        myCache.put(new StringPair(group, name), value != null ? value : myNullString);
+        final String cached = value != null ? value : myNullString;
+        final String oldValue = myCache.put(new StringPair(group, name), cached);
+        // filling the cache with values nobody has read yet changes nothing derived from them
+        if (oldValue != null && !oldValue.equals(cached)) {
+            onValueChanged(group);
+        }
     }
 
     public abstract boolean isInitialized();
@@ -19,22 +19,46 @@
 
 package org.geometerplus.zlibrary.core.util;
 
+import java.util.Arrays;
+
 public class ZLSearchPattern {
 
     final boolean IgnoreCase;
     final char[] LowerCasePattern;
     final char[] UpperCasePattern;
+    // Boyer-Moore-Horspool shifts by the low byte of the char under the window end;
+    // chars sharing a low byte get the smallest of their shifts
+    final int[] Shifts = new int[256];
 
     public ZLSearchPattern(String pattern, boolean ignoreCase) {
         pattern = pattern.replace("\u200b", "");
         IgnoreCase = ignoreCase;
         if (IgnoreCase) {
             LowerCasePattern = pattern.toLowerCase().toCharArray();
-            UpperCasePattern = pattern.toUpperCase().toCharArray();
+            final char[] upper = pattern.toUpperCase().toCharArray();
+            if (upper.length == LowerCasePattern.length) {
+                UpperCasePattern = upper;
+            }else {
+                // e.g. German sharp s becomes SS; fold such patterns char by char
+                UpperCasePattern = new char[LowerCasePattern.length];
+                for (int i = 0; i < LowerCasePattern.length; ++i) {
+                    UpperCasePattern[i] = Character.toUpperCase(LowerCasePattern[i]);
+                }
+            }
         }else {
             LowerCasePattern = pattern.toCharArray();
             UpperCasePattern = null;
         }
+
+        final int length = LowerCasePattern.length;
+        Arrays.fill(Shifts, Math.max(length, 1));
+        for (int i = 0; i < length - 1; ++i) {
+            final int shift = length - 1 - i;
+            Shifts[LowerCasePattern[i] & 0xFF] = Math.min(Shifts[LowerCasePattern[i] & 0xFF], shift);
+            if (UpperCasePattern != null) {
+                Shifts[UpperCasePattern[i] & 0xFF] = Math.min(Shifts[UpperCasePattern[i] & 0xFF], shift);
+            }
+        }
     }
 
     public int getLength() {
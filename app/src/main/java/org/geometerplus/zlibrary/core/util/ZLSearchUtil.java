@@ -19,10 +19,10 @@
 
 package org.geometerplus.zlibrary.core.util;
 
-import com.orhanobut.logger.Logger;
-
 public abstract class ZLSearchUtil {
 
+    private static final int SEGMENT_LENGTH = 1024;
+
     private ZLSearchUtil() {
     }
 
@@ -42,68 +42,121 @@ public abstract class ZLSearchUtil {
     }
 
     public static Result find(char[] text, int offset, int length, final ZLSearchPattern pattern, int pos) {
-        Logger.e("这里是搜索进行中----"+text.toString()+"--"+offset+"===="+length);
+        final long range = findRange(text, offset, length, pattern, pos);
+        return range >= 0 ? new Result(start(range), length(range)) : null;
+    }
+
+    public static int start(long range) {
+        return (int)(range >>> 32);
+    }
+
+    public static int length(long range) {
+        return (int)range;
+    }
+
+    /**
+     * Allocation-free variant of find(); returns the match as (start << 32 | length)
+     * relative to offset, or -1. Zero-width spaces inside the text are skipped, so
+     * the match length may exceed the pattern length.
+     */
+    public static long findRange(char[] text, int offset, int length, final ZLSearchPattern pattern, int pos) {
         if (pos < 0) {
             pos = 0;
         }
-        final char[] lower = pattern.LowerCasePattern;
-        final int patternLength = lower.length;
+        final int patternLength = pattern.LowerCasePattern.length;
+        if (patternLength == 0) {
+            return -1;
+        }
         final int end = offset + length;
-        final int lastStart = end - patternLength;
-        if (pattern.IgnoreCase) {
-            final char[] upper = pattern.UpperCasePattern;
-            final char firstCharLower = lower[0];
-            final char firstCharUpper = upper[0];
-            for (int i = offset + pos; i <= lastStart; ++i) {
-                final char current = text[i];
-                if (current == firstCharLower || current == firstCharUpper) {
-                    int j = 1;
-                    int k = i + 1;
-                    for (; j < patternLength; ++k) {
-                        final char symbol = text[k];
-                        if (symbol == '\u200b') {
-                            if (patternLength - j > end - k) {
-                                break;
-                            }else {
-                                continue;
-                            }
-                        }
-                        if (lower[j] != symbol && upper[j] != symbol) {
-                            break;
-                        }
-                        ++j;
-                    }
-                    if (j == patternLength) {
-                        return new Result(i - offset, k - i);
+        int from = offset + pos;
+        while (from <= end - patternLength) {
+            // zero-width spaces are looked for a segment at a time, so that repeated
+            // calls for the next match do not rescan the rest of the text
+            final int limit = Math.min(end, from + SEGMENT_LENGTH + patternLength);
+            int zwsp = from;
+            while (zwsp < limit && text[zwsp] != '\u200b') {
+                ++zwsp;
+            }
+            // the contiguous part before the space goes to Boyer-Moore-Horspool
+            final int found = findContiguous(text, from, zwsp, pattern);
+            if (found >= 0) {
+                return ((long)(found - offset) << 32) | patternLength;
+            }
+            if (zwsp == end) {
+                break;
+            }
+            if (zwsp == limit) {
+                // no space in the segment; the last windows overlap the next one
+                from = limit - patternLength + 1;
+                continue;
+            }
+            // a match starting right before the space spans it
+            for (int i = Math.max(from, zwsp - patternLength + 1); i < zwsp; ++i) {
+                final int matchEnd = matchAt(text, i, end, pattern);
+                if (matchEnd >= 0) {
+                    return ((long)(i - offset) << 32) | (matchEnd - i);
+                }
+            }
+            // a match never starts with a zero-width space
+            from = zwsp + 1;
+        }
+        return -1;
+    }
+
+    // Boyer-Moore-Horspool over text[from, to), no zero-width spaces in between
+    private static int findContiguous(char[] text, int from, int to, ZLSearchPattern pattern) {
+        final char[] lower = pattern.LowerCasePattern;
+        final char[] upper = pattern.UpperCasePattern;
+        final int[] shifts = pattern.Shifts;
+        final int last = lower.length - 1;
+        if (upper != null) {
+            for (int i = from; i + last < to; i += shifts[text[i + last] & 0xFF]) {
+                int j = last;
+                while (j >= 0) {
+                    final char symbol = text[i + j];
+                    if (symbol != lower[j] && symbol != upper[j]) {
+                        break;
                     }
+                    --j;
+                }
+                if (j < 0) {
+                    return i;
                 }
             }
         }else {
-            final char firstChar = lower[0];
-            for (int i = offset + pos; i <= lastStart; i++) {
-                if (text[i] == firstChar) {
-                    int j = 1;
-                    int k = i + 1;
-                    for (; j < patternLength; ++k) {
-                        final char symbol = text[k];
-                        if (symbol == '\u200b') {
-                            if (patternLength - j > end - k) {
-                                break;
-                            }else {
-                                continue;
-                            }
-                        }
-                        if (lower[j] != text[k]) {
-                            break;
-                        }
-                        ++j;
-                    }
-                    if (j >= patternLength) {
-                        return new Result(i - offset, k - i);
-                    }
+            for (int i = from; i + last < to; i += shifts[text[i + last] & 0xFF]) {
+                int j = last;
+                while (j >= 0 && text[i + j] == lower[j]) {
+                    --j;
+                }
+                if (j < 0) {
+                    return i;
                 }
             }
         }
-        return null;
+        return -1;
+    }
+
+    // the end of the match starting at start (skipping zero-width spaces), or -1
+    private static int matchAt(char[] text, int start, int end, ZLSearchPattern pattern) {
+        final char[] lower = pattern.LowerCasePattern;
+        final char[] upper = pattern.UpperCasePattern;
+        final int patternLength = lower.length;
+        int j = 0;
+        int k = start;
+        while (j < patternLength) {
+            if (k >= end) {
+                return -1;
+            }
+            final char symbol = text[k++];
+            if (symbol == '\u200b' && j > 0) {
+                continue;
+            }
+            if (symbol != lower[j] && (upper == null || symbol != upper[j])) {
+                return -1;
+            }
+            ++j;
+        }
+        return k;
     }
 }
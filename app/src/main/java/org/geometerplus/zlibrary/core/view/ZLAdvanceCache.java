@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.core.view;
+
+/**
+ * Advance widths of single characters in one font (typeface, size, style).
+ * A string of cacheable characters measures as the sum of their advances,
+ * that is true for fonts without kerning and ligatures only; a platform
+ * context checks that before using the cache, see KerningSensitive.
+ *
+ * Unsynchronized on purpose: a lost or not yet visible update means only
+ * that the character is measured once more.
+ */
+public final class ZLAdvanceCache {
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+    // true if pairs of characters in the font do not measure as the sum of
+    // the characters, the cache must not be used for strings then
+    public final boolean KerningSensitive;
+
+    private final float[][] myPages = new float[1 << (16 - PAGE_BITS)][];
+
+    public ZLAdvanceCache(boolean kerningSensitive) {
+        KerningSensitive = kerningSensitive;
+    }
+
+    // the advance of the character, 0 if it has not been measured yet
+    public float get(char chr) {
+        final float[] page = myPages[chr >> PAGE_BITS];
+        return page != null ? page[chr & PAGE_MASK] : 0;
+    }
+
+    public void put(char chr, float advance) {
+        float[] page = myPages[chr >> PAGE_BITS];
+        if (page == null) {
+            page = new float[1 << PAGE_BITS];
+            myPages[chr >> PAGE_BITS] = page;
+        }
+        page[chr & PAGE_MASK] = advance;
+    }
+
+    /**
+     * True for characters of scripts that are not shaped, i.e. whose width
+     * does not depend on the neighbours: Latin, Greek, Cyrillic, Armenian,
+     * punctuation and symbols, CJK and Hangul syllables. Combining marks,
+     * format characters, surrogates and the complex (RTL, Indic, South-East
+     * Asian) scripts are always measured as a whole string.
+     */
+    public static boolean isCacheable(char chr) {
+        if (chr < 0x0300) {
+            return chr >= 0x20;
+        }
+        if (chr < 0x0370) {
+            // combining diacritical marks
+            return false;
+        }
+        if (chr < 0x0590) {
+            return chr < 0x0483 || chr > 0x0489;
+        }
+        if (chr < 0x1E00) {
+            return false;
+        }
+        if (chr < 0x2000) {
+            return true;
+        }
+        if (chr < 0x2070) {
+            return (chr < 0x200B || chr > 0x200F) && (chr < 0x2028 || chr > 0x202E) && chr < 0x2060;
+        }
+        if (chr < 0x2C00) {
+            return chr < 0x20D0 || chr > 0x20FF;
+        }
+        if (chr < 0x3000) {
+            return false;
+        }
+        if (chr < 0xA000) {
+            return chr < 0x302A || chr > 0x302F && (chr < 0x3099 || chr > 0x309A);
+        }
+        if (chr < 0xAC00) {
+            return false;
+        }
+        if (chr < 0xD7A4) {
+            return true;
+        }
+        return chr >= 0xFF01 && chr < 0xFFEF;
+    }
+}
@@ -58,6 +58,14 @@ abstract public class ZLPaintContext {
 
     abstract public ZLColor getBackgroundColor();
 
+    /**
+     * Changes with the rendering options and font files that change text metrics,
+     * for layout fingerprints; 0 if string widths depend on the font only.
+     */
+    public int getMetricsStamp() {
+        return 0;
+    }
+
     private boolean myResetFont = true;
     private List<FontEntry> myFontEntries;
     private int myFontSize;
@@ -119,8 +127,22 @@ abstract public class ZLPaintContext {
 
     abstract public int getHeight();
 
+    // reused by the String versions of measuring and drawing, so that they do not allocate
+    private char[] myStringBuffer = new char[64];
+
+    private char[] toCharArray(String string) {
+        final int length = string.length();
+        char[] buffer = myStringBuffer;
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, 2 * buffer.length)];
+            myStringBuffer = buffer;
+        }
+        string.getChars(0, length, buffer, 0);
+        return buffer;
+    }
+
     public final int getStringWidth(String string) {
-        return getStringWidth(string.toCharArray(), 0, string.length());
+        return getStringWidth(toCharArray(string), 0, string.length());
     }
 
     abstract public int getStringWidth(char[] string, int offset, int length);
@@ -179,7 +201,7 @@ abstract public class ZLPaintContext {
     abstract protected int getDescentInternal();
 
     public final void drawString(int x, int y, String string) {
-        drawString(x, y, string.toCharArray(), 0, string.length());
+        drawString(x, y, toCharArray(string), 0, string.length());
     }
 
     abstract public void drawString(int x, int y, char[] string, int offset, int length);
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.hyphenation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TeX hyphenation patterns compiled into an immutable trie packed in flat
+ * arrays: the edges of every node are stored contiguously, sorted by label,
+ * so a transition is a binary search among the node's children. Matching a
+ * word allocates nothing, and the trie can be used from several threads.
+ *
+ * The compiled trie is stored as is, so that the next load maps the file
+ * instead of parsing the pattern XML; a mapped trie is used through buffer
+ * views of the file, without copying it to the heap.
+ */
+final class ZLTextHyphenationTrie {
+
+    static final class Builder {
+
+        private static final class Node {
+            final TreeMap<Character, Node> Children = new TreeMap<Character, Node>();
+            byte[] Values;
+        }
+
+        private final Node myRoot = new Node();
+        private int myNodesNumber = 1;
+        private int myValuesLength;
+
+        // values.length must be length + 1, as in TeX patterns
+        void add(char[] symbols, int length, byte[] values) {
+            Node node = myRoot;
+            for (int i = 0; i < length; ++i) {
+                Node child = node.Children.get(symbols[i]);
+                if (child == null) {
+                    child = new Node();
+                    node.Children.put(symbols[i], child);
+                    ++myNodesNumber;
+                }
+                node = child;
+            }
+            if (node.Values == null) {
+                myValuesLength += length + 1;
+            }
+            node.Values = values;
+        }
+
+        ZLTextHyphenationTrie build() {
+            final int nodesNumber = myNodesNumber;
+            final int[] firstEdge = new int[nodesNumber + 1];
+            final char[] labels = new char[nodesNumber - 1];
+            final int[] targets = new int[nodesNumber - 1];
+            final int[] valueOffsets = new int[nodesNumber];
+            final byte[] values = new byte[myValuesLength];
+
+            // breadth-first, so that the children of a node get consecutive edges
+            final ArrayList<Node> queue = new ArrayList<Node>(nodesNumber);
+            queue.add(myRoot);
+            int edge = 0;
+            int valuesLength = 0;
+            for (int index = 0; index < queue.size(); ++index) {
+                final Node node = queue.get(index);
+                firstEdge[index] = edge;
+                for (Map.Entry<Character, Node> child : node.Children.entrySet()) {
+                    labels[edge] = child.getKey();
+                    targets[edge] = queue.size();
+                    queue.add(child.getValue());
+                    ++edge;
+                }
+                if (node.Values != null) {
+                    valueOffsets[index] = valuesLength;
+                    System.arraycopy(node.Values, 0, values, valuesLength, node.Values.length);
+                    valuesLength += node.Values.length;
+                }else {
+                    valueOffsets[index] = -1;
+                }
+            }
+            firstEdge[nodesNumber] = edge;
+            return new ZLTextHyphenationTrie(
+                IntBuffer.wrap(firstEdge), CharBuffer.wrap(labels), IntBuffer.wrap(targets),
+                IntBuffer.wrap(valueOffsets), ByteBuffer.wrap(values)
+            );
+        }
+    }
+
+    private static final int MAGIC = 0x5a4c4854;
+    private static final int VERSION = 2;
+    // magic, version, source stamp, numbers of nodes and values
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+    // wrapped arrays of a built trie or views of a mapped file; read with
+    // absolute get() only, so the buffers are shared between threads
+    private final IntBuffer myFirstEdge;
+    private final CharBuffer myLabels;
+    private final IntBuffer myTargets;
+    private final IntBuffer myValueOffsets;
+    private final ByteBuffer myValues;
+
+    private ZLTextHyphenationTrie(IntBuffer firstEdge, CharBuffer labels, IntBuffer targets, IntBuffer valueOffsets, ByteBuffer values) {
+        myFirstEdge = firstEdge;
+        myLabels = labels;
+        myTargets = targets;
+        myValueOffsets = valueOffsets;
+        myValues = values;
+    }
+
+    /**
+     * Reads a trie written by write() with the same source stamp;
+     * returns null if the file is missing, broken or made for another source.
+     */
+    static ZLTextHyphenationTrie read(File file, long sourceStamp) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                final ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                if (buffer.remaining() < HEADER_SIZE
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != sourceStamp) {
+                    return null;
+                }
+                final int nodesNumber = buffer.getInt();
+                final int valuesLength = buffer.getInt();
+                if (nodesNumber < 1 || valuesLength < 0
+                    || buffer.remaining() != 14L * nodesNumber - 2 + valuesLength) {
+                    return null;
+                }
+                final IntBuffer firstEdge = slice(buffer, 4 * (nodesNumber + 1)).asIntBuffer();
+                final CharBuffer labels = slice(buffer, 2 * (nodesNumber - 1)).asCharBuffer();
+                final IntBuffer targets = slice(buffer, 4 * (nodesNumber - 1)).asIntBuffer();
+                final IntBuffer valueOffsets = slice(buffer, 4 * nodesNumber).asIntBuffer();
+                final ByteBuffer values = slice(buffer, valuesLength);
+                // apply() trusts the structure, a broken file must not get there
+                if (!isValid(firstEdge, labels, targets, valueOffsets, valuesLength)) {
+                    return null;
+                }
+                return new ZLTextHyphenationTrie(firstEdge, labels, targets, valueOffsets, values);
+            }finally {
+                raf.close();
+            }
+        }catch (IOException e) {
+            return null;
+        }
+    }
+
+    // the next length bytes of the buffer; the mapping outlives the file channel
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    // checks what build() guarantees: every node but the root is the target of exactly
+    // one edge of a preceding node, the edges of a node are sorted by label, and the
+    // values of a node at depth d are d + 1 bytes within the values array
+    private static boolean isValid(IntBuffer firstEdge, CharBuffer labels, IntBuffer targets, IntBuffer valueOffsets, int valuesLength) {
+        final int nodesNumber = valueOffsets.capacity();
+        final int edgesNumber = labels.capacity();
+        if (firstEdge.get(0) != 0 || firstEdge.get(nodesNumber) != edgesNumber) {
+            return false;
+        }
+        final int[] depth = new int[nodesNumber];
+        for (int node = 1; node < nodesNumber; ++node) {
+            depth[node] = -1;
+        }
+        for (int node = 0; node < nodesNumber; ++node) {
+            final int from = firstEdge.get(node);
+            final int to = firstEdge.get(node + 1);
+            if (from > to || to > edgesNumber || depth[node] == -1) {
+                return false;
+            }
+            for (int edge = from; edge < to; ++edge) {
+                if (edge > from && labels.get(edge - 1) >= labels.get(edge)) {
+                    return false;
+                }
+                final int target = targets.get(edge);
+                if (target <= node || target >= nodesNumber || depth[target] != -1) {
+                    return false;
+                }
+                depth[target] = depth[node] + 1;
+            }
+            final int offset = valueOffsets.get(node);
+            if (offset != -1 && (offset < 0 || offset > valuesLength - depth[node] - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void write(File file, long sourceStamp) throws IOException {
+        final File directory = file.getParentFile();
+        directory.mkdirs();
+        final File tmp = new File(directory, file.getName() + ".tmp");
+        final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeLong(sourceStamp);
+            stream.writeInt(myValueOffsets.capacity());
+            stream.writeInt(myValues.capacity());
+            for (int i = 0; i < myFirstEdge.capacity(); ++i) {
+                stream.writeInt(myFirstEdge.get(i));
+            }
+            for (int i = 0; i < myLabels.capacity(); ++i) {
+                stream.writeChar(myLabels.get(i));
+            }
+            for (int i = 0; i < myTargets.capacity(); ++i) {
+                stream.writeInt(myTargets.get(i));
+            }
+            for (int i = 0; i < myValueOffsets.capacity(); ++i) {
+                stream.writeInt(myValueOffsets.get(i));
+            }
+            for (int i = 0; i < myValues.capacity(); ++i) {
+                stream.writeByte(myValues.get(i));
+            }
+        }finally {
+            stream.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+
+    boolean isEmpty() {
+        return myLabels.capacity() == 0;
+    }
+
+    // child of the node by the label, -1 if there is no such child
+    private int child(int node, char label) {
+        int low = myFirstEdge.get(node);
+        int high = myFirstEdge.get(node + 1) - 1;
+        final CharBuffer labels = myLabels;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final char l = labels.get(middle);
+            if (l < label) {
+                low = middle + 1;
+            }else if (l > label) {
+                high = middle - 1;
+            }else {
+                return myTargets.get(middle);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Applies all the patterns occurring in the string to values, that is
+     * to be zeroed and at least length + 1 long; odd values are hyphenation points.
+     */
+    void apply(char[] string, int length, byte[] values) {
+        final IntBuffer valueOffsets = myValueOffsets;
+        final ByteBuffer patternValues = myValues;
+        for (int offset = 0; offset < length - 1; ++offset) {
+            int node = 0;
+            for (int i = offset; i < length; ++i) {
+                node = child(node, string[i]);
+                if (node == -1) {
+                    break;
+                }
+                int from = valueOffsets.get(node);
+                if (from != -1) {
+                    // pattern string[offset..i] has i - offset + 2 values
+                    for (int j = offset; j <= i + 1; ++j, ++from) {
+                        final byte value = patternValues.get(from);
+                        if (values[j] < value) {
+                            values[j] = value;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
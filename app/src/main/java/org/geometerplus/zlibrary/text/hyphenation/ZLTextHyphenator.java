@@ -21,29 +21,57 @@ package org.geometerplus.zlibrary.text.hyphenation;
 
 import org.geometerplus.zlibrary.text.view.ZLTextWord;
 
+import java.util.Arrays;
 import java.util.List;
 
 public abstract class ZLTextHyphenator {
 
     private static ZLTextHyphenator ourInstance;
+    private static volatile String ourCacheDirectory;
 
-    public static ZLTextHyphenator Instance() {
+    // layout runs on worker threads too
+    public static synchronized ZLTextHyphenator Instance() {
         if (ourInstance == null) {
             ourInstance = new ZLTextTeXHyphenator();
         }
         return ourInstance;
     }
 
-    public static void deleteInstance() {
+    public static synchronized void deleteInstance() {
         if (ourInstance != null) {
             ourInstance.unload();
             ourInstance = null;
         }
     }
 
+    // recently hyphenated words, direct-mapped by the hash of the word text;
+    // the same words repeat a lot, and every layout pass asks for them again
+    private static final int RECENT_WORDS_NUMBER = 512;
+    private final char[][] myRecentWords = new char[RECENT_WORDS_NUMBER][];
+    private final ZLTextHyphenationInfo[] myRecentInfos = new ZLTextHyphenationInfo[RECENT_WORDS_NUMBER];
+    private int myRecentWordsGeneration;
+
     protected ZLTextHyphenator() {
     }
 
+    // compiled patterns are kept there; without a directory they are parsed on every load
+    public static void setCacheDirectory(String directory) {
+        ourCacheDirectory = directory;
+    }
+
+    protected static String cacheDirectory() {
+        return ourCacheDirectory;
+    }
+
+    // to be called when the patterns change
+    protected final void forgetRecentWords() {
+        synchronized (myRecentWords) {
+            Arrays.fill(myRecentWords, null);
+            Arrays.fill(myRecentInfos, null);
+            ++myRecentWordsGeneration;
+        }
+    }
+
     public abstract List<String> languageCodes();
 
     public abstract void load(final String languageCode);
@@ -51,6 +79,44 @@ public abstract class ZLTextHyphenator {
     public abstract void unload();
 
     public ZLTextHyphenationInfo getInfo(final ZLTextWord word) {
+        final char[] data = word.Data;
+        final int len = word.Length;
+        int hash = 0;
+        for (int i = word.Offset; i < word.Offset + len; ++i) {
+            hash = 31 * hash + data[i];
+        }
+        final int slot = (hash ^ (hash >>> 16)) & (RECENT_WORDS_NUMBER - 1);
+        final int generation;
+        synchronized (myRecentWords) {
+            final char[] recent = myRecentWords[slot];
+            if (recent != null && recent.length == len && regionMatches(recent, data, word.Offset)) {
+                return myRecentInfos[slot];
+            }
+            generation = myRecentWordsGeneration;
+        }
+
+        final ZLTextHyphenationInfo info = computeInfo(word);
+        synchronized (myRecentWords) {
+            if (generation == myRecentWordsGeneration) {
+                final char[] recent = new char[len];
+                System.arraycopy(data, word.Offset, recent, 0, len);
+                myRecentWords[slot] = recent;
+                myRecentInfos[slot] = info;
+            }
+        }
+        return info;
+    }
+
+    private static boolean regionMatches(char[] recent, char[] data, int offset) {
+        for (int i = 0; i < recent.length; ++i) {
+            if (recent[i] != data[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ZLTextHyphenationInfo computeInfo(ZLTextWord word) {
         final int len = word.Length;
         final boolean[] isLetter = new boolean[len];
         final char[] pattern = new char[len + 2];
@@ -21,19 +21,9 @@ package org.geometerplus.zlibrary.text.hyphenation;
 
 public final class ZLTextTeXHyphenationPattern {
 
-    private int myLength;
+    private final int myLength;
     private final char[] mySymbols;
     private final byte[] myValues;
-    private int myHashCode;
-
-    void update(char[] pattern, int offset, int length) {
-        // We assert
-        // 		1. this pattern doesn't use values
-        // 		length <= original pattern length
-        System.arraycopy(pattern, offset, mySymbols, 0, length);
-        myLength = length;
-        myHashCode = 0;
-    }
 
     public ZLTextTeXHyphenationPattern(char[] pattern, int offset, int length, boolean useValues) {
         if (useValues) {
@@ -69,55 +59,8 @@ public final class ZLTextTeXHyphenationPattern {
         }
     }
 
-    void apply(byte[] mask, int position) {
-        final int patternLength = myLength;
-        final byte[] values = myValues;
-        for (int i = 0, j = position; i <= patternLength; ++i, ++j) {
-            final byte val = values[i];
-            if (mask[j] < val) {
-                mask[j] = val;
-            }
-        }
-    }
-
-    void reset(int length) {
-        myLength = length;
-        myHashCode = 0;
-    }
-
-    int length() {
-        return myLength;
-    }
-
-    public boolean equals(Object o) {
-        ZLTextTeXHyphenationPattern pattern = (ZLTextTeXHyphenationPattern)o;
-        int len = myLength;
-        if (len != pattern.myLength) {
-            return false;
-        }
-        final char[] symbols0 = mySymbols;
-        final char[] symbols1 = pattern.mySymbols;
-        while (len-- != 0) {
-            if (symbols0[len] != symbols1[len]) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    public int hashCode() {
-        int hash = myHashCode;
-        if (hash == 0) {
-            final char[] symbols = mySymbols;
-            hash = 0;
-            int index = myLength;
-            while (index-- != 0) {
-                hash *= 31;
-                hash += symbols[index];
-            }
-            myHashCode = hash;
-        }
-        return hash;
+    void addTo(ZLTextHyphenationTrie.Builder builder) {
+        builder.add(mySymbols, myLength, myValues);
     }
 
     @Override
@@ -23,20 +23,39 @@ import org.geometerplus.zlibrary.core.filesystem.ZLFile;
 import org.geometerplus.zlibrary.core.filesystem.ZLResourceFile;
 import org.geometerplus.zlibrary.core.language.Language;
 import org.geometerplus.zlibrary.core.language.ZLLanguageUtil;
+import org.geometerplus.zlibrary.core.library.ZLibrary;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 final class ZLTextTeXHyphenator extends ZLTextHyphenator {
 
-    private final HashMap<ZLTextTeXHyphenationPattern, ZLTextTeXHyphenationPattern> myPatternTable = new HashMap<ZLTextTeXHyphenationPattern, ZLTextTeXHyphenationPattern>();
-    private int myMaxPatternLength;
+    // replaced as a whole on load, hyphenate() runs on several threads
+    private volatile ZLTextHyphenationTrie myTrie;
+    // not null while the patterns are being read
+    private ZLTextHyphenationTrie.Builder myBuilder;
     private String myLanguage;
+    // tries of the last languages, so that switching between books does not read them again;
+    // access-ordered, i.e. changed by get() as well, so used under the lock of load()
+    private static final int MAX_RECENT_TRIES = 3;
+    private final LinkedHashMap<String, ZLTextHyphenationTrie> myRecentTries =
+        new LinkedHashMap<String, ZLTextHyphenationTrie>(MAX_RECENT_TRIES, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ZLTextHyphenationTrie> eldest) {
+                return size() > MAX_RECENT_TRIES;
+            }
+        };
 
-    void addPattern(ZLTextTeXHyphenationPattern pattern) {
-        myPatternTable.put(pattern, pattern);
-        if (myMaxPatternLength < pattern.length()) {
-            myMaxPatternLength = pattern.length();
+    private final ThreadLocal<byte[]> myValues = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[64];
         }
+    };
+
+    void addPattern(ZLTextTeXHyphenationPattern pattern) {
+        pattern.addTo(myBuilder);
     }
 
     private List<String> myLanguageCodes;
@@ -59,7 +78,7 @@ final class ZLTextTeXHyphenator extends ZLTextHyphenator {
         return Collections.unmodifiableList(myLanguageCodes);
     }
 
-    public void load(String language) {
+    public synchronized void load(String language) {
         if (language == null || Language.OTHER_CODE.equals(language)) {
             language = ZLLanguageUtil.defaultLanguageCode();
         }
@@ -70,39 +89,75 @@ final class ZLTextTeXHyphenator extends ZLTextHyphenator {
         unload();
 
         if (language != null) {
-            new ZLTextHyphenationReader(this).readQuietly(ZLResourceFile.createResourceFile("hyphenationPatterns/" + language + ".pattern"));
+            ZLTextHyphenationTrie trie = myRecentTries.get(language);
+            if (trie == null) {
+                trie = readTrie(language);
+                myRecentTries.put(language, trie);
+            }
+            myTrie = trie;
+            forgetRecentWords();
         }
     }
 
-    public void unload() {
-        myPatternTable.clear();
-        myMaxPatternLength = 0;
+    // the compiled patterns, if there are up to date ones; otherwise parses the XML and compiles it
+    private ZLTextHyphenationTrie readTrie(String language) {
+        final ZLFile source = ZLResourceFile.createResourceFile("hyphenationPatterns/" + language + ".pattern");
+        final long sourceSize = source.exists() ? source.size() : -1;
+        // the patterns come with the application, a new version may change them keeping the size
+        final long sourceStamp = (sourceSize << 32) | (versionName().hashCode() & 0xFFFFFFFFL);
+        final String directory = cacheDirectory();
+        final File compiled = directory != null && sourceSize > 0 ? new File(directory, language + ".trie") : null;
+        if (compiled != null) {
+            final ZLTextHyphenationTrie trie = ZLTextHyphenationTrie.read(compiled, sourceStamp);
+            if (trie != null) {
+                return trie;
+            }
+        }
+
+        myBuilder = new ZLTextHyphenationTrie.Builder();
+        new ZLTextHyphenationReader(this).readQuietly(source);
+        final ZLTextHyphenationTrie trie = myBuilder.build();
+        myBuilder = null;
+        if (compiled != null && !trie.isEmpty()) {
+            try {
+                trie.write(compiled, sourceStamp);
+            }catch (IOException e) {
+                // parsed again next time
+            }
+        }
+        return trie;
+    }
+
+    private static String versionName() {
+        final ZLibrary library = ZLibrary.Instance();
+        final String name = library != null ? library.getFullVersionName() : null;
+        return name != null ? name : "";
+    }
+
+    public synchronized void unload() {
+        myTrie = null;
+        forgetRecentWords();
     }
 
     public void hyphenate(char[] stringToHyphenate, boolean[] mask, int length) {
-        if (myPatternTable.isEmpty()) {
+        final ZLTextHyphenationTrie trie = myTrie;
+        if (trie == null || trie.isEmpty()) {
             for (int i = 0; i < length - 1; i++) {
                 mask[i] = false;
             }
             return;
         }
 
-        byte[] values = new byte[length + 1];
-
-        final HashMap<ZLTextTeXHyphenationPattern, ZLTextTeXHyphenationPattern> table = myPatternTable;
-        ZLTextTeXHyphenationPattern pattern = new ZLTextTeXHyphenationPattern(stringToHyphenate, 0, length, false);
-        for (int offset = 0; offset < length - 1; offset++) {
-            int len = Math.min(length - offset, myMaxPatternLength) + 1;
-            pattern.update(stringToHyphenate, offset, len - 1);
-            while (--len > 0) {
-                pattern.reset(len);
-                ZLTextTeXHyphenationPattern toApply = (ZLTextTeXHyphenationPattern)table.get(pattern);
-                if (toApply != null) {
-                    toApply.apply(values, offset);
-                }
-            }
+        byte[] values = myValues.get();
+        if (values.length < length + 1) {
+            values = new byte[length + 1 + 32];
+            myValues.set(values);
+        }else {
+            Arrays.fill(values, 0, length + 1, (byte)0);
         }
 
+        trie.apply(stringToHyphenate, length, values);
+
         for (int i = 0; i < length - 1; i++) {
             mask[i] = (values[i + 1] % 2) == 1;
         }
@@ -23,21 +23,67 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 
 public final class CachedCharStorage {
 
-    protected final ArrayList<WeakReference<char[]>> myArray = new ArrayList<WeakReference<char[]>>();
+    private final CharBlockCache myCache;
+    private final int myBlocksNumber;
 
     private final String myDirectoryName;
     private final String myFileExtension;
 
+    // memory-mapped views of the block files; null when the storage
+    // reads blocks through an InputStreamReader only; a block file is never
+    // rewritten once the model is read (every model read writes to a fresh
+    // directory), so a mapping stays valid for the lifetime of the storage
+    private final CharBuffer[] myMappedBlocks;
+
+    // all blocks packed into a single file, see CharBlockPack; the pack is built
+    // in background after the model is stored in the model cache, and replaces
+    // the block files from the next opening on
+    private final File myPackFile;
+    private CharBlockPack myPack;
+    // the pack file is looked for once per opening, not on every block miss
+    private boolean myPackChecked;
+
+    // blocks are loaded under their own locks: a background prefetch of one block
+    // must not make a reader of another block wait for the disk
+    private final Object[] myBlockLocks;
+
     public CachedCharStorage(String directoryName, String fileExtension, int blocksNumber) {
+        this(directoryName, fileExtension, blocksNumber, new LruCharBlockCache(LruCharBlockCache.DEFAULT_BUDGET), true);
+    }
+
+    public CachedCharStorage(String directoryName, String fileExtension, int blocksNumber, CharBlockCache cache, boolean useMemoryMapping) {
         myDirectoryName = directoryName + '/';
         myFileExtension = '.' + fileExtension;
-        myArray.addAll(Collections.nCopies(blocksNumber, new WeakReference<char[]>(null)));
+        myBlocksNumber = blocksNumber;
+        myCache = cache;
+        myMappedBlocks = useMemoryMapping ? new CharBuffer[blocksNumber] : null;
+        myPackFile = CharBlockPack.file(directoryName, fileExtension);
+        myBlockLocks = new Object[blocksNumber];
+        for (int i = 0; i < blocksNumber; ++i) {
+            myBlockLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns a storage over the same blocks with a cache of its own, for passes
+     * over the whole text that must not evict the blocks of the visible pages.
+     */
+    public CachedCharStorage sequentialCopy() {
+        return new CachedCharStorage(
+            myDirectoryName.substring(0, myDirectoryName.length() - 1),
+            myFileExtension.substring(1),
+            myBlocksNumber,
+            // a couple of blocks: an entry may continue into the next one
+            new LruCharBlockCache(LruCharBlockCache.DEFAULT_BUDGET / 8),
+            false
+        );
     }
 
     private String fileName(int index) {
@@ -45,7 +91,11 @@ public final class CachedCharStorage {
     }
 
     public int size() {
-        return myArray.size();
+        return myBlocksNumber;
+    }
+
+    public CharBlockCache getCache() {
+        return myCache;
     }
 
     private String exceptionMessage(int index, String extra) {
@@ -71,30 +121,169 @@ public final class CachedCharStorage {
         return buffer.toString();
     }
 
-    public char[] block(int index) {
-        if (index < 0 || index >= myArray.size()) {
+    /**
+     * Returns a read-only view of the block; for memory-mapped storage
+     * the view is backed by the file itself, no heap copy is made.
+     */
+    public CharBuffer buffer(int index) {
+        if (index < 0 || index >= myBlocksNumber) {
             return null;
         }
-        char[] block = myArray.get(index).get();
-        if (block == null) {
+        if (myMappedBlocks != null) {
             try {
-                File file = new File(fileName(index));
-                int size = (int)file.length();
-                if (size < 0) {
-                    throw new CachedCharStorageException(exceptionMessage(index, "size = " + size));
+                // blocks stored as is in the pack are mapped as well
+                final CharBlockPack pack = pack();
+                final CharBuffer raw = pack != null ? pack.rawBuffer(index) : null;
+                if (raw != null) {
+                    return raw;
                 }
-                block = new char[size / 2];
-                InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-16LE");
-                final int rd = reader.read(block);
-                if (rd != block.length) {
-                    throw new CachedCharStorageException(exceptionMessage(index, "; " + rd + " != " + block.length));
+            }catch (IOException e) {
+                // fall back to the heap copy
+            }
+            final File file = new File(fileName(index));
+            try {
+                synchronized (this) {
+                    return mappedBlock(index, file).duplicate();
                 }
-                reader.close();
             }catch (IOException e) {
-                throw new CachedCharStorageException(exceptionMessage(index, null), e);
+                // fall back to the heap copy
+            }
+        }
+        return CharBuffer.wrap(block(index)).asReadOnlyBuffer();
+    }
+
+    public char[] block(int index) {
+        if (index < 0 || index >= myBlocksNumber) {
+            return null;
+        }
+        final char[] block = myCache.get(index);
+        return block != null ? block : load(index, false);
+    }
+
+    // loads the block into the cache ahead of time; meant to be called from a background thread
+    public void prefetch(int index) {
+        if (index >= 0 && index < myBlocksNumber && myCache.peek(index) == null) {
+            load(index, true);
+        }
+    }
+
+    private char[] load(int index, boolean prefetch) {
+        synchronized (myBlockLocks[index]) {
+            // a concurrent prefetch may have loaded the block while we were waiting
+            char[] block = myCache.peek(index);
+            if (block != null) {
+                return block;
+            }
+            final long start = System.nanoTime();
+            final File file = new File(fileName(index));
+            block = readPackedBlock(index);
+            if (block == null && myMappedBlocks != null) {
+                block = readMappedBlock(index, file);
+            }
+            if (block == null) {
+                try {
+                    block = readBlock(index, file);
+                }catch (CachedCharStorageException e) {
+                    // the block files are deleted once packed, when the model is opened again
+                    block = readRecheckedPackedBlock(index);
+                    if (block == null) {
+                        throw e;
+                    }
+                }
+            }
+            myCache.put(index, block, System.nanoTime() - start, prefetch);
+            return block;
+        }
+    }
+
+    private CharBuffer mappedBlock(int index, File file) throws IOException {
+        CharBuffer mapped = myMappedBlocks[index];
+        if (mapped != null) {
+            return mapped;
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final long length = raf.length();
+            if (length <= 0 || length % 2 != 0) {
+                throw new IOException("Unexpected block size " + length);
+            }
+            mapped = raf.getChannel()
+                .map(FileChannel.MapMode.READ_ONLY, 0, length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asCharBuffer();
+        }finally {
+            raf.close();
+        }
+        myMappedBlocks[index] = mapped;
+        return mapped;
+    }
+
+    private char[] readMappedBlock(int index, File file) {
+        try {
+            final CharBuffer buffer;
+            synchronized (this) {
+                buffer = mappedBlock(index, file).duplicate();
+            }
+            // the copy faults the pages in, done outside of the storage lock
+            final char[] block = new char[buffer.remaining()];
+            buffer.get(block);
+            return block;
+        }catch (IOException e) {
+            return null;
+        }
+    }
+
+    private synchronized CharBlockPack pack() throws IOException {
+        if (!myPackChecked) {
+            if (myPackFile.exists()) {
+                myPack = CharBlockPack.open(myPackFile);
+            }
+            myPackChecked = true;
+        }
+        return myPack;
+    }
+
+    // for a model that has been open since before its blocks were packed
+    private char[] readRecheckedPackedBlock(int index) {
+        synchronized (this) {
+            if (myPack == null) {
+                myPackChecked = false;
+            }
+        }
+        return readPackedBlock(index);
+    }
+
+    private char[] readPackedBlock(int index) {
+        try {
+            final CharBlockPack pack = pack();
+            if (pack == null) {
+                return null;
+            }
+            // blocks are decoded from the mapped pack without any shared state
+            return pack.block(index);
+        }catch (IOException e) {
+            throw new CachedCharStorageException(exceptionMessage(index, "pack = " + myPackFile), e);
+        }catch (IndexOutOfBoundsException e) {
+            throw new CachedCharStorageException(exceptionMessage(index, "broken pack " + myPackFile), e);
+        }
+    }
+
+    private char[] readBlock(int index, File file) {
+        try {
+            int size = (int)file.length();
+            if (size < 0) {
+                throw new CachedCharStorageException(exceptionMessage(index, "size = " + size));
+            }
+            final char[] block = new char[size / 2];
+            InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-16LE");
+            final int rd = reader.read(block);
+            if (rd != block.length) {
+                throw new CachedCharStorageException(exceptionMessage(index, "; " + rd + " != " + block.length));
             }
-            myArray.set(index, new WeakReference<char[]>(block));
+            reader.close();
+            return block;
+        }catch (IOException e) {
+            throw new CachedCharStorageException(exceptionMessage(index, null), e);
         }
-        return block;
     }
 }
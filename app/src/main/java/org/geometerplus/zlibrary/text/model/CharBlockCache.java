@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+public interface CharBlockCache {
+
+    final class Statistics {
+
+        public final long Hits;
+        public final long Misses;
+        // time spent loading blocks on demand, i.e. on the caller's thread
+        public final long LoadTimeNanos;
+        public final long ResidentBytes;
+        public final long PrefetchLoads;
+        // hits on prefetched blocks, and the load time they took off the caller's thread
+        public final long PrefetchHits;
+        public final long SavedLoadTimeNanos;
+
+        public Statistics(long hits, long misses, long loadTimeNanos, long residentBytes, long prefetchLoads, long prefetchHits, long savedLoadTimeNanos) {
+            Hits = hits;
+            Misses = misses;
+            LoadTimeNanos = loadTimeNanos;
+            ResidentBytes = residentBytes;
+            PrefetchLoads = prefetchLoads;
+            PrefetchHits = prefetchHits;
+            SavedLoadTimeNanos = savedLoadTimeNanos;
+        }
+
+        public String toString() {
+            return "hits = " + Hits + ", misses = " + Misses + ", load = " + LoadTimeNanos / 1000000 + "ms, resident = " + ResidentBytes
+                + ", prefetched = " + PrefetchLoads + ", prefetch hits = " + PrefetchHits + ", saved = " + SavedLoadTimeNanos / 1000000 + "ms";
+        }
+    }
+
+    // returns null (and counts a miss) if the block is not in the cache
+    char[] get(int index);
+
+    // returns the block if it is in the cache, without counting a hit or a miss
+    char[] peek(int index);
+
+    void put(int index, char[] block, long loadTimeNanos, boolean prefetched);
+
+    // blocks from fromIndex to toIndex (inclusive) are never evicted until
+    // the next call; pass a negative fromIndex to unpin everything
+    void pin(int fromIndex, int toIndex);
+
+    void clear();
+
+    Statistics getStatistics();
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * All blocks of a CachedCharStorage packed into a single file. Each block is stored
+ * either as is (UTF-16LE) or re-encoded with 1 byte per char below 0x80, 2 bytes below
+ * 0x4000 and 3 bytes otherwise, whichever is shorter. That halves the footprint of
+ * mostly-ASCII text and is lossless for the control data mixed into the blocks.
+ * The header holds a table of (codec, offset, byte length, char length) per block.
+ */
+public final class CharBlockPack {
+
+    private static final int MAGIC = 0x46424b50;
+    private static final int HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 13;
+
+    private static final byte CODEC_RAW = 0;
+    private static final byte CODEC_VARIABLE_LENGTH = 1;
+
+    public static File file(String directoryName, String fileExtension) {
+        return new File(directoryName, fileExtension + ".pack");
+    }
+
+    private static File blockFile(String directoryName, String fileExtension, int index) {
+        return new File(directoryName, index + "." + fileExtension);
+    }
+
+    /**
+     * Packs the block files into the pack file; returns the size of the pack file.
+     * Blocks are streamed one by one, so memory use is bounded by the largest block.
+     * The block files are left in place, see deleteBlockFiles().
+     */
+    public static long pack(String directoryName, String fileExtension, int blocksNumber) throws IOException {
+        final File packFile = file(directoryName, fileExtension);
+        final File tmp = new File(packFile.getPath() + ".tmp");
+
+        final byte[] codecs = new byte[blocksNumber];
+        final int[] lengths = new int[blocksNumber];
+        final int[] charLengths = new int[blocksNumber];
+        final int indexSize = HEADER_SIZE + INDEX_ENTRY_SIZE * blocksNumber;
+
+        byte[] raw = new byte[0];
+        byte[] encoded = new byte[0];
+        boolean success = false;
+        final RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+        try {
+            out.setLength(0);
+            // the data goes first, the index is written over the reserved space afterwards
+            out.seek(indexSize);
+            for (int i = 0; i < blocksNumber; ++i) {
+                final File blockFile = blockFile(directoryName, fileExtension, i);
+                final int rawLength = (int)blockFile.length();
+                if (raw.length < rawLength) {
+                    raw = new byte[rawLength];
+                    encoded = new byte[rawLength / 2 * 3];
+                }
+                readFile(blockFile, raw, rawLength);
+                final int encodedLength = encode(raw, rawLength, encoded);
+                if (encodedLength < rawLength) {
+                    codecs[i] = CODEC_VARIABLE_LENGTH;
+                    lengths[i] = encodedLength;
+                    out.write(encoded, 0, encodedLength);
+                }else {
+                    codecs[i] = CODEC_RAW;
+                    lengths[i] = rawLength;
+                    out.write(raw, 0, rawLength);
+                }
+                charLengths[i] = rawLength / 2;
+            }
+
+            final ByteArrayOutputStream index = new ByteArrayOutputStream(indexSize);
+            final DataOutputStream stream = new DataOutputStream(index);
+            stream.writeInt(MAGIC);
+            stream.writeInt(blocksNumber);
+            int offset = indexSize;
+            for (int i = 0; i < blocksNumber; ++i) {
+                stream.writeByte(codecs[i]);
+                stream.writeInt(offset);
+                stream.writeInt(lengths[i]);
+                stream.writeInt(charLengths[i]);
+                offset += lengths[i];
+            }
+            out.seek(0);
+            out.write(index.toByteArray());
+            success = true;
+        }finally {
+            out.close();
+            if (!success) {
+                tmp.delete();
+            }
+        }
+        if (!tmp.renameTo(packFile)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp);
+        }
+        return packFile.length();
+    }
+
+    /**
+     * Removes the block files replaced by the pack; must not be called while
+     * a storage may still read them.
+     */
+    public static void deleteBlockFiles(String directoryName, String fileExtension, int blocksNumber) {
+        for (int i = 0; i < blocksNumber; ++i) {
+            blockFile(directoryName, fileExtension, i).delete();
+        }
+    }
+
+    private static void readFile(File file, byte[] data, int length) throws IOException {
+        final InputStream stream = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < length) {
+                final int rd = stream.read(data, offset, length - offset);
+                if (rd < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+                offset += rd;
+            }
+        }finally {
+            stream.close();
+        }
+    }
+
+    // returns the encoded length; out must hold 3 bytes per char
+    private static int encode(byte[] raw, int rawLength, byte[] out) {
+        int j = 0;
+        for (int i = 0; i + 1 < rawLength; i += 2) {
+            final int ch = (raw[i] & 0xFF) | ((raw[i + 1] & 0xFF) << 8);
+            if (ch < 0x80) {
+                out[j++] = (byte)ch;
+            }else if (ch < 0x4000) {
+                out[j++] = (byte)(0x80 | (ch >> 8));
+                out[j++] = (byte)ch;
+            }else {
+                out[j++] = (byte)0xC0;
+                out[j++] = (byte)(ch >> 8);
+                out[j++] = (byte)ch;
+            }
+        }
+        return j;
+    }
+
+    private final ByteBuffer myBuffer;
+    private final int myBlocksNumber;
+
+    private CharBlockPack(ByteBuffer buffer) throws IOException {
+        myBuffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a block pack");
+        }
+        myBlocksNumber = buffer.getInt(4);
+        if (myBlocksNumber < 0 || buffer.capacity() < HEADER_SIZE + INDEX_ENTRY_SIZE * myBlocksNumber) {
+            throw new IOException("Broken block pack index");
+        }
+    }
+
+    public static CharBlockPack open(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return new CharBlockPack(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+        }finally {
+            raf.close();
+        }
+    }
+
+    public int size() {
+        return myBlocksNumber;
+    }
+
+    /**
+     * Returns a read-only view of the block in the mapped pack if it is stored as is,
+     * null for re-encoded blocks.
+     */
+    public CharBuffer rawBuffer(int index) throws IOException {
+        if (index < 0 || index >= myBlocksNumber) {
+            throw new IOException("Block " + index + " is out of " + myBlocksNumber);
+        }
+        final int entry = HEADER_SIZE + INDEX_ENTRY_SIZE * index;
+        if (myBuffer.get(entry) != CODEC_RAW) {
+            return null;
+        }
+        final int offset = myBuffer.getInt(entry + 1);
+        final int length = myBuffer.getInt(entry + 5);
+        if (offset < 0 || length < 0 || offset > myBuffer.capacity() - length) {
+            throw new IOException("Broken index entry for block " + index);
+        }
+        final ByteBuffer slice = myBuffer.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN).asCharBuffer().asReadOnlyBuffer();
+    }
+
+    public char[] block(int index) throws IOException {
+        if (index < 0 || index >= myBlocksNumber) {
+            throw new IOException("Block " + index + " is out of " + myBlocksNumber);
+        }
+        final int entry = HEADER_SIZE + INDEX_ENTRY_SIZE * index;
+        final byte codec = myBuffer.get(entry);
+        final int offset = myBuffer.getInt(entry + 1);
+        final int length = myBuffer.getInt(entry + 5);
+        final int charLength = myBuffer.getInt(entry + 9);
+        if (offset < 0 || length < 0 || charLength < 0 || offset > myBuffer.capacity() - length) {
+            throw new IOException("Broken index entry for block " + index);
+        }
+        final char[] block = new char[charLength];
+
+        final byte[] data = new byte[length];
+        final ByteBuffer slice = myBuffer.duplicate();
+        slice.position(offset);
+        slice.get(data);
+
+        switch (codec) {
+            case CODEC_RAW:
+                for (int i = 0, j = 0; i < block.length; ++i, j += 2) {
+                    block[i] = (char)((data[j] & 0xFF) | ((data[j + 1] & 0xFF) << 8));
+                }
+                break;
+            case CODEC_VARIABLE_LENGTH:
+                for (int i = 0, j = 0; i < block.length; ++i) {
+                    final int b = data[j++] & 0xFF;
+                    if (b < 0x80) {
+                        block[i] = (char)b;
+                    }else if (b < 0xC0) {
+                        block[i] = (char)(((b & 0x3F) << 8) | (data[j++] & 0xFF));
+                    }else {
+                        block[i] = (char)(((data[j] & 0xFF) << 8) | (data[j + 1] & 0xFF));
+                        j += 2;
+                    }
+                }
+                break;
+            default:
+                throw new IOException("Unknown block codec " + codec);
+        }
+        return block;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class LruCharBlockCache implements CharBlockCache {
+
+    // 16 blocks of the 64K chars the native model writer produces
+    public static final int DEFAULT_BUDGET = 2 << 20;
+
+    private final LinkedHashMap<Integer, char[]> myBlocks = new LinkedHashMap<Integer, char[]>(16, .75f, true);
+    private final long myBudget;
+    // prefetched blocks not requested yet, with their load times
+    private final HashMap<Integer, Long> myPrefetched = new HashMap<Integer, Long>();
+
+    private int myPinnedFrom = -1;
+    private int myPinnedTo = -1;
+
+    private long myHits;
+    private long myMisses;
+    private long myLoadTimeNanos;
+    private long myResidentBytes;
+    private long myPrefetchLoads;
+    private long myPrefetchHits;
+    private long mySavedLoadTimeNanos;
+
+    public LruCharBlockCache(long budgetInBytes) {
+        myBudget = budgetInBytes;
+    }
+
+    public synchronized char[] get(int index) {
+        final char[] block = myBlocks.get(index);
+        if (block != null) {
+            ++myHits;
+            final Long loadTime = myPrefetched.remove(index);
+            if (loadTime != null) {
+                ++myPrefetchHits;
+                mySavedLoadTimeNanos += loadTime;
+            }
+        }else {
+            ++myMisses;
+        }
+        return block;
+    }
+
+    public synchronized char[] peek(int index) {
+        // still refreshes the block in the access order: peeked blocks are about to be used
+        return myBlocks.get(index);
+    }
+
+    public synchronized void put(int index, char[] block, long loadTimeNanos, boolean prefetched) {
+        if (prefetched) {
+            ++myPrefetchLoads;
+            myPrefetched.put(index, loadTimeNanos);
+        }else {
+            myLoadTimeNanos += loadTimeNanos;
+            myPrefetched.remove(index);
+        }
+        final char[] old = myBlocks.put(index, block);
+        if (old != null) {
+            myResidentBytes -= 2L * old.length;
+        }
+        myResidentBytes += 2L * block.length;
+        evict();
+    }
+
+    public synchronized void pin(int fromIndex, int toIndex) {
+        myPinnedFrom = fromIndex;
+        myPinnedTo = toIndex;
+        evict();
+    }
+
+    public synchronized void clear() {
+        myBlocks.clear();
+        myPrefetched.clear();
+        myResidentBytes = 0;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(myHits, myMisses, myLoadTimeNanos, myResidentBytes, myPrefetchLoads, myPrefetchHits, mySavedLoadTimeNanos);
+    }
+
+    private boolean isPinned(int index) {
+        return myPinnedFrom >= 0 && myPinnedFrom <= index && index <= myPinnedTo;
+    }
+
+    private void evict() {
+        // pinned blocks stay resident even if they alone exceed the budget
+        for (Iterator<Map.Entry<Integer, char[]>> it = myBlocks.entrySet().iterator(); myResidentBytes > myBudget && it.hasNext(); ) {
+            final Map.Entry<Integer, char[]> entry = it.next();
+            if (!isPinned(entry.getKey())) {
+                myResidentBytes -= 2L * entry.getValue().length;
+                myPrefetched.remove(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+}
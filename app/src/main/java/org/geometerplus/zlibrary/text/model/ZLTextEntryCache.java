@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+/**
+ * Decoded non-text entries (hyperlink ids, images, videos, extensions) of a model,
+ * by their position in the storage. The decoded objects are immutable and the
+ * storage never changes, so iterators share them instead of decoding them again.
+ * Lossy: a full probe sequence overwrites its first slot.
+ */
+final class ZLTextEntryCache {
+
+    private static final int CAPACITY = 4096;
+    private static final int MAX_PROBES = 8;
+
+    private final long[] myKeys = new long[CAPACITY];
+    private final Object[] myValues = new Object[CAPACITY];
+
+    static long key(int dataIndex, int dataOffset) {
+        return ((long)dataIndex << 32) | (dataOffset & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 52) & (CAPACITY - 1);
+    }
+
+    synchronized Object get(long key) {
+        for (int i = 0, slot = slot(key); i < MAX_PROBES; ++i, slot = (slot + 1) & (CAPACITY - 1)) {
+            final Object value = myValues[slot];
+            if (value == null) {
+                return null;
+            }
+            if (myKeys[slot] == key) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    synchronized void put(long key, Object value) {
+        final int first = slot(key);
+        for (int i = 0, slot = first; i < MAX_PROBES; ++i, slot = (slot + 1) & (CAPACITY - 1)) {
+            if (myValues[slot] == null || myKeys[slot] == key) {
+                myKeys[slot] = key;
+                myValues[slot] = value;
+                return;
+            }
+        }
+        myKeys[first] = key;
+        myValues[first] = value;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable sorted set of marks in parallel int arrays. Lookups by position and by
+ * paragraph are binary searches; adding marks makes a new merged index.
+ */
+public final class ZLTextMarkIndex {
+
+    public static final ZLTextMarkIndex EMPTY = new ZLTextMarkIndex(new int[0], new int[0], new int[0], 0);
+
+    private final int[] myParagraphs;
+    private final int[] myOffsets;
+    private final int[] myLengths;
+    private final int mySize;
+
+    private ZLTextMarkIndex(int[] paragraphs, int[] offsets, int[] lengths, int size) {
+        myParagraphs = paragraphs;
+        myOffsets = offsets;
+        myLengths = lengths;
+        mySize = size;
+    }
+
+    public int size() {
+        return mySize;
+    }
+
+    public boolean isEmpty() {
+        return mySize == 0;
+    }
+
+    public int getParagraphIndex(int i) {
+        return myParagraphs[i];
+    }
+
+    public int getOffset(int i) {
+        return myOffsets[i];
+    }
+
+    public int getLength(int i) {
+        return myLengths[i];
+    }
+
+    public ZLTextMark get(int i) {
+        return new ZLTextMark(myParagraphs[i], myOffsets[i], myLengths[i]);
+    }
+
+    // no subtraction here: Integer.MIN_VALUE offsets must not overflow
+    private int compare(int i, int paragraphIndex, int offset) {
+        if (myParagraphs[i] != paragraphIndex) {
+            return myParagraphs[i] < paragraphIndex ? -1 : 1;
+        }
+        if (myOffsets[i] != offset) {
+            return myOffsets[i] < offset ? -1 : 1;
+        }
+        return 0;
+    }
+
+    // the number of the first mark not before (paragraphIndex, offset); size() if there is none
+    public int lowerBound(int paragraphIndex, int offset) {
+        int low = 0;
+        int high = mySize;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(middle, paragraphIndex, offset) < 0) {
+                low = middle + 1;
+            }else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // marks of the paragraph are [firstInParagraph(i), firstInParagraph(i + 1))
+    public int firstInParagraph(int paragraphIndex) {
+        return lowerBound(paragraphIndex, 0);
+    }
+
+    public ZLTextMark first() {
+        return mySize > 0 ? get(0) : null;
+    }
+
+    public ZLTextMark last() {
+        return mySize > 0 ? get(mySize - 1) : null;
+    }
+
+    // the first mark at or after the position
+    public ZLTextMark next(ZLTextMark position) {
+        final int i = lowerBound(position.ParagraphIndex, position.Offset);
+        return i < mySize ? get(i) : null;
+    }
+
+    // the last mark before the position
+    public ZLTextMark previous(ZLTextMark position) {
+        final int i = lowerBound(position.ParagraphIndex, position.Offset);
+        return i > 0 ? get(i - 1) : null;
+    }
+
+    public ZLTextMarkIndex merge(ZLTextMarkIndex other) {
+        if (other.mySize == 0) {
+            return this;
+        }
+        if (mySize == 0) {
+            return other;
+        }
+        final int size = mySize + other.mySize;
+        final int[] paragraphs = new int[size];
+        final int[] offsets = new int[size];
+        final int[] lengths = new int[size];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < size; ++k) {
+            if (j == other.mySize || (i < mySize && other.compare(j, myParagraphs[i], myOffsets[i]) >= 0)) {
+                paragraphs[k] = myParagraphs[i];
+                offsets[k] = myOffsets[i];
+                lengths[k] = myLengths[i];
+                ++i;
+            }else {
+                paragraphs[k] = other.myParagraphs[j];
+                offsets[k] = other.myOffsets[j];
+                lengths[k] = other.myLengths[j];
+                ++j;
+            }
+        }
+        return new ZLTextMarkIndex(paragraphs, offsets, lengths, size);
+    }
+
+    public List<ZLTextMark> asList() {
+        return new AbstractList<ZLTextMark>() {
+            @Override
+            public ZLTextMark get(int index) {
+                if (index < 0 || index >= mySize) {
+                    throw new IndexOutOfBoundsException(index + " of " + mySize);
+                }
+                return ZLTextMarkIndex.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return mySize;
+            }
+        };
+    }
+
+    // marks must be added in ascending order
+    static final class Builder {
+
+        private int[] myParagraphs = new int[16];
+        private int[] myOffsets = new int[16];
+        private int[] myLengths = new int[16];
+        private int mySize;
+
+        void add(int paragraphIndex, int offset, int length) {
+            if (mySize == myParagraphs.length) {
+                myParagraphs = Arrays.copyOf(myParagraphs, mySize * 2);
+                myOffsets = Arrays.copyOf(myOffsets, mySize * 2);
+                myLengths = Arrays.copyOf(myLengths, mySize * 2);
+            }
+            myParagraphs[mySize] = paragraphIndex;
+            myOffsets[mySize] = offset;
+            myLengths[mySize] = length;
+            ++mySize;
+        }
+
+        ZLTextMarkIndex build() {
+            return mySize == 0 ? EMPTY : new ZLTextMarkIndex(myParagraphs, myOffsets, myLengths, mySize);
+        }
+    }
+}
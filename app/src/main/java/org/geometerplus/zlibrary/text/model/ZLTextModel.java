@@ -43,10 +43,37 @@ public interface ZLTextModel {
 
     List<ZLTextMark> getMarks();
 
+    // the same marks as getMarks(), for binary-search lookups
+    ZLTextMarkIndex getMarkIndex();
+
     // text length for paragraphs from 0 to index
     int getTextLength(int index);
 
     int findParagraphByTextLength(int length);
 
     int search(final String text, int startIndex, int endIndex, boolean ignoreCase);
+
+    // searches in background, cancelling the previous search; paragraphs next to priorityIndex
+    // (in the backward or forward direction) are searched first
+    ZLTextSearchTask startSearch(String text, int startIndex, int endIndex, boolean ignoreCase, int priorityIndex, boolean backward, ZLTextSearchTask.Listener listener);
+
+    // keeps the text blocks of paragraphs from startIndex to endIndex in memory
+    void pinParagraphs(int startIndex, int endIndex);
+
+    // loads the text block of the paragraph and blocksNumber blocks after (or before) it
+    // into memory; meant to be called from a background thread
+    void prefetchBlocks(int paragraphIndex, int blocksNumber, boolean forward);
+
+    CharBlockCache.Statistics getBlockCacheStatistics();
+
+    // reads the trigram search index from the file, or builds it in background and stores it there
+    void attachSearchIndex(String fileName);
+
+    // null until the index is ready
+    ZLTextSearchIndex getSearchIndex();
+
+    // directory for layout data kept across sessions (page maps); null if there is none
+    void setLayoutCacheDirectory(String directoryName);
+
+    String getLayoutCacheDirectory();
 }
@@ -29,6 +29,10 @@ class ZLTextParagraphImpl implements ZLTextParagraph {
         myIndex = index;
     }
 
+    final int getIndex() {
+        return myIndex;
+    }
+
     public EntryIterator iterator() {
         return myModel.new EntryIteratorImpl(myIndex);
     }
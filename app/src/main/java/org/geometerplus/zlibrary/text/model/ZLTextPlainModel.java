@@ -24,6 +24,7 @@ import org.geometerplus.zlibrary.core.image.ZLImage;
 import org.geometerplus.zlibrary.core.util.ZLSearchPattern;
 import org.geometerplus.zlibrary.core.util.ZLSearchUtil;
 
+import java.io.File;
 import java.util.*;
 
 public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Feature {
@@ -42,12 +43,23 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
     private final CachedCharStorage myStorage;
     private final Map<String, ZLImage> myImageMap;
 
-    private ArrayList<ZLTextMark> myMarks;
+    // replaced as a whole when search results arrive
+    private volatile ZLTextMarkIndex myMarks;
+    private ZLTextSearchTask mySearchTask;
+    private volatile ZLTextSearchIndex mySearchIndex;
+    private volatile String myLayoutCacheDirectory;
 
     private final FontManager myFontManager;
 
+    private final ZLTextEntryCache myEntryCache = new ZLTextEntryCache();
+    // direct-mapped, paragraph objects are immutable and cheap to recreate
+    private static final int PARAGRAPH_CACHE_SIZE = 256;
+    private final ZLTextParagraphImpl[] myParagraphCache = new ZLTextParagraphImpl[PARAGRAPH_CACHE_SIZE];
+
     final class EntryIteratorImpl implements ZLTextParagraph.EntryIterator {
 
+        private final CachedCharStorage myBlocks;
+
         private int myCounter;
         private int myLength;
         private byte myType;
@@ -83,6 +95,11 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
         private short myFixedHSpaceLength;
 
         EntryIteratorImpl(int index) {
+            this(myStorage, index);
+        }
+
+        EntryIteratorImpl(CachedCharStorage blocks, int index) {
+            myBlocks = blocks;
             reset(index);
         }
 
@@ -151,12 +168,12 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
             }
 
             int dataOffset = myDataOffset;
-            char[] data = myStorage.block(myDataIndex);
+            char[] data = myBlocks.block(myDataIndex);
             if (data == null) {
                 return false;
             }
             if (dataOffset >= data.length) {
-                data = myStorage.block(++myDataIndex);
+                data = myBlocks.block(++myDataIndex);
                 if (data == null) {
                     return false;
                 }
@@ -165,7 +182,7 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
             short first = (short)data[dataOffset];
             byte type = (byte)first;
             if (type == 0) {
-                data = myStorage.block(++myDataIndex);
+                data = myBlocks.block(++myDataIndex);
                 if (data == null) {
                     return false;
                 }
@@ -174,6 +191,7 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
                 type = (byte)first;
             }
             myType = type;
+            final long entryKey = ZLTextEntryCache.key(myDataIndex, dataOffset);
             ++dataOffset;
             switch (type) {
                 case ZLTextParagraph.Entry.TEXT: {
@@ -199,17 +217,30 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
                     myControlIsStart = true;
                     myHyperlinkType = (byte)(kind >> 8);
                     final short labelLength = (short)data[dataOffset++];
-                    myHyperlinkId = new String(data, dataOffset, labelLength);
+                    final Object cached = myEntryCache.get(entryKey);
+                    if (cached != null) {
+                        myHyperlinkId = (String)cached;
+                    }else {
+                        myHyperlinkId = new String(data, dataOffset, labelLength);
+                        myEntryCache.put(entryKey, myHyperlinkId);
+                    }
                     dataOffset += labelLength;
                     break;
                 }
                 case ZLTextParagraph.Entry.IMAGE: {
                     final short vOffset = (short)data[dataOffset++];
                     final short len = (short)data[dataOffset++];
-                    final String id = new String(data, dataOffset, len);
-                    dataOffset += len;
-                    final boolean isCover = data[dataOffset++] != 0;
-                    myImageEntry = new ZLImageEntry(myImageMap, id, vOffset, isCover);
+                    final Object cached = myEntryCache.get(entryKey);
+                    if (cached != null) {
+                        myImageEntry = (ZLImageEntry)cached;
+                        dataOffset += len + 1;
+                    }else {
+                        final String id = new String(data, dataOffset, len);
+                        dataOffset += len;
+                        final boolean isCover = data[dataOffset++] != 0;
+                        myImageEntry = new ZLImageEntry(myImageMap, id, vOffset, isCover);
+                        myEntryCache.put(entryKey, myImageEntry);
+                    }
                     break;
                 }
                 case ZLTextParagraph.Entry.FIXED_HSPACE:
@@ -257,35 +288,51 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
                     // No data
                     break;
                 case ZLTextParagraph.Entry.VIDEO: {
-                    myVideoEntry = new ZLVideoEntry();
+                    final Object cached = myEntryCache.get(entryKey);
+                    final ZLVideoEntry entry = cached != null ? (ZLVideoEntry)cached : new ZLVideoEntry();
                     final short mapSize = (short)data[dataOffset++];
                     for (short i = 0; i < mapSize; ++i) {
                         short len = (short)data[dataOffset++];
-                        final String mime = new String(data, dataOffset, len);
+                        final int mimeOffset = dataOffset;
+                        final short mimeLength = len;
                         dataOffset += len;
                         len = (short)data[dataOffset++];
-                        final String src = new String(data, dataOffset, len);
+                        if (cached == null) {
+                            entry.addSource(new String(data, mimeOffset, mimeLength), new String(data, dataOffset, len));
+                        }
                         dataOffset += len;
-                        myVideoEntry.addSource(mime, src);
                     }
+                    if (cached == null) {
+                        myEntryCache.put(entryKey, entry);
+                    }
+                    myVideoEntry = entry;
                     break;
                 }
                 case ZLTextParagraph.Entry.EXTENSION: {
+                    final Object cached = myEntryCache.get(entryKey);
                     final short kindLength = (short)data[dataOffset++];
-                    final String kind = new String(data, dataOffset, kindLength);
+                    final int kindOffset = dataOffset;
                     dataOffset += kindLength;
 
-                    final Map<String, String> map = new HashMap<String, String>();
+                    final Map<String, String> map = cached == null ? new HashMap<String, String>() : null;
                     final short dataSize = (short)((first >> 8) & 0xFF);
                     for (short i = 0; i < dataSize; ++i) {
                         final short keyLength = (short)data[dataOffset++];
-                        final String key = new String(data, dataOffset, keyLength);
+                        final int keyOffset = dataOffset;
                         dataOffset += keyLength;
                         final short valueLength = (short)data[dataOffset++];
-                        map.put(key, new String(data, dataOffset, valueLength));
+                        if (map != null) {
+                            map.put(new String(data, keyOffset, keyLength), new String(data, dataOffset, valueLength));
+                        }
                         dataOffset += valueLength;
                     }
-                    myExtensionEntry = new ExtensionEntry(kind, map);
+                    if (cached != null) {
+                        myExtensionEntry = (ExtensionEntry)cached;
+                    }else {
+                        // shared between iterators, so nobody may change it
+                        myExtensionEntry = new ExtensionEntry(new String(data, kindOffset, kindLength), Collections.unmodifiableMap(map));
+                        myEntryCache.put(entryKey, myExtensionEntry);
+                    }
                     break;
                 }
             }
@@ -318,84 +365,179 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
     }
 
     public final ZLTextMark getFirstMark() {
-        return (myMarks == null || myMarks.isEmpty()) ? null : myMarks.get(0);
+        final ZLTextMarkIndex marks = myMarks;
+        return marks != null ? marks.first() : null;
     }
 
     public final ZLTextMark getLastMark() {
-        return (myMarks == null || myMarks.isEmpty()) ? null : myMarks.get(myMarks.size() - 1);
+        final ZLTextMarkIndex marks = myMarks;
+        return marks != null ? marks.last() : null;
     }
 
     public final ZLTextMark getNextMark(ZLTextMark position) {
-        if (position == null || myMarks == null) {
-            return null;
-        }
-
-        ZLTextMark mark = null;
-        for (ZLTextMark current : myMarks) {
-            if (current.compareTo(position) >= 0) {
-                if ((mark == null) || (mark.compareTo(current) > 0)) {
-                    mark = current;
-                }
-            }
-        }
-        return mark;
+        final ZLTextMarkIndex marks = myMarks;
+        return position != null && marks != null ? marks.next(position) : null;
     }
 
     public final ZLTextMark getPreviousMark(ZLTextMark position) {
-        if ((position == null) || (myMarks == null)) {
-            return null;
-        }
+        final ZLTextMarkIndex marks = myMarks;
+        return position != null && marks != null ? marks.previous(position) : null;
+    }
 
-        ZLTextMark mark = null;
-        for (ZLTextMark current : myMarks) {
-            if (current.compareTo(position) < 0) {
-                if ((mark == null) || (mark.compareTo(current) < 0)) {
-                    mark = current;
-                }
-            }
+    public final int search(final String text, int startIndex, int endIndex, boolean ignoreCase) {
+        final ZLTextSearchTask task = startSearch(text, startIndex, endIndex, ignoreCase, startIndex, false, null);
+        try {
+            return task.await();
+        }catch (InterruptedException e) {
+            task.cancel();
+            Thread.currentThread().interrupt();
+            return task.getCount();
         }
-        return mark;
     }
 
-    public final int search(final String text, int startIndex, int endIndex, boolean ignoreCase) {
-        int count = 0;
-        ZLSearchPattern pattern = new ZLSearchPattern(text, ignoreCase);
-        myMarks = new ArrayList<ZLTextMark>();
+    public final synchronized ZLTextSearchTask startSearch(String text, int startIndex, int endIndex, boolean ignoreCase, int priorityIndex, boolean backward, ZLTextSearchTask.Listener listener) {
+        if (mySearchTask != null) {
+            mySearchTask.cancel();
+        }
+        myMarks = ZLTextMarkIndex.EMPTY;
         if (startIndex > myParagraphsNumber) {
             startIndex = myParagraphsNumber;
         }
         if (endIndex > myParagraphsNumber) {
             endIndex = myParagraphsNumber;
         }
-        int index = startIndex;
-        final EntryIteratorImpl it = new EntryIteratorImpl(index);
-        while (true) {
+        final ZLTextSearchIndex index = mySearchIndex;
+        final BitSet candidates = index != null ? index.candidates(text, ignoreCase) : null;
+        mySearchTask = new ZLTextSearchTask(this, new ZLSearchPattern(text, ignoreCase), candidates, startIndex, endIndex, listener);
+        mySearchTask.start(priorityIndex, backward);
+        return mySearchTask;
+    }
+
+    // called on a search thread; returns null if the task has been cancelled
+    // candidates (if not null) are the only paragraphs that may contain the pattern
+    final ZLTextMarkIndex searchParagraphs(ZLSearchPattern pattern, BitSet candidates, int startIndex, int endIndex, ZLTextSearchTask task) {
+        final ZLTextMarkIndex.Builder marks = new ZLTextMarkIndex.Builder();
+        EntryIteratorImpl it = null;
+        for (int index = startIndex; index < endIndex; ++index) {
+            if (task.isCancelled()) {
+                return null;
+            }
+            if (candidates != null) {
+                index = candidates.nextSetBit(index);
+                if (index < 0 || index >= endIndex) {
+                    break;
+                }
+            }
+            if (it == null) {
+                it = new EntryIteratorImpl(index);
+            }else {
+                it.reset(index);
+            }
             int offset = 0;
             while (it.next()) {
                 if (it.getType() == ZLTextParagraph.Entry.TEXT) {
                     char[] textData = it.getTextData();
                     int textOffset = it.getTextOffset();
                     int textLength = it.getTextLength();
-                    for (ZLSearchUtil.Result res = ZLSearchUtil.find(textData, textOffset, textLength, pattern); res != null; res = ZLSearchUtil.find(textData, textOffset, textLength, pattern, res.Start + 1)) {
-                        myMarks.add(new ZLTextMark(index, offset + res.Start, res.Length));
-                        ++count;
+                    for (long range = ZLSearchUtil.findRange(textData, textOffset, textLength, pattern, 0); range >= 0; range = ZLSearchUtil.findRange(textData, textOffset, textLength, pattern, ZLSearchUtil.start(range) + 1)) {
+                        marks.add(index, offset + ZLSearchUtil.start(range), ZLSearchUtil.length(range));
                     }
                     offset += textLength;
                 }
             }
-            if (++index >= endIndex) {
-                break;
+        }
+        return marks.build();
+    }
+
+    public final void attachSearchIndex(String fileName) {
+        ZLTextSearchIndex.attach(this, new File(fileName));
+    }
+
+    public final ZLTextSearchIndex getSearchIndex() {
+        return mySearchIndex;
+    }
+
+    final void setSearchIndex(ZLTextSearchIndex index) {
+        mySearchIndex = index;
+    }
+
+    public final void setLayoutCacheDirectory(String directoryName) {
+        myLayoutCacheDirectory = directoryName;
+    }
+
+    public final String getLayoutCacheDirectory() {
+        return myLayoutCacheDirectory;
+    }
+
+    final ZLTextSearchIndex buildSearchIndex() {
+        final ZLTextSearchIndex.Builder builder = new ZLTextSearchIndex.Builder(myParagraphsNumber);
+        // reads past the shared cache, its statistics and the blocks of the open pages stay intact
+        final CachedCharStorage blocks = myStorage.sequentialCopy();
+        EntryIteratorImpl it = null;
+        for (int index = 0; index < myParagraphsNumber; ++index) {
+            if (it == null) {
+                it = new EntryIteratorImpl(blocks, index);
+            }else {
+                it.reset(index);
+            }
+            builder.startParagraph(index);
+            while (it.next()) {
+                if (it.getType() == ZLTextParagraph.Entry.TEXT) {
+                    builder.addText(it.getTextData(), it.getTextOffset(), it.getTextLength());
+                }
             }
-            it.reset(index);
         }
-        return count;
+        return builder.build();
+    }
+
+    // merges a batch into the marks of the current search
+    final synchronized void addMarks(ZLTextSearchTask task, ZLTextMarkIndex batch) {
+        final ZLTextMarkIndex marks = myMarks;
+        if (task != mySearchTask || task.isCancelled() || marks == null) {
+            return;
+        }
+        myMarks = marks.merge(batch);
+    }
+
+    public final void pinParagraphs(int startIndex, int endIndex) {
+        if (myParagraphsNumber == 0) {
+            return;
+        }
+        startIndex = Math.max(0, Math.min(startIndex, myParagraphsNumber - 1));
+        endIndex = Math.max(startIndex, Math.min(endIndex, myParagraphsNumber - 1));
+        // a paragraph may continue into the block where the next one starts
+        final int lastBlock = myStartEntryIndices[Math.min(endIndex + 1, myParagraphsNumber - 1)];
+        myStorage.getCache().pin(myStartEntryIndices[startIndex], lastBlock);
+    }
+
+    public final void prefetchBlocks(int paragraphIndex, int blocksNumber, boolean forward) {
+        if (paragraphIndex < 0 || paragraphIndex >= myParagraphsNumber) {
+            return;
+        }
+        final int block = myStartEntryIndices[paragraphIndex];
+        for (int i = 0; i <= blocksNumber; ++i) {
+            myStorage.prefetch(forward ? block + i : block - i);
+        }
+    }
+
+    public final CharBlockCache.Statistics getBlockCacheStatistics() {
+        return myStorage.getCache().getStatistics();
     }
 
     public final List<ZLTextMark> getMarks() {
-        return myMarks != null ? myMarks : Collections.<ZLTextMark> emptyList();
+        return getMarkIndex().asList();
     }
 
-    public final void removeAllMarks() {
+    public final ZLTextMarkIndex getMarkIndex() {
+        final ZLTextMarkIndex marks = myMarks;
+        return marks != null ? marks : ZLTextMarkIndex.EMPTY;
+    }
+
+    public final synchronized void removeAllMarks() {
+        if (mySearchTask != null) {
+            mySearchTask.cancel();
+            mySearchTask = null;
+        }
         myMarks = null;
     }
 
@@ -404,8 +546,14 @@ public final class ZLTextPlainModel implements ZLTextModel, ZLTextStyleEntry.Fea
     }
 
     public final ZLTextParagraph getParagraph(int index) {
-        final byte kind = myParagraphKinds[index];
-        return (kind == ZLTextParagraph.Kind.TEXT_PARAGRAPH) ? new ZLTextParagraphImpl(this, index) : new ZLTextSpecialParagraphImpl(kind, this, index);
+        final int slot = index & (PARAGRAPH_CACHE_SIZE - 1);
+        ZLTextParagraphImpl paragraph = myParagraphCache[slot];
+        if (paragraph == null || paragraph.getIndex() != index) {
+            final byte kind = myParagraphKinds[index];
+            paragraph = (kind == ZLTextParagraph.Kind.TEXT_PARAGRAPH) ? new ZLTextParagraphImpl(this, index) : new ZLTextSpecialParagraphImpl(kind, this, index);
+            myParagraphCache[slot] = paragraph;
+        }
+        return paragraph;
     }
 
     public final int getTextLength(int index) {
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.orhanobut.logger.Logger;
+
+/**
+ * Trigram index of a text model: for every (hashed, lower-cased) trigram the sorted
+ * list of paragraphs containing it. Search uses it to skip paragraphs that cannot
+ * contain the pattern; hash collisions only add candidates, never lose matches.
+ */
+public final class ZLTextSearchIndex {
+
+    private static final int MAGIC = 0x46545849;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+
+    // the index is not worth its memory beyond this; building takes 12 bytes per posting
+    private static final int MAX_POSTINGS_NUMBER = 1 << 20;
+    // postings are collected and sorted in chunks of about this size, a chunk ends on a paragraph boundary
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(r, "SearchIndex");
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    // reads the index of the model from the file, or builds and stores it there; in background
+    static void attach(final ZLTextPlainModel model, final File file) {
+        ourExecutor.execute(new Runnable() {
+            public void run() {
+                final int paragraphsNumber = model.getParagraphsNumber();
+                try {
+                    model.setSearchIndex(read(file, paragraphsNumber));
+                    return;
+                }catch (IOException e) {
+                    // no index yet
+                }
+                final ZLTextSearchIndex index;
+                try {
+                    index = model.buildSearchIndex();
+                }catch (IllegalStateException e) {
+                    Logger.w("Search index of " + model.getId() + " is not built: " + e.getMessage());
+                    return;
+                }catch (OutOfMemoryError e) {
+                    // the search goes on without the index
+                    Logger.w("Search index of " + model.getId() + " is not built: out of memory");
+                    return;
+                }
+                model.setSearchIndex(index);
+                Logger.i("Search index of " + model.getId() + ": " + paragraphsNumber + " paragraphs, "
+                    + index.getTrigramsNumber() + " trigrams, " + index.getSizeInBytes() + " bytes, "
+                    + index.getBuildTimeMillis() + " ms");
+                try {
+                    index.write(file);
+                }catch (IOException e) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    private final int myParagraphsNumber;
+    private final int[] myKeys;
+    // postings of myKeys[i] are myPostings[myStarts[i] .. myStarts[i + 1])
+    private final int[] myStarts;
+    private final int[] myPostings;
+    private final long myBuildTimeMillis;
+
+    private ZLTextSearchIndex(int paragraphsNumber, int[] keys, int[] starts, int[] postings, long buildTimeMillis) {
+        myParagraphsNumber = paragraphsNumber;
+        myKeys = keys;
+        myStarts = starts;
+        myPostings = postings;
+        myBuildTimeMillis = buildTimeMillis;
+    }
+
+    private static int key(char c0, char c1, char c2) {
+        final long packed = ((long)c0 << 32) | ((long)c1 << 16) | c2;
+        return (int)((packed * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    public int getParagraphsNumber() {
+        return myParagraphsNumber;
+    }
+
+    public int getTrigramsNumber() {
+        return myKeys.length;
+    }
+
+    public long getSizeInBytes() {
+        return 4L * (myKeys.length + myStarts.length + myPostings.length);
+    }
+
+    // 0 for an index read from a file
+    public long getBuildTimeMillis() {
+        return myBuildTimeMillis;
+    }
+
+    /**
+     * Returns the paragraphs that may contain the pattern, or null if the index
+     * cannot narrow the search (the pattern is too short, or its case folding
+     * does not map to single lower-case chars).
+     */
+    public BitSet candidates(String text, boolean ignoreCase) {
+        // the same normalization as in ZLSearchPattern
+        text = text.replace("\u200b", "");
+        final char[] lower = ignoreCase ? text.toLowerCase().toCharArray() : text.toCharArray();
+        final char[] upper = ignoreCase ? text.toUpperCase().toCharArray() : lower;
+        if (lower.length < 3 || lower.length != upper.length) {
+            return null;
+        }
+        final char[] folded = new char[lower.length];
+        for (int i = 0; i < lower.length; ++i) {
+            folded[i] = Character.toLowerCase(lower[i]);
+            if (Character.toLowerCase(upper[i]) != folded[i]) {
+                return null;
+            }
+        }
+
+        final int trigramsNumber = folded.length - 2;
+        final int[] lists = new int[trigramsNumber];
+        for (int i = 0; i < trigramsNumber; ++i) {
+            final int index = Arrays.binarySearch(myKeys, key(folded[i], folded[i + 1], folded[i + 2]));
+            if (index < 0) {
+                return new BitSet();
+            }
+            lists[i] = index;
+        }
+        // intersect starting from the shortest list
+        int shortest = 0;
+        for (int i = 1; i < trigramsNumber; ++i) {
+            if (length(lists[i]) < length(lists[shortest])) {
+                shortest = i;
+            }
+        }
+        final BitSet result = new BitSet(myParagraphsNumber);
+        for (int p = myStarts[lists[shortest]]; p < myStarts[lists[shortest] + 1]; ++p) {
+            result.set(myPostings[p]);
+        }
+        for (int i = 0; i < trigramsNumber && !result.isEmpty(); ++i) {
+            if (i != shortest) {
+                retain(result, lists[i]);
+            }
+        }
+        return result;
+    }
+
+    private int length(int keyIndex) {
+        return myStarts[keyIndex + 1] - myStarts[keyIndex];
+    }
+
+    private void retain(BitSet result, int keyIndex) {
+        final int from = myStarts[keyIndex];
+        final int to = myStarts[keyIndex + 1];
+        int p = from;
+        for (int paragraph = result.nextSetBit(0); paragraph >= 0; paragraph = result.nextSetBit(paragraph + 1)) {
+            while (p < to && myPostings[p] < paragraph) {
+                ++p;
+            }
+            if (p == to || myPostings[p] != paragraph) {
+                result.clear(paragraph);
+            }
+        }
+    }
+
+    static final class Builder {
+
+        private final int myParagraphsNumber;
+        private final long myStartTime = System.currentTimeMillis();
+
+        // sorted (key << 32 | paragraph) pairs of the finished chunks
+        private final ArrayList<long[]> myChunks = new ArrayList<long[]>();
+        private int myChunkedPairsNumber;
+        // (key << 32 | paragraph) pairs of the current chunk
+        private long[] myPairs = new long[CHUNK_SIZE];
+        private int myPairsNumber;
+        private int myParagraphStart;
+        private int myParagraph = -1;
+
+        private char myChar0;
+        private char myChar1;
+        private int myCharsInWindow;
+
+        Builder(int paragraphsNumber) {
+            myParagraphsNumber = paragraphsNumber;
+        }
+
+        void startParagraph(int index) {
+            finishParagraph();
+            if (myPairsNumber >= CHUNK_SIZE) {
+                finishChunk();
+            }
+            myParagraph = index;
+            myParagraphStart = myPairsNumber;
+        }
+
+        // trigrams never span text entries, as matches never do
+        void addText(char[] data, int offset, int length) {
+            myCharsInWindow = 0;
+            for (int i = offset; i < offset + length; ++i) {
+                final char ch = data[i];
+                if (ch == '\u200b') {
+                    continue;
+                }
+                final char folded = Character.toLowerCase(ch);
+                if (myCharsInWindow >= 2) {
+                    if (myPairsNumber == myPairs.length) {
+                        // a single long paragraph may outgrow the chunk
+                        if (myChunkedPairsNumber + myPairsNumber >= MAX_POSTINGS_NUMBER) {
+                            throw new IllegalStateException("Too many trigrams");
+                        }
+                        myPairs = Arrays.copyOf(myPairs, myPairsNumber * 2);
+                    }
+                    myPairs[myPairsNumber++] = ((long)key(myChar0, myChar1, folded) << 32) | myParagraph;
+                }else {
+                    ++myCharsInWindow;
+                }
+                myChar0 = myChar1;
+                myChar1 = folded;
+            }
+        }
+
+        // drops duplicate trigrams of the current paragraph to keep memory low while building
+        private void finishParagraph() {
+            if (myParagraph < 0 || myPairsNumber - myParagraphStart < 2) {
+                return;
+            }
+            Arrays.sort(myPairs, myParagraphStart, myPairsNumber);
+            int unique = myParagraphStart + 1;
+            for (int i = myParagraphStart + 1; i < myPairsNumber; ++i) {
+                if (myPairs[i] != myPairs[unique - 1]) {
+                    myPairs[unique++] = myPairs[i];
+                }
+            }
+            myPairsNumber = unique;
+        }
+
+        private void finishChunk() {
+            if (myPairsNumber == 0) {
+                return;
+            }
+            if (myChunkedPairsNumber + myPairsNumber > MAX_POSTINGS_NUMBER) {
+                throw new IllegalStateException("Too many trigrams");
+            }
+            // sorting signed pairs keeps the order consistent with Arrays.binarySearch over int keys
+            final long[] chunk = Arrays.copyOf(myPairs, myPairsNumber);
+            Arrays.sort(chunk);
+            myChunks.add(chunk);
+            myChunkedPairsNumber += chunk.length;
+            myPairsNumber = 0;
+            if (myPairs.length > CHUNK_SIZE) {
+                myPairs = new long[CHUNK_SIZE];
+            }
+        }
+
+        ZLTextSearchIndex build() {
+            finishParagraph();
+            finishChunk();
+            myPairs = null;
+
+            // merges the chunks; no pair occurs in two chunks, as chunks hold distinct paragraphs
+            final int chunksNumber = myChunks.size();
+            final long[][] chunks = myChunks.toArray(new long[chunksNumber][]);
+            myChunks.clear();
+            final int[] positions = new int[chunksNumber];
+            final int[] postings = new int[myChunkedPairsNumber];
+            int[] keys = new int[1024];
+            int[] starts = new int[1025];
+            int keysNumber = 0;
+            for (int i = 0; i < postings.length; ++i) {
+                int next = -1;
+                for (int c = 0; c < chunksNumber; ++c) {
+                    if (positions[c] < chunks[c].length && (next == -1 || chunks[c][positions[c]] < chunks[next][positions[next]])) {
+                        next = c;
+                    }
+                }
+                final long pair = chunks[next][positions[next]++];
+                final int key = (int)(pair >> 32);
+                if (keysNumber == 0 || keys[keysNumber - 1] != key) {
+                    if (keysNumber == keys.length) {
+                        keys = Arrays.copyOf(keys, keysNumber * 2);
+                        starts = Arrays.copyOf(starts, keysNumber * 2 + 1);
+                    }
+                    keys[keysNumber] = key;
+                    starts[keysNumber++] = i;
+                }
+                postings[i] = (int)pair;
+            }
+            keys = Arrays.copyOf(keys, keysNumber);
+            starts = Arrays.copyOf(starts, keysNumber + 1);
+            starts[keysNumber] = postings.length;
+            return new ZLTextSearchIndex(myParagraphsNumber, keys, starts, postings, System.currentTimeMillis() - myStartTime);
+        }
+    }
+
+    static ZLTextSearchIndex read(File file, int paragraphsNumber) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported search index " + file);
+            }
+            if (buffer.getInt() != paragraphsNumber) {
+                throw new IOException("Search index " + file + " is out of date");
+            }
+            final int keysNumber = buffer.getInt();
+            final int postingsNumber = buffer.getInt();
+            if (keysNumber < 0 || postingsNumber < 0
+                || buffer.capacity() != HEADER_SIZE + 4L * (2L * keysNumber + 1 + postingsNumber)) {
+                throw new IOException("Broken search index " + file);
+            }
+            final IntBuffer ints = buffer.asIntBuffer();
+            final int[] keys = new int[keysNumber];
+            final int[] starts = new int[keysNumber + 1];
+            final int[] postings = new int[postingsNumber];
+            ints.get(keys);
+            ints.get(starts);
+            ints.get(postings);
+            return new ZLTextSearchIndex(paragraphsNumber, keys, starts, postings, 0);
+        }finally {
+            raf.close();
+        }
+    }
+
+    void write(File file) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(myParagraphsNumber);
+            stream.writeInt(myKeys.length);
+            stream.writeInt(myPostings.length);
+            for (int k : myKeys) {
+                stream.writeInt(k);
+            }
+            for (int s : myStarts) {
+                stream.writeInt(s);
+            }
+            for (int p : myPostings) {
+                stream.writeInt(p);
+            }
+        }finally {
+            stream.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import org.geometerplus.zlibrary.core.util.ZLSearchPattern;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A search over a paragraph range, split into chunks that are scanned on a shared
+ * thread pool. Chunks nearest to the reading position are scheduled first; found
+ * marks are streamed to the listener chunk by chunk.
+ */
+public final class ZLTextSearchTask {
+
+    public interface Listener {
+
+        // called on a pool thread; batches come in no particular order,
+        // but never concurrently with another call of the listener
+        void onMarksFound(ZLTextSearchTask task, ZLTextMarkIndex marks);
+
+        // called after all the onMarksFound calls; not called for a cancelled task
+        void onSearchFinished(ZLTextSearchTask task, int count);
+    }
+
+    private static final int THREADS_NUMBER = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 32;
+
+    private static final ExecutorService ourExecutor = Executors.newFixedThreadPool(THREADS_NUMBER, new ThreadFactory() {
+        private final AtomicInteger myCounter = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(r, "TextSearch-" + myCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final ZLTextPlainModel myModel;
+    private final ZLSearchPattern myPattern;
+    private final BitSet myCandidates;
+    private final Listener myListener;
+    private final int myStartIndex;
+    private final int myEndIndex;
+    private final int myChunkSize;
+    private final boolean[] myChunkDone;
+
+    private volatile boolean myCancelled;
+    // the listener is called under this lock, so that its calls come one by one,
+    // and the last chunk cannot report the end before another one reports its marks
+    private final Object myDeliveryLock = new Object();
+    // guarded by myDeliveryLock
+    private int myChunksLeft;
+    private boolean myFinished;
+    private int myCount;
+
+    ZLTextSearchTask(ZLTextPlainModel model, ZLSearchPattern pattern, BitSet candidates, int startIndex, int endIndex, Listener listener) {
+        myModel = model;
+        myPattern = pattern;
+        myCandidates = candidates;
+        myListener = listener;
+        myStartIndex = startIndex;
+        myEndIndex = endIndex;
+        final int length = Math.max(0, endIndex - startIndex);
+        myChunkSize = Math.max(MIN_CHUNK_SIZE, (length + THREADS_NUMBER * CHUNKS_PER_THREAD - 1) / (THREADS_NUMBER * CHUNKS_PER_THREAD));
+        myChunkDone = new boolean[(length + myChunkSize - 1) / myChunkSize];
+        myChunksLeft = myChunkDone.length;
+    }
+
+    // schedules the chunks in the order of their distance from priorityIndex, ahead of it first
+    void start(int priorityIndex, boolean backward) {
+        final int chunksNumber = myChunkDone.length;
+        if (chunksNumber == 0) {
+            if (myListener != null) {
+                myListener.onSearchFinished(this, 0);
+            }
+            synchronized (this) {
+                myFinished = true;
+            }
+            return;
+        }
+        final int first = Math.max(0, Math.min(chunksNumber - 1, (priorityIndex - myStartIndex) / myChunkSize));
+        for (int i = 0; i < chunksNumber; ++i) {
+            final int ahead = backward ? first - i : first + i;
+            if (ahead >= 0 && ahead < chunksNumber) {
+                submit(ahead);
+            }
+            final int behind = backward ? first + i + 1 : first - i - 1;
+            if (behind >= 0 && behind < chunksNumber) {
+                submit(behind);
+            }
+        }
+    }
+
+    private void submit(final int chunk) {
+        ourExecutor.execute(new Runnable() {
+            public void run() {
+                runChunk(chunk);
+            }
+        });
+    }
+
+    private void runChunk(int chunk) {
+        ZLTextMarkIndex marks = null;
+        if (!myCancelled) {
+            final int from = myStartIndex + chunk * myChunkSize;
+            final int to = Math.min(from + myChunkSize, myEndIndex);
+            marks = myModel.searchParagraphs(myPattern, myCandidates, from, to, this);
+            if (marks != null && !marks.isEmpty()) {
+                myModel.addMarks(this, marks);
+            }
+        }
+        synchronized (this) {
+            myChunkDone[chunk] = true;
+            if (marks != null) {
+                myCount += marks.size();
+            }
+        }
+        final boolean finished;
+        synchronized (myDeliveryLock) {
+            finished = --myChunksLeft == 0;
+            if (myListener != null && !myCancelled) {
+                if (marks != null && !marks.isEmpty()) {
+                    myListener.onMarksFound(this, marks);
+                }
+                if (finished) {
+                    myListener.onSearchFinished(this, getCount());
+                }
+            }
+        }
+        if (finished) {
+            // every listener call has returned by now
+            synchronized (this) {
+                myFinished = true;
+                notifyAll();
+            }
+        }
+    }
+
+    public void cancel() {
+        myCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return myCancelled;
+    }
+
+    public synchronized boolean isFinished() {
+        return myFinished;
+    }
+
+    public synchronized int getCount() {
+        return myCount;
+    }
+
+    // true if all the paragraphs between the indices (in any order) have been searched
+    public synchronized boolean isSearched(int fromIndex, int toIndex) {
+        if (myChunkDone.length == 0) {
+            return true;
+        }
+        final int last = myChunkDone.length - 1;
+        final int from = Math.max(0, Math.min(last, (Math.min(fromIndex, toIndex) - myStartIndex) / myChunkSize));
+        final int to = Math.max(0, Math.min(last, (Math.max(fromIndex, toIndex) - myStartIndex) / myChunkSize));
+        for (int i = from; i <= to; ++i) {
+            if (!myChunkDone[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // waits for all the chunks and returns the number of found marks
+    public synchronized int await() throws InterruptedException {
+        while (!myFinished) {
+            wait();
+        }
+        return myCount;
+    }
+}
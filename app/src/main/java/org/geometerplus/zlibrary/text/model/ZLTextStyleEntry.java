@@ -23,6 +23,7 @@ import org.fbreader.util.Boolean3;
 import org.geometerplus.zlibrary.core.fonts.FontEntry;
 import org.geometerplus.zlibrary.core.fonts.FontManager;
 
+import java.util.Arrays;
 import java.util.List;
 
 public abstract class ZLTextStyleEntry {
@@ -80,6 +81,23 @@ public abstract class ZLTextStyleEntry {
             Unit = unit;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Length)) {
+                return false;
+            }
+            final Length other = (Length)o;
+            return Size == other.Size && Unit == other.Unit;
+        }
+
+        @Override
+        public int hashCode() {
+            return Size * 8 + Unit;
+        }
+
         @Override
         public String toString() {
             return Size + "." + Unit;
@@ -208,6 +226,36 @@ public abstract class ZLTextStyleEntry {
         return myVerticalAlignCode;
     }
 
+    // entries are compared by value: the same entry is read again
+    // every time the paragraph is processed
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        final ZLTextStyleEntry other = (ZLTextStyleEntry)o;
+        return
+            Depth == other.Depth &&
+            myFeatureMask == other.myFeatureMask &&
+            myAlignmentType == other.myAlignmentType &&
+            mySupportedFontModifiers == other.mySupportedFontModifiers &&
+            myFontModifiers == other.myFontModifiers &&
+            myVerticalAlignCode == other.myVerticalAlignCode &&
+            Arrays.equals(myLengths, other.myLengths) &&
+            (myFontEntries == null ? other.myFontEntries == null : myFontEntries.equals(other.myFontEntries));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Depth * 31 + myFeatureMask;
+        hash = hash * 31 + myFontModifiers;
+        hash = hash * 31 + Arrays.hashCode(myLengths);
+        return hash;
+    }
+
     @Override
     public String toString() {
         final StringBuilder buffer = new StringBuilder("StyleEntry[");
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view;
+
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class BlockPrefetcher implements Runnable {
+
+    // blocks loaded past the one holding the edge of the page in the reading direction
+    private static final int BLOCKS_AHEAD = 2;
+
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "BlockPrefetcher");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final ZLTextModel myModel;
+    private final AtomicBoolean myScheduled = new AtomicBoolean();
+
+    // only the latest request matters, earlier ones are dropped if not started yet
+    private volatile int myStartIndex;
+    private volatile int myEndIndex;
+    private volatile boolean myForward;
+
+    BlockPrefetcher(ZLTextModel model) {
+        myModel = model;
+    }
+
+    void prefetch(int startParagraphIndex, int endParagraphIndex, boolean forward) {
+        myStartIndex = startParagraphIndex;
+        myEndIndex = endParagraphIndex;
+        myForward = forward;
+        if (myScheduled.compareAndSet(false, true)) {
+            ourExecutor.execute(this);
+        }
+    }
+
+    public void run() {
+        myScheduled.set(false);
+        final boolean forward = myForward;
+        final int start = myStartIndex;
+        final int end = myEndIndex;
+        myModel.prefetchBlocks(forward ? end : start, BLOCKS_AHEAD, forward);
+        // the page the reader came from may be needed if they turn back
+        myModel.prefetchBlocks(forward ? start : end, 0, !forward);
+    }
+}
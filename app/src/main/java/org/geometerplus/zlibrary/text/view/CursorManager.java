@@ -19,22 +19,175 @@
 
 package org.geometerplus.zlibrary.text.view;
 
-import android.support.v4.util.LruCache;
+import org.geometerplus.zlibrary.text.model.ZLTextMarkIndex;
 import org.geometerplus.zlibrary.text.model.ZLTextModel;
 
-final class CursorManager extends LruCache<Integer, ZLTextParagraphCursor> {
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class CursorManager {
+
+    // about 400 paragraphs of ordinary prose, see ZLTextParagraphCursor.estimatedSize()
+    static final long DEFAULT_BUDGET = 1 << 20;
+
+    static final class Statistics {
+
+        final long Hits;
+        final long Misses;
+        // time spent building cursors on demand, i.e. inside layout
+        final long BuildTimeNanos;
+        final long ResidentBytes;
+        final long Prepared;
+        // hits on cursors built in background, and the time they took off the layout
+        final long PreparedHits;
+        final long PrepareTimeNanos;
+
+        Statistics(long hits, long misses, long buildTimeNanos, long residentBytes, long prepared, long preparedHits, long prepareTimeNanos) {
+            Hits = hits;
+            Misses = misses;
+            BuildTimeNanos = buildTimeNanos;
+            ResidentBytes = residentBytes;
+            Prepared = prepared;
+            PreparedHits = preparedHits;
+            PrepareTimeNanos = prepareTimeNanos;
+        }
+
+        public String toString() {
+            return "hits = " + Hits + ", misses = " + Misses + ", build = " + BuildTimeNanos / 1000000 + "ms, resident = " + ResidentBytes
+                + ", prepared = " + Prepared + ", prepared hits = " + PreparedHits + ", prepare = " + PrepareTimeNanos / 1000000 + "ms";
+        }
+    }
 
     private final ZLTextModel myModel;
     final ExtensionElementManager ExtensionManager;
 
+    private final long myBudget;
+    private final LinkedHashMap<Integer, ZLTextParagraphCursor> myCursors = new LinkedHashMap<Integer, ZLTextParagraphCursor>(16, .75f, true);
+    // cursors built in background and not requested yet
+    private final HashSet<Integer> myPrepared = new HashSet<Integer>();
+    // cursors built before evictAll() must not get into the cache
+    private int myGeneration;
+
+    private long myResidentBytes;
+    private long myHits;
+    private long myMisses;
+    private long myBuildTimeNanos;
+    private long myPreparedCount;
+    private long myPreparedHits;
+    private long myPrepareTimeNanos;
+
     CursorManager(ZLTextModel model, ExtensionElementManager extManager) {
-        super(200); // max 200 cursors in the cache
+        this(model, extManager, DEFAULT_BUDGET);
+    }
+
+    CursorManager(ZLTextModel model, ExtensionElementManager extManager, long budgetInBytes) {
         myModel = model;
         ExtensionManager = extManager;
+        myBudget = budgetInBytes;
+    }
+
+    ZLTextParagraphCursor get(int index) {
+        final int generation;
+        synchronized (this) {
+            final ZLTextParagraphCursor cursor = myCursors.get(index);
+            if (cursor != null) {
+                ++myHits;
+                if (myPrepared.remove(index)) {
+                    ++myPreparedHits;
+                }
+                return cursor;
+            }
+            ++myMisses;
+            generation = myGeneration;
+        }
+        // built outside the lock, the background preparer must not block layout
+        final long start = System.nanoTime();
+        final ZLTextParagraphCursor cursor = new ZLTextParagraphCursor(this, myModel, index);
+        synchronized (this) {
+            myBuildTimeNanos += System.nanoTime() - start;
+            return store(index, cursor, generation);
+        }
+    }
+
+    // builds the cursor ahead of time; meant to be called from a background thread
+    void prepare(int index) {
+        final int generation;
+        synchronized (this) {
+            if (myCursors.containsKey(index)) {
+                return;
+            }
+            generation = myGeneration;
+        }
+        final long start = System.nanoTime();
+        final ZLTextParagraphCursor cursor = new ZLTextParagraphCursor(this, myModel, index);
+        synchronized (this) {
+            myPrepareTimeNanos += System.nanoTime() - start;
+            if (store(index, cursor, generation) == cursor) {
+                ++myPreparedCount;
+                myPrepared.add(index);
+            }
+        }
+    }
+
+    synchronized boolean contains(int index) {
+        return myCursors.containsKey(index);
+    }
+
+    synchronized void evictAll() {
+        ++myGeneration;
+        myCursors.clear();
+        myPrepared.clear();
+        myResidentBytes = 0;
+    }
+
+    // drops the cursors of the marked paragraphs, they were built without the marks
+    synchronized void evictMarked(ZLTextMarkIndex marks) {
+        // a cursor being built now may have read the model before the marks were added
+        ++myGeneration;
+        int previous = -1;
+        for (int i = 0; i < marks.size(); ++i) {
+            final int index = marks.getParagraphIndex(i);
+            if (index == previous) {
+                continue;
+            }
+            previous = index;
+            final ZLTextParagraphCursor cursor = myCursors.remove(index);
+            if (cursor != null) {
+                myResidentBytes -= cursor.estimatedSize();
+                myPrepared.remove(index);
+            }
+        }
+    }
+
+    synchronized Statistics getStatistics() {
+        return new Statistics(myHits, myMisses, myBuildTimeNanos, myResidentBytes, myPreparedCount, myPreparedHits, myPrepareTimeNanos);
+    }
+
+    private ZLTextParagraphCursor store(int index, ZLTextParagraphCursor cursor, int generation) {
+        if (generation != myGeneration) {
+            return cursor;
+        }
+        // another thread may have built the same paragraph meanwhile; keep one instance
+        final ZLTextParagraphCursor existing = myCursors.get(index);
+        if (existing != null) {
+            return existing;
+        }
+        myCursors.put(index, cursor);
+        myResidentBytes += cursor.estimatedSize();
+        evict(index);
+        return cursor;
     }
 
-    @Override
-    protected ZLTextParagraphCursor create(Integer index) {
-        return new ZLTextParagraphCursor(this, myModel, index);
+    private void evict(int keepIndex) {
+        for (Iterator<Map.Entry<Integer, ZLTextParagraphCursor>> it = myCursors.entrySet().iterator(); myResidentBytes > myBudget && it.hasNext(); ) {
+            final Map.Entry<Integer, ZLTextParagraphCursor> entry = it.next();
+            if (entry.getKey() != keepIndex) {
+                myResidentBytes -= entry.getValue().estimatedSize();
+                myPrepared.remove(entry.getKey());
+                it.remove();
+            }
+        }
     }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// builds paragraph cursors just past the pages prepared for the page turn,
+// so that layout of the following page finds them in the CursorManager
+final class CursorPreparer implements Runnable {
+
+    private static final int PARAGRAPHS_AHEAD = 8;
+
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "CursorPreparer");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final CursorManager myManager;
+    private final int myParagraphsNumber;
+    private final AtomicBoolean myScheduled = new AtomicBoolean();
+
+    // only the latest request matters, a running pass stops when a new one comes
+    private volatile int myRequest;
+    private volatile int myParagraphIndex;
+    private volatile boolean myForward;
+
+    CursorPreparer(CursorManager manager, int paragraphsNumber) {
+        myManager = manager;
+        myParagraphsNumber = paragraphsNumber;
+    }
+
+    void prepare(int paragraphIndex, boolean forward) {
+        myParagraphIndex = paragraphIndex;
+        myForward = forward;
+        ++myRequest;
+        if (myScheduled.compareAndSet(false, true)) {
+            ourExecutor.execute(this);
+        }
+    }
+
+    public void run() {
+        myScheduled.set(false);
+        final int request = myRequest;
+        final int from = myParagraphIndex;
+        final boolean forward = myForward;
+        for (int i = 0; i <= PARAGRAPHS_AHEAD && request == myRequest; ++i) {
+            final int index = forward ? from + i : from - i;
+            if (index < 0 || index >= myParagraphsNumber) {
+                break;
+            }
+            myManager.prepare(index);
+        }
+    }
+}
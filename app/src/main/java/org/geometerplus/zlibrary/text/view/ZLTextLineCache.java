@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Results of ZLTextView.processTextLineInternal() by (paragraph, start element,
+ * start char) for one layout fingerprint (style options and page size).
+ * Bounded LRU in memory; with a file set, the recently used lines are stored
+ * there now and then and read back when the same book is laid out with the
+ * same fingerprint again, e.g. after reopening.
+ *
+ * Only the part of a line that does not depend on the previous line is kept;
+ * the vertical spaces are recomputed on every hit.
+ */
+final class ZLTextLineCache {
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int MAGIC = 0x5a4c4c43;
+    private static final int VERSION = 1;
+    // new lines between two stores of the file
+    private static final int STORE_PERIOD = 256;
+    private static final int MAX_STORED_FILES = 8;
+    private static final String SUFFIX = ".lines";
+
+    private static final int FIELDS_NUMBER = 10;
+    // map entry, boxed key and value array
+    private static final int ENTRY_SIZE = 48 + 16 + 16 + 4 * FIELDS_NUMBER;
+
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "LineCache");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    static final class Statistics {
+
+        final long Hits;
+        final long Misses;
+        final int Lines;
+        final long EstimatedBytes;
+
+        Statistics(long hits, long misses, int lines, long estimatedBytes) {
+            Hits = hits;
+            Misses = misses;
+            Lines = lines;
+            EstimatedBytes = estimatedBytes;
+        }
+
+        public String toString() {
+            final long total = Hits + Misses;
+            return "hits = " + Hits + ", misses = " + Misses + ", hit rate = " + (total > 0 ? 100 * Hits / total : 0) + "%"
+                + ", lines = " + Lines + ", memory = " + EstimatedBytes;
+        }
+    }
+
+    private final int myCapacity;
+    private final LinkedHashMap<Long, int[]> myLines;
+
+    private String myFingerprint;
+    private String myResetFingerprint;
+    private File myFile;
+    private int myUnstored;
+
+    private long myHits;
+    private long myMisses;
+
+    ZLTextLineCache(int capacity) {
+        myCapacity = capacity;
+        myLines = new LinkedHashMap<Long, int[]>(capacity / 4, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > myCapacity;
+            }
+        };
+    }
+
+    // null for positions out of the packed range, such lines are not cached
+    private static Long key(int paragraphIndex, int elementIndex, int charIndex) {
+        if (elementIndex >= (1 << 20) || charIndex >= (1 << 12)) {
+            return null;
+        }
+        return ((long)paragraphIndex << 32) | ((long)elementIndex << 12) | charIndex;
+    }
+
+    /**
+     * Switches the cache to the fingerprint; the lines of another fingerprint
+     * are dropped (and stored to the previous file, if any).
+     * The file, if not null, is read when the fingerprint changes, unless the
+     * lines of this fingerprint have been invalidated since.
+     */
+    synchronized void setFingerprint(String fingerprint, File file) {
+        if (fingerprint.equals(myFingerprint) && (file == null ? myFile == null : file.equals(myFile))) {
+            return;
+        }
+        store();
+        myLines.clear();
+        myFingerprint = fingerprint;
+        myFile = file;
+        final boolean stale = fingerprint.equals(myResetFingerprint);
+        myResetFingerprint = null;
+        if (file != null) {
+            if (stale) {
+                file.delete();
+            }else {
+                read(file);
+            }
+        }
+    }
+
+    // stores the lines and detaches the cache from its file
+    synchronized void detach() {
+        store();
+        myLines.clear();
+        myFingerprint = null;
+        myResetFingerprint = null;
+        myFile = null;
+    }
+
+    // something the fingerprint does not cover may have changed; the lines
+    // of the current fingerprint, including the stored ones, are not reused
+    synchronized void invalidate() {
+        myResetFingerprint = myFingerprint;
+        myLines.clear();
+        myUnstored = 0;
+        myFingerprint = null;
+        myFile = null;
+    }
+
+    synchronized boolean get(int paragraphIndex, ZLTextLineInfo info) {
+        final Long key = key(paragraphIndex, info.StartElementIndex, info.StartCharIndex);
+        final int[] fields = key != null && myFingerprint != null ? myLines.get(key) : null;
+        if (fields == null) {
+            ++myMisses;
+            return false;
+        }
+        ++myHits;
+        info.RealStartElementIndex = fields[0];
+        info.RealStartCharIndex = fields[1];
+        info.EndElementIndex = fields[2];
+        info.EndCharIndex = fields[3];
+        info.IsVisible = fields[4] != 0;
+        info.LeftIndent = fields[5];
+        info.Width = fields[6];
+        info.Height = fields[7];
+        info.Descent = fields[8];
+        info.SpaceCounter = fields[9];
+        return true;
+    }
+
+    synchronized void put(int paragraphIndex, ZLTextLineInfo info) {
+        final Long key = key(paragraphIndex, info.StartElementIndex, info.StartCharIndex);
+        if (key == null || myFingerprint == null) {
+            return;
+        }
+        myLines.put(key, new int[] {
+            info.RealStartElementIndex,
+            info.RealStartCharIndex,
+            info.EndElementIndex,
+            info.EndCharIndex,
+            info.IsVisible ? 1 : 0,
+            info.LeftIndent,
+            info.Width,
+            info.Height,
+            info.Descent,
+            info.SpaceCounter
+        });
+        if (myFile != null && ++myUnstored >= STORE_PERIOD) {
+            store();
+        }
+    }
+
+    synchronized Statistics getStatistics() {
+        return new Statistics(myHits, myMisses, myLines.size(), (long)myLines.size() * ENTRY_SIZE);
+    }
+
+    private void store() {
+        if (myFile == null || myUnstored == 0) {
+            return;
+        }
+        myUnstored = 0;
+        final File file = myFile;
+        final String fingerprint = myFingerprint;
+        final ArrayList<Map.Entry<Long, int[]>> lines = new ArrayList<Map.Entry<Long, int[]>>(myLines.entrySet());
+        ourExecutor.execute(new Runnable() {
+            public void run() {
+                write(file, fingerprint, lines);
+            }
+        });
+    }
+
+    private void read(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream stream = null;
+        try {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION || !myFingerprint.equals(stream.readUTF())) {
+                return;
+            }
+            final int size = Math.min(stream.readInt(), myCapacity);
+            for (int i = 0; i < size; ++i) {
+                final long key = stream.readLong();
+                final int[] fields = new int[FIELDS_NUMBER];
+                for (int j = 0; j < FIELDS_NUMBER; ++j) {
+                    fields[j] = stream.readInt();
+                }
+                myLines.put(key, fields);
+            }
+            file.setLastModified(System.currentTimeMillis());
+        }catch (IOException e) {
+            // lines read so far are valid
+        }finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                }catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private static void write(File file, String fingerprint, ArrayList<Map.Entry<Long, int[]>> lines) {
+        final File directory = file.getParentFile();
+        directory.mkdirs();
+        final File tmp = new File(directory, file.getName() + ".tmp");
+        try {
+            final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                stream.writeInt(MAGIC);
+                stream.writeInt(VERSION);
+                stream.writeUTF(fingerprint);
+                stream.writeInt(lines.size());
+                // in access order, so that reading back keeps the most recent lines last
+                for (Map.Entry<Long, int[]> entry : lines) {
+                    stream.writeLong(entry.getKey());
+                    for (int field : entry.getValue()) {
+                        stream.writeInt(field);
+                    }
+                }
+            }finally {
+                stream.close();
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+        }catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        evict(directory, file);
+    }
+
+    private static void evict(File directory, File keep) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        File oldest = null;
+        int count = 0;
+        for (File f : files) {
+            if (!f.getName().endsWith(SUFFIX)) {
+                continue;
+            }
+            ++count;
+            if (!f.equals(keep) && (oldest == null || f.lastModified() < oldest.lastModified())) {
+                oldest = f;
+            }
+        }
+        if (count > MAX_STORED_FILES && oldest != null) {
+            oldest.delete();
+        }
+    }
+
+    static File file(String directory, String modelId, String fingerprint) {
+        if (directory == null) {
+            return null;
+        }
+        final String key = modelId + '\000' + fingerprint;
+        return new File(directory, Integer.toHexString(key.hashCode()) + SUFFIX);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view;
+
+import org.geometerplus.zlibrary.text.model.ZLTextModel;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lays out the whole text in background with the view's own layout code and
+ * keeps the start positions of all pages, for exact page numbers. The table
+ * is built one page per view lock acquisition, so the UI thread never waits
+ * for more than a page layout, and is stored in the model's layout cache directory keyed
+ * by the layout fingerprint (style options and viewport size).
+ */
+final class ZLTextPaginator implements Runnable {
+
+    private static final int MAGIC = 0x5a4c5047;
+    private static final int VERSION = 1;
+    // page maps kept per model, for different fonts, orientations etc.
+    private static final int MAX_STORED_MAPS = 8;
+
+    private static final ExecutorService ourExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "Paginator");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final ZLTextView myView;
+    private final ZLTextModel myModel;
+    // own cursors, the whole-text pass must not evict the ones of the visible pages
+    private final CursorManager myCursorManager;
+    private final AtomicBoolean myScheduled = new AtomicBoolean();
+
+    // all the fields below are guarded by the view
+    // set when the view drops the paginator for another model; a stopped paginator never resumes
+    private boolean myStopped;
+    private String myFingerprint;
+    // the fingerprint of the table dropped by reset(); seeing it again means
+    // something not covered by the fingerprint has changed, the stored map is stale
+    private String myResetFingerprint;
+    private int myPagesNumber;
+    private int[] myParagraphs = new int[256];
+    private int[] myElements = new int[256];
+    private int[] myChars = new int[256];
+    private boolean myFinished;
+    private final ZLTextPage myPage = new ZLTextPage();
+    private final ZLTextWordCursor myEnd = new ZLTextWordCursor();
+
+    ZLTextPaginator(ZLTextView view, ZLTextModel model, ExtensionElementManager extManager) {
+        myView = view;
+        myModel = model;
+        myCursorManager = new CursorManager(model, extManager, CursorManager.DEFAULT_BUDGET / 4);
+    }
+
+    // called under the view lock, with the fingerprint of the current layout
+    void start(String fingerprint) {
+        if (myStopped) {
+            return;
+        }
+        if (fingerprint.equals(myFingerprint)) {
+            if (!myFinished) {
+                schedule();
+            }
+            return;
+        }
+        clear();
+        myFingerprint = fingerprint;
+        final boolean stale = fingerprint.equals(myResetFingerprint);
+        myResetFingerprint = null;
+        if (stale || !load()) {
+            if (myModel.getParagraphsNumber() == 0) {
+                return;
+            }
+            myEnd.setCursor(myCursorManager.get(0));
+            addPage(0, 0, 0);
+            schedule();
+        }
+    }
+
+    // called under the view lock when the layout may have changed
+    void reset() {
+        myResetFingerprint = myFingerprint;
+        clear();
+    }
+
+    // called under the view lock before the view replaces the paginator
+    void stop() {
+        myStopped = true;
+        clear();
+    }
+
+    private void clear() {
+        myFingerprint = null;
+        myPagesNumber = 0;
+        myFinished = false;
+        myEnd.reset();
+        myPage.reset();
+        myCursorManager.evictAll();
+    }
+
+    boolean isFinished() {
+        return myFinished;
+    }
+
+    int getPagesNumber() {
+        return myPagesNumber;
+    }
+
+    // 0-based number of the page holding the position
+    int findPage(ZLTextPosition position) {
+        int low = 0;
+        int high = myPagesNumber - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (compare(middle, position) <= 0) {
+                low = middle;
+            }else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    ZLTextPosition getPageStart(int page) {
+        return new ZLTextFixedPosition(myParagraphs[page], myElements[page], myChars[page]);
+    }
+
+    private int compare(int page, ZLTextPosition position) {
+        final int p = position.getParagraphIndex();
+        if (myParagraphs[page] != p) {
+            return myParagraphs[page] < p ? -1 : 1;
+        }
+        final int e = position.getElementIndex();
+        if (myElements[page] != e) {
+            return myElements[page] < e ? -1 : 1;
+        }
+        final int c = position.getCharIndex();
+        return myChars[page] < c ? -1 : (myChars[page] == c ? 0 : 1);
+    }
+
+    private void schedule() {
+        if (myScheduled.compareAndSet(false, true)) {
+            ourExecutor.execute(this);
+        }
+    }
+
+    private void addPage(int paragraphIndex, int elementIndex, int charIndex) {
+        if (myPagesNumber == myParagraphs.length) {
+            myParagraphs = Arrays.copyOf(myParagraphs, 2 * myPagesNumber);
+            myElements = Arrays.copyOf(myElements, 2 * myPagesNumber);
+            myChars = Arrays.copyOf(myChars, 2 * myPagesNumber);
+        }
+        myParagraphs[myPagesNumber] = paragraphIndex;
+        myElements[myPagesNumber] = elementIndex;
+        myChars[myPagesNumber] = charIndex;
+        ++myPagesNumber;
+    }
+
+    public void run() {
+        myScheduled.set(false);
+        final String fingerprint;
+        final int[] paragraphs, elements, chars;
+        final int pagesNumber;
+        while (true) {
+            // one page per acquisition: this thread has the lowest priority, and
+            // paint() or turnPage() of the UI thread must not wait behind a longer run
+            synchronized (myView) {
+                // a queued run may outlive the model it was scheduled for
+                if (myStopped || myModel != myView.getModel()) {
+                    return;
+                }
+                // the table is dropped on any layout change; start() comes with the next paint
+                if (myFingerprint == null || myFinished || !myFingerprint.equals(myView.layoutFingerprint())) {
+                    return;
+                }
+                nextPage();
+                if (myFinished) {
+                    fingerprint = myFingerprint;
+                    pagesNumber = myPagesNumber;
+                    paragraphs = Arrays.copyOf(myParagraphs, pagesNumber);
+                    elements = Arrays.copyOf(myElements, pagesNumber);
+                    chars = Arrays.copyOf(myChars, pagesNumber);
+                    break;
+                }
+            }
+            Thread.yield();
+        }
+        save(fingerprint, pagesNumber, paragraphs, elements, chars);
+    }
+
+    // the same as scrolling forward without overlapping: the next page starts where this one ends
+    private void nextPage() {
+        final ZLTextWordCursor start = new ZLTextWordCursor(myEnd);
+        myView.buildPage(myPage, start, myEnd);
+        // the layout always takes at least one line, the second check is just a guard
+        if (myEnd.isEndOfText() || myEnd.samePositionAs(start)) {
+            myFinished = true;
+            return;
+        }
+        addPage(myEnd.getParagraphIndex(), myEnd.getElementIndex(), myEnd.getCharIndex());
+    }
+
+    private File file(String fingerprint) {
+        final String directory = myModel.getLayoutCacheDirectory();
+        if (directory == null) {
+            return null;
+        }
+        final String key = myModel.getId() + '\000' + fingerprint;
+        return new File(directory, Integer.toHexString(key.hashCode()) + ".pages");
+    }
+
+    private boolean load() {
+        final File file = file(myFingerprint);
+        if (file == null || !file.exists()) {
+            return false;
+        }
+        DataInputStream stream = null;
+        try {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION
+                || !myFingerprint.equals(stream.readUTF())
+                || stream.readInt() != myModel.getParagraphsNumber()) {
+                return false;
+            }
+            final int pagesNumber = stream.readInt();
+            if (pagesNumber <= 0) {
+                return false;
+            }
+            final int[] paragraphs = new int[pagesNumber];
+            final int[] elements = new int[pagesNumber];
+            final int[] chars = new int[pagesNumber];
+            for (int i = 0; i < pagesNumber; ++i) {
+                paragraphs[i] = stream.readInt();
+                elements[i] = stream.readInt();
+                chars[i] = stream.readInt();
+            }
+            myParagraphs = paragraphs;
+            myElements = elements;
+            myChars = chars;
+            myPagesNumber = pagesNumber;
+            myFinished = true;
+            file.setLastModified(System.currentTimeMillis());
+            return true;
+        }catch (IOException e) {
+            return false;
+        }finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                }catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    private void save(String fingerprint, int pagesNumber, int[] paragraphs, int[] elements, int[] chars) {
+        final File file = file(fingerprint);
+        if (file == null) {
+            return;
+        }
+        final File directory = file.getParentFile();
+        directory.mkdirs();
+        final File tmp = new File(directory, file.getName() + ".tmp");
+        try {
+            final DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                stream.writeInt(MAGIC);
+                stream.writeInt(VERSION);
+                stream.writeUTF(fingerprint);
+                stream.writeInt(myModel.getParagraphsNumber());
+                stream.writeInt(pagesNumber);
+                for (int i = 0; i < pagesNumber; ++i) {
+                    stream.writeInt(paragraphs[i]);
+                    stream.writeInt(elements[i]);
+                    stream.writeInt(chars[i]);
+                }
+            }finally {
+                stream.close();
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+        }catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        evict(directory, file);
+    }
+
+    private static void evict(File directory, File keep) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        // the directory is shared with ZLTextLineCache files
+        File oldest = null;
+        int count = 0;
+        for (File f : files) {
+            if (!f.getName().endsWith(".pages")) {
+                continue;
+            }
+            ++count;
+            if (!f.equals(keep) && (oldest == null || f.lastModified() < oldest.lastModified())) {
+                oldest = f;
+            }
+        }
+        if (count > MAX_STORED_MAPS && oldest != null) {
+            oldest.delete();
+        }
+    }
+}
@@ -23,11 +23,11 @@ import org.geometerplus.zlibrary.core.image.ZLImage;
 import org.geometerplus.zlibrary.core.image.ZLImageData;
 import org.geometerplus.zlibrary.core.image.ZLImageManager;
 import org.geometerplus.zlibrary.core.resources.ZLResource;
+import org.geometerplus.zlibrary.core.util.ZLArrayUtils;
 import org.geometerplus.zlibrary.text.model.*;
 import org.vimgadgets.linebreak.LineBreaker;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public final class ZLTextParagraphCursor {
 
@@ -35,39 +35,34 @@ public final class ZLTextParagraphCursor {
 
         private final ZLTextParagraph myParagraph;
         private final ExtensionElementManager myExtManager;
-        private final LineBreaker myLineBreaker;
-        private final ArrayList<ZLTextElement> myElements;
+        private final String myLanguage;
+        private final ZLTextParagraphCursor myCursor;
         private int myOffset;
         private int myFirstMark;
         private int myLastMark;
-        private final List<ZLTextMark> myMarks;
+        private final ZLTextMarkIndex myMarks;
 
-        private Processor(ZLTextParagraph paragraph, ExtensionElementManager extManager, LineBreaker lineBreaker, List<ZLTextMark> marks, int paragraphIndex, ArrayList<ZLTextElement> elements) {
+        private Processor(ZLTextParagraph paragraph, ExtensionElementManager extManager, String language, ZLTextMarkIndex marks, int paragraphIndex, ZLTextParagraphCursor cursor) {
             myExtManager = extManager;
             myParagraph = paragraph;
-            myLineBreaker = lineBreaker;
-            myElements = elements;
+            myLanguage = language;
+            myCursor = cursor;
             myMarks = marks;
-            final ZLTextMark mark = new ZLTextMark(paragraphIndex, 0, 0);
-            int i;
-            for (i = 0; i < myMarks.size(); i++) {
-                if (((ZLTextMark)myMarks.get(i)).compareTo(mark) >= 0) {
-                    break;
-                }
-            }
-            myFirstMark = i;
-            myLastMark = myFirstMark;
-            for (; myLastMark != myMarks.size() && ((ZLTextMark)myMarks.get(myLastMark)).ParagraphIndex == paragraphIndex; myLastMark++) {
-                ;
-            }
+            myFirstMark = marks.firstInParagraph(paragraphIndex);
+            myLastMark = marks.firstInParagraph(paragraphIndex + 1);
             myOffset = 0;
         }
 
         void fill() {
+            myBatchedBreaks = LineBreaker.isBatchAvailable();
+            if (myBatchedBreaks) {
+                breakTextEntries();
+            }
+
             int hyperlinkDepth = 0;
             ZLTextHyperlink hyperlink = null;
 
-            final ArrayList<ZLTextElement> elements = myElements;
+            final ZLTextParagraphCursor cursor = myCursor;
             for (ZLTextParagraph.EntryIterator it = myParagraph.iterator(); it.next(); ) {
                 switch (it.getType()) {
                     case ZLTextParagraph.Entry.TEXT:
@@ -80,13 +75,13 @@ public final class ZLTextParagraphCursor {
                                 hyperlink = null;
                             }
                         }
-                        elements.add(ZLTextControlElement.get(it.getControlKind(), it.getControlIsStart()));
+                        cursor.add(ZLTextControlElement.get(it.getControlKind(), it.getControlIsStart()));
                         break;
                     case ZLTextParagraph.Entry.HYPERLINK_CONTROL: {
                         final byte hyperlinkType = it.getHyperlinkType();
                         if (hyperlinkType != 0) {
                             final ZLTextHyperlinkControlElement control = new ZLTextHyperlinkControlElement(it.getControlKind(), hyperlinkType, it.getHyperlinkId());
-                            elements.add(control);
+                            cursor.add(control);
                             hyperlink = control.Hyperlink;
                             hyperlinkDepth = 1;
                         }
@@ -99,9 +94,9 @@ public final class ZLTextParagraphCursor {
                             ZLImageData data = ZLImageManager.Instance().getImageData(image);
                             if (data != null) {
                                 if (hyperlink != null) {
-                                    hyperlink.addElementIndex(elements.size());
+                                    hyperlink.addElementIndex(cursor.mySize);
                                 }
-                                elements.add(new ZLTextImageElement(imageEntry.Id, data, image.getURI(), imageEntry.IsCover));
+                                cursor.add(new ZLTextImageElement(imageEntry.Id, data, image.getURI(), imageEntry.IsCover));
                             }
                         }
                         break;
@@ -110,39 +105,128 @@ public final class ZLTextParagraphCursor {
 
                     case ZLTextParagraph.Entry.EXTENSION:
                         if (myExtManager != null) {
-                            elements.addAll(myExtManager.getElements(it.getExtensionEntry()));
+                            for (ExtensionElement element : myExtManager.getElements(it.getExtensionEntry())) {
+                                cursor.add(element);
+                            }
                         }
                         break;
                     case ZLTextParagraph.Entry.STYLE_CSS:
                     case ZLTextParagraph.Entry.STYLE_OTHER:
-                        elements.add(new ZLTextStyleElement(it.getStyleEntry()));
+                        cursor.add(new ZLTextStyleElement(it.getStyleEntry()));
                         break;
                     case ZLTextParagraph.Entry.STYLE_CLOSE:
-                        elements.add(ZLTextElement.StyleClose);
+                        cursor.add(ZLTextElement.StyleClose);
                         break;
                     case ZLTextParagraph.Entry.FIXED_HSPACE:
-                        elements.add(ZLTextFixedHSpaceElement.getElement(it.getFixedHSpaceLength()));
+                        cursor.add(ZLTextFixedHSpaceElement.getElement(it.getFixedHSpaceLength()));
                         break;
                 }
             }
         }
 
-        private static byte[] ourBreaks = new byte[1024];
+        // cursors are built on several threads (layout, CursorPreparer), so
+        // the scratch buffers are per thread
+        private static final class Scratch {
+            char[] Text = new char[1024];
+            byte[] Breaks = new byte[1024];
+            int[] RunOffsets = new int[16];
+            int[] RunLengths = new int[16];
+            LineBreaker Breaker;
+        }
+
+        private static final ThreadLocal<Scratch> ourScratch = new ThreadLocal<Scratch>() {
+            @Override
+            protected Scratch initialValue() {
+                return new Scratch();
+            }
+        };
+
+        // true if the breaks of all the entries are computed in advance by breakTextEntries()
+        private boolean myBatchedBreaks;
+        // offset of the current text entry's breaks in the scratch
+        private int myBreaksOffset;
+
+        /**
+         * Computes the line breaks of all the text entries of the paragraph in
+         * one LineBreaker call (one JNI crossing instead of one per entry).
+         * Only a library built from LineBreaker.cpp of this tree has that call,
+         * the prebuilt ones in jniLibs predate it. The entries are copied to
+         * the scratch, which keeps the native call off the model's blocks shared
+         * with other threads and makes JNI copy the paragraph text only.
+         */
+        private void breakTextEntries() {
+            final Scratch scratch = ourScratch.get();
+            int runs = 0;
+            int textLength = 0;
+            for (ZLTextParagraph.EntryIterator it = myParagraph.iterator(); it.next(); ) {
+                if (it.getType() != ZLTextParagraph.Entry.TEXT || it.getTextLength() == 0) {
+                    continue;
+                }
+                final int length = it.getTextLength();
+                if (scratch.Text.length < textLength + length) {
+                    scratch.Text = ZLArrayUtils.createCopy(scratch.Text, textLength, 2 * (textLength + length));
+                }
+                if (scratch.RunOffsets.length == runs) {
+                    scratch.RunOffsets = ZLArrayUtils.createCopy(scratch.RunOffsets, runs, 2 * runs);
+                    scratch.RunLengths = ZLArrayUtils.createCopy(scratch.RunLengths, runs, 2 * runs);
+                }
+                System.arraycopy(it.getTextData(), it.getTextOffset(), scratch.Text, textLength, length);
+                scratch.RunOffsets[runs] = textLength;
+                scratch.RunLengths[runs] = length;
+                ++runs;
+                textLength += length;
+            }
+            if (runs == 0) {
+                return;
+            }
+            if (scratch.Breaks.length < scratch.Text.length) {
+                scratch.Breaks = new byte[scratch.Text.length];
+            }
+            lineBreaker(scratch).setLineBreaks(scratch.Text, scratch.RunOffsets, scratch.RunLengths, runs, scratch.Breaks);
+        }
+
+        private LineBreaker lineBreaker(Scratch scratch) {
+            LineBreaker breaker = scratch.Breaker;
+            if (breaker == null || !sameLanguage(breaker.getLanguage(), myLanguage)) {
+                breaker = new LineBreaker(myLanguage);
+                scratch.Breaker = breaker;
+            }
+            return breaker;
+        }
+
+        private static boolean sameLanguage(String language0, String language1) {
+            return language0 == null ? language1 == null : language0.equals(language1);
+        }
+
         private static final int NO_SPACE = 0;
         private static final int SPACE = 1;
         private static final int NON_BREAKABLE_SPACE = 2;
 
         private void processTextEntry(final char[] data, final int offset, final int length, ZLTextHyperlink hyperlink) {
             if (length != 0) {
-                if (ourBreaks.length < length) {
-                    ourBreaks = new byte[length];
+                final Scratch scratch = ourScratch.get();
+                final int breaksOffset;
+                if (myBatchedBreaks) {
+                    breaksOffset = myBreaksOffset;
+                    myBreaksOffset += length;
+                }else {
+                    // one call per entry; the entry is copied to the scratch as well, the
+                    // native side must not get the model's block shared with other threads
+                    if (scratch.Text.length < length) {
+                        scratch.Text = new char[length];
+                    }
+                    if (scratch.Breaks.length < length) {
+                        scratch.Breaks = new byte[length];
+                    }
+                    System.arraycopy(data, offset, scratch.Text, 0, length);
+                    lineBreaker(scratch).setLineBreaks(scratch.Text, 0, length, scratch.Breaks);
+                    breaksOffset = 0;
                 }
-                final byte[] breaks = ourBreaks;
-                myLineBreaker.setLineBreaks(data, offset, length, breaks);
+                final byte[] breaks = scratch.Breaks;
 
                 final ZLTextElement hSpace = ZLTextElement.HSpace;
                 final ZLTextElement nbSpace = ZLTextElement.NBSpace;
-                final ArrayList<ZLTextElement> elements = myElements;
+                final ZLTextParagraphCursor cursor = myCursor;
                 char ch = 0;
                 char previousChar = 0;
                 int spaceState = NO_SPACE;
@@ -159,7 +243,7 @@ public final class ZLTextParagraphCursor {
                         if (index > 0 && spaceState == NO_SPACE) {
                             addWord(data, offset + wordStart, index - wordStart, myOffset + wordStart, hyperlink);
                         }
-                        elements.add(nbSpace);
+                        cursor.add(nbSpace);
                         if (spaceState != SPACE) {
                             spaceState = NON_BREAKABLE_SPACE;
                         }
@@ -168,7 +252,7 @@ public final class ZLTextParagraphCursor {
                             case SPACE:
                                 //if (breaks[index - 1] == LineBreak.NOBREAK || previousChar == '-') {
                                 //}
-                                elements.add(hSpace);
+                                cursor.add(hSpace);
                                 wordStart = index;
                                 break;
                             case NON_BREAKABLE_SPACE:
@@ -176,7 +260,7 @@ public final class ZLTextParagraphCursor {
                                 break;
                             case NO_SPACE:
                                 if (index > 0 &&
-                                    breaks[index - 1] != LineBreaker.NOBREAK &&
+                                    breaks[breaksOffset + index - 1] != LineBreaker.NOBREAK &&
                                     previousChar != '-' &&
                                     index != wordStart) {
                                     addWord(data, offset + wordStart, index - wordStart, myOffset + wordStart, hyperlink);
@@ -189,10 +273,10 @@ public final class ZLTextParagraphCursor {
                 }
                 switch (spaceState) {
                     case SPACE:
-                        elements.add(hSpace);
+                        cursor.add(hSpace);
                         break;
                     case NON_BREAKABLE_SPACE:
-                        elements.add(nbSpace);
+                        cursor.add(nbSpace);
                         break;
                     case NO_SPACE:
                         addWord(data, offset + wordStart, length - wordStart, myOffset + wordStart, hyperlink);
@@ -203,24 +287,59 @@ public final class ZLTextParagraphCursor {
         }
 
         private final void addWord(char[] data, int offset, int len, int paragraphOffset, ZLTextHyperlink hyperlink) {
-            ZLTextWord word = new ZLTextWord(data, offset, len, paragraphOffset);
+            ZLTextWord word = null;
             for (int i = myFirstMark; i < myLastMark; ++i) {
-                final ZLTextMark mark = (ZLTextMark)myMarks.get(i);
-                if ((mark.Offset < paragraphOffset + len) && (mark.Offset + mark.Length > paragraphOffset)) {
-                    word.addMark(mark.Offset - paragraphOffset, mark.Length);
+                final int markOffset = myMarks.getOffset(i);
+                final int markLength = myMarks.getLength(i);
+                if ((markOffset < paragraphOffset + len) && (markOffset + markLength > paragraphOffset)) {
+                    // marked words are rare, they are kept as objects
+                    if (word == null) {
+                        word = new ZLTextWord(data, offset, len, paragraphOffset);
+                    }
+                    word.addMark(markOffset - paragraphOffset, markLength);
                 }
             }
             if (hyperlink != null) {
-                hyperlink.addElementIndex(myElements.size());
+                hyperlink.addElementIndex(myCursor.mySize);
+            }
+            if (word != null) {
+                myCursor.add(word);
+            }else {
+                myCursor.addWord(data, offset, len, paragraphOffset);
             }
-            myElements.add(word);
         }
     }
 
     public final int Index;
     final CursorManager CursorManager;
     public final ZLTextModel Model;
-    private final ArrayList<ZLTextElement> myElements = new ArrayList<ZLTextElement>();
+
+    // Elements are stored as struct of arrays. Every element has an int code:
+    // a word number, a space marker or a reference into myObjects. Unmarked words
+    // live in the word arrays only ("plain words") and are turned into short-lived
+    // ZLTextWord views when asked for, so code that needs to tell the words apart
+    // compares element indices, not objects; controls, images, marked words etc.
+    // stay objects. Layout reads plain words through the index based accessors.
+    private static final int HSPACE = -1;
+    private static final int NBSPACE = -2;
+    private static final int FIRST_OBJECT = -3;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final char[] NO_CHARS = new char[0];
+    private static final ZLTextElement[] NO_ELEMENTS = new ZLTextElement[0];
+
+    private int mySize;
+    private int[] myCodes = NO_INTS;
+    private int myObjectsNumber;
+    private ZLTextElement[] myObjects = NO_ELEMENTS;
+    private int myWordsNumber;
+    private char[] myWordBlocks = NO_CHARS;
+    private int[] myWordOffsets = NO_INTS;
+    private int[] myWordLengths = NO_INTS;
+    private int[] myWordParagraphOffsets = NO_INTS;
+    private int[] myWordWidths = NO_INTS;
+    private int myTextBlocksNumber;
+    private char[][] myTextBlocks = new char[0][];
 
     public ZLTextParagraphCursor(ZLTextModel model, int index) {
         this(new CursorManager(model, null), model, index);
@@ -239,25 +358,145 @@ public final class ZLTextParagraphCursor {
         ZLTextParagraph paragraph = Model.getParagraph(Index);
         switch (paragraph.getKind()) {
             case ZLTextParagraph.Kind.TEXT_PARAGRAPH:
-                new Processor(paragraph, CursorManager.ExtensionManager, new LineBreaker(Model.getLanguage()), Model.getMarks(), Index, myElements).fill();
+                new Processor(paragraph, CursorManager.ExtensionManager, Model.getLanguage(), Model.getMarkIndex(), Index, this).fill();
                 break;
             case ZLTextParagraph.Kind.EMPTY_LINE_PARAGRAPH:
-                myElements.add(new ZLTextWord(SPACE_ARRAY, 0, 1, 0));
+                add(new ZLTextWord(SPACE_ARRAY, 0, 1, 0));
                 break;
             case ZLTextParagraph.Kind.ENCRYPTED_SECTION_PARAGRAPH: {
                 final ZLTextStyleEntry entry = new ZLTextOtherStyleEntry();
                 entry.setFontModifier(ZLTextStyleEntry.FontModifier.FONT_MODIFIER_BOLD, true);
-                myElements.add(new ZLTextStyleElement(entry));
-                myElements.add(new ZLTextWord(ZLResource.resource("drm").getResource("encryptedSection").getValue(), 0));
+                add(new ZLTextStyleElement(entry));
+                add(new ZLTextWord(ZLResource.resource("drm").getResource("encryptedSection").getValue(), 0));
                 break;
             }
             default:
                 break;
         }
+        trim();
     }
 
     void clear() {
-        myElements.clear();
+        mySize = 0;
+        myCodes = NO_INTS;
+        myObjectsNumber = 0;
+        myObjects = NO_ELEMENTS;
+        myWordsNumber = 0;
+        myWordBlocks = NO_CHARS;
+        myWordOffsets = NO_INTS;
+        myWordLengths = NO_INTS;
+        myWordParagraphOffsets = NO_INTS;
+        myWordWidths = NO_INTS;
+        myTextBlocksNumber = 0;
+        myTextBlocks = new char[0][];
+    }
+
+    private static int grow(int length) {
+        return Math.max(16, length * 2);
+    }
+
+    // cursors live in the cache for a long time, do not keep the spare capacity
+    private void trim() {
+        if (mySize < myCodes.length) {
+            myCodes = Arrays.copyOf(myCodes, mySize);
+        }
+        if (myObjectsNumber < myObjects.length) {
+            myObjects = Arrays.copyOf(myObjects, myObjectsNumber);
+        }
+        final int words = myWordsNumber;
+        if (words < myWordOffsets.length) {
+            myWordBlocks = Arrays.copyOf(myWordBlocks, words);
+            myWordOffsets = Arrays.copyOf(myWordOffsets, words);
+            myWordLengths = Arrays.copyOf(myWordLengths, words);
+            myWordParagraphOffsets = Arrays.copyOf(myWordParagraphOffsets, words);
+            myWordWidths = Arrays.copyOf(myWordWidths, words);
+        }
+        if (myTextBlocksNumber < myTextBlocks.length) {
+            myTextBlocks = Arrays.copyOf(myTextBlocks, myTextBlocksNumber);
+        }
+    }
+
+    private void addCode(int code) {
+        if (mySize == myCodes.length) {
+            myCodes = Arrays.copyOf(myCodes, grow(mySize));
+        }
+        myCodes[mySize++] = code;
+    }
+
+    private void add(ZLTextElement element) {
+        if (element == ZLTextElement.HSpace) {
+            addCode(HSPACE);
+        }else if (element == ZLTextElement.NBSpace) {
+            addCode(NBSPACE);
+        }else {
+            if (myObjectsNumber == myObjects.length) {
+                myObjects = Arrays.copyOf(myObjects, grow(myObjectsNumber));
+            }
+            myObjects[myObjectsNumber] = element;
+            addCode(FIRST_OBJECT - myObjectsNumber++);
+        }
+    }
+
+    private void addWord(char[] data, int offset, int length, int paragraphOffset) {
+        int block = myTextBlocksNumber - 1;
+        while (block >= 0 && myTextBlocks[block] != data) {
+            --block;
+        }
+        if (block < 0) {
+            if (myTextBlocksNumber == myTextBlocks.length) {
+                myTextBlocks = Arrays.copyOf(myTextBlocks, myTextBlocksNumber + 1);
+            }
+            block = myTextBlocksNumber++;
+            myTextBlocks[block] = data;
+        }
+        final int word = myWordsNumber++;
+        if (word == myWordOffsets.length) {
+            final int capacity = grow(word);
+            myWordBlocks = Arrays.copyOf(myWordBlocks, capacity);
+            myWordOffsets = Arrays.copyOf(myWordOffsets, capacity);
+            myWordLengths = Arrays.copyOf(myWordLengths, capacity);
+            myWordParagraphOffsets = Arrays.copyOf(myWordParagraphOffsets, capacity);
+            myWordWidths = Arrays.copyOf(myWordWidths, capacity);
+        }
+        myWordBlocks[word] = (char)block;
+        myWordOffsets[word] = offset;
+        myWordLengths[word] = length;
+        myWordParagraphOffsets[word] = paragraphOffset;
+        addCode(word);
+    }
+
+    // rough retained size in bytes, for the CursorManager budget
+    int estimatedSize() {
+        return 64
+            + 4 * myCodes.length
+            + 36 * myObjects.length
+            + 18 * myWordOffsets.length
+            + 4 * myTextBlocks.length;
+    }
+
+    // true if the element is a word kept in the word arrays only
+    boolean isPlainWord(int elementIndex) {
+        return elementIndex >= 0 && elementIndex < mySize && myCodes[elementIndex] >= 0;
+    }
+
+    char[] getWordData(int elementIndex) {
+        return myTextBlocks[myWordBlocks[myCodes[elementIndex]]];
+    }
+
+    int getWordOffset(int elementIndex) {
+        return myWordOffsets[myCodes[elementIndex]];
+    }
+
+    int getWordLength(int elementIndex) {
+        return myWordLengths[myCodes[elementIndex]];
+    }
+
+    int getWordWidth(int elementIndex) {
+        return myWordWidths[myCodes[elementIndex]];
+    }
+
+    void setWordWidth(int elementIndex, int width) {
+        myWordWidths[myCodes[elementIndex]] = width;
     }
 
     public boolean isFirst() {
@@ -283,7 +522,7 @@ public final class ZLTextParagraphCursor {
     }
 
     int getParagraphLength() {
-        return myElements.size();
+        return mySize;
     }
 
     public ZLTextParagraphCursor previous() {
@@ -294,12 +533,27 @@ public final class ZLTextParagraphCursor {
         return isLast() ? null : CursorManager.get(Index + 1);
     }
 
+    // the element if it is stored as an object, null for a plain word;
+    // unlike getElement() never allocates
+    ZLTextElement getStoredElement(int index) {
+        return isPlainWord(index) ? null : getElement(index);
+    }
+
     ZLTextElement getElement(int index) {
-        try {
-            return myElements.get(index);
-        }catch (IndexOutOfBoundsException e) {
+        if (index < 0 || index >= mySize) {
             return null;
         }
+        final int code = myCodes[index];
+        switch (code) {
+            case HSPACE:
+                return ZLTextElement.HSpace;
+            case NBSPACE:
+                return ZLTextElement.NBSpace;
+        }
+        if (code < 0) {
+            return myObjects[FIRST_OBJECT - code];
+        }
+        return new ZLTextWord(this, index, myTextBlocks[myWordBlocks[code]], myWordOffsets[code], myWordLengths[code], myWordParagraphOffsets[code]);
     }
 
     ZLTextParagraph getParagraph() {
@@ -308,6 +562,6 @@ public final class ZLTextParagraphCursor {
 
     @Override
     public String toString() {
-        return "ZLTextParagraphCursor [" + Index + " (0.." + myElements.size() + ")]";
+        return "ZLTextParagraphCursor [" + Index + " (0.." + mySize + ")]";
     }
 }
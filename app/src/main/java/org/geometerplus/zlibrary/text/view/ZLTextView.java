@@ -25,6 +25,8 @@ import com.orhanobut.logger.Logger;
 
 import org.geometerplus.zlibrary.core.application.ZLApplication;
 import org.geometerplus.zlibrary.core.filesystem.ZLFile;
+import org.geometerplus.zlibrary.core.library.ZLibrary;
+import org.geometerplus.zlibrary.core.options.Config;
 import org.geometerplus.zlibrary.core.util.RationalNumber;
 import org.geometerplus.zlibrary.core.util.ZLColor;
 import org.geometerplus.zlibrary.core.view.Hull;
@@ -35,8 +37,12 @@ import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenationInfo;
 import org.geometerplus.zlibrary.text.hyphenation.ZLTextHyphenator;
 import org.geometerplus.zlibrary.text.model.ZLTextAlignmentType;
 import org.geometerplus.zlibrary.text.model.ZLTextMark;
+import org.geometerplus.zlibrary.text.model.ZLTextMarkIndex;
 import org.geometerplus.zlibrary.text.model.ZLTextModel;
 import org.geometerplus.zlibrary.text.model.ZLTextParagraph;
+import org.geometerplus.zlibrary.text.model.ZLTextSearchTask;
+import org.geometerplus.zlibrary.text.view.style.ZLTextBaseStyle;
+import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
 
 import java.text.DecimalFormat;
 import java.util.*;
@@ -73,7 +79,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
     private ZLTextPage myCurrentPage = new ZLTextPage();
     private ZLTextPage myNextPage = new ZLTextPage();
 
-    private final HashMap<ZLTextLineInfo, ZLTextLineInfo> myLineInfoCache = new HashMap<ZLTextLineInfo, ZLTextLineInfo>();
+    private final ZLTextLineCache myLineCache = new ZLTextLineCache(ZLTextLineCache.DEFAULT_CAPACITY);
 
     private ZLTextRegion.Soul myOutlinedRegionSoul;
     private boolean myShowOutline = true;
@@ -82,13 +88,28 @@ public abstract class ZLTextView extends ZLTextViewBase {
     private final Set<ZLTextHighlighting> myHighlightings = Collections.synchronizedSet(new TreeSet<ZLTextHighlighting>());
 
     private CursorManager myCursorManager;
+    private BlockPrefetcher myPrefetcher;
+    private CursorPreparer myCursorPreparer;
+    private ZLTextPaginator myPaginator;
+
+    private ZLTextSearchTask mySearchTask;
+    private boolean mySearchJumped;
 
     public ZLTextView(ZLApplication application) {
         super(application);
     }
 
     public synchronized void setModel(ZLTextModel model) {
+        // stores the lines of the previous model while its fingerprint is still known
+        myLineCache.detach();
         myCursorManager = model != null ? new CursorManager(model, getExtensionManager()) : null;
+        myPrefetcher = model != null ? new BlockPrefetcher(model) : null;
+        myCursorPreparer = model != null ? new CursorPreparer(myCursorManager, model.getParagraphsNumber()) : null;
+        myLayoutFingerprint = null;
+        if (myPaginator != null) {
+            myPaginator.stop();
+        }
+        myPaginator = model != null ? new ZLTextPaginator(this, model, getExtensionManager()) : null;
 
         mySelection.clear();
         myHighlightings.clear();
@@ -193,29 +214,137 @@ public abstract class ZLTextView extends ZLTextViewBase {
         }
     }
 
-    public synchronized int search(final String text, boolean ignoreCase, boolean wholeText, boolean backward, boolean thisSectionOnly) {
-        if (myModel == null || text.length() == 0) {
+    public interface SearchListener {
+
+        // the view has moved to the first found mark
+        void onFirstHit();
+
+        // called for every started search, count is 0 if nothing has been found
+        void onSearchFinished(int count);
+    }
+
+    // blocks until the search is finished; the view moves to the first found mark
+    public int search(final String text, boolean ignoreCase, boolean wholeText, boolean backward, boolean thisSectionOnly) {
+        final ZLTextSearchTask task = startSearch(text, ignoreCase, wholeText, backward, thisSectionOnly, null);
+        if (task == null) {
             return 0;
         }
-        Logger.e("这个是搜索的方法");
+        try {
+            return task.await();
+        }catch (InterruptedException e) {
+            task.cancel();
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Starts a background search; the view moves to the first mark (in the search direction)
+     * as soon as all the paragraphs before it have been searched, not waiting for the rest.
+     */
+    public synchronized ZLTextSearchTask startSearch(final String text, boolean ignoreCase, final boolean wholeText, final boolean backward, boolean thisSectionOnly, final SearchListener listener) {
+        if (myModel == null || text.length() == 0) {
+            if (listener != null) {
+                listener.onSearchFinished(0);
+            }
+            return null;
+        }
+        final ZLTextMark position = myCurrentPage.StartCursor.isNull() ? null : myCurrentPage.StartCursor.getMark();
         int startIndex = 0;
         int endIndex = myModel.getParagraphsNumber();
-        if (thisSectionOnly) {
-            // TODO: implement
+        if (thisSectionOnly && position != null) {
+            final int[] range = getSectionRange(position.ParagraphIndex);
+            if (range != null) {
+                startIndex = Math.max(startIndex, range[0]);
+                endIndex = Math.min(endIndex, range[1]);
+            }
+        }
+        final ZLTextModel model = myModel;
+        final int priorityIndex;
+        if (wholeText) {
+            priorityIndex = backward ? endIndex - 1 : startIndex;
+        }else {
+            priorityIndex = position != null ? position.ParagraphIndex : startIndex;
+        }
+        mySearchJumped = false;
+        mySearchTask = model.startSearch(text, startIndex, endIndex, ignoreCase, priorityIndex, backward, new ZLTextSearchTask.Listener() {
+            public void onMarksFound(ZLTextSearchTask task, ZLTextMarkIndex marks) {
+                onSearchProgress(model, task, marks, position, priorityIndex, wholeText, backward, listener);
+            }
+
+            public void onSearchFinished(ZLTextSearchTask task, int count) {
+                onSearchProgress(model, task, null, position, priorityIndex, wholeText, backward, listener);
+                if (listener != null) {
+                    listener.onSearchFinished(count);
+                }
+            }
+        });
+        return mySearchTask;
+    }
+
+    /**
+     * Returns {start, end} paragraph indices of the section containing the paragraph,
+     * or null if the model has no sections; used by the section-only search.
+     */
+    protected int[] getSectionRange(int paragraphIndex) {
+        return null;
+    }
+
+    // marks is the found batch, null when the search is finished
+    private synchronized void onSearchProgress(ZLTextModel model, ZLTextSearchTask task, ZLTextMarkIndex marks, ZLTextMark position, int priorityIndex, boolean wholeText, boolean backward, SearchListener listener) {
+        if (model != myModel || task != mySearchTask || task.isCancelled()) {
+            return;
+        }
+        final boolean finished = marks == null;
+        if (!finished) {
+            // cached and prepared-ahead cursors of these paragraphs have no highlights yet
+            myCursorManager.evictMarked(marks);
+        }
+        final ZLTextMark mark;
+        if (mySearchJumped) {
+            mark = null;
+        }else if (wholeText || position == null) {
+            mark = backward ? myModel.getLastMark() : myModel.getFirstMark();
+        }else {
+            mark = backward ? myModel.getPreviousMark(position) : myModel.getNextMark(position);
+        }
+        if (!mySearchJumped && mark != null && !finished && !task.isSearched(priorityIndex, mark.ParagraphIndex)) {
+            // a nearer mark may still be found
+            return;
+        }
+
+        if (mark != null) {
+            mySearchJumped = true;
+        }else if (!finished && !isShown(marks)) {
+            // the evicted cursors are rebuilt with the marks when paged to, nothing to repaint
+            return;
         }
-        int count = myModel.search(text, startIndex, endIndex, ignoreCase);
         myPreviousPage.reset();
         myNextPage.reset();
         if (!myCurrentPage.StartCursor.isNull()) {
             rebuildPaintInfo();
-            if (count > 0) {
-                ZLTextMark mark = myCurrentPage.StartCursor.getMark();
-                gotoMark(wholeText ? (backward ? myModel.getLastMark() : myModel.getFirstMark()) : (backward ? myModel.getPreviousMark(mark) : myModel.getNextMark(mark)));
+            if (mark != null) {
+                gotoMark(mark);
             }
             Application.getViewWidget().reset();
             Application.getViewWidget().repaint();
         }
-        return count;
+        if (mark != null && listener != null) {
+            listener.onFirstHit();
+        }
+    }
+
+    // true if some of the marks are on a page that has been laid out
+    private boolean isShown(ZLTextMarkIndex marks) {
+        return isShown(marks, myPreviousPage) || isShown(marks, myCurrentPage) || isShown(marks, myNextPage);
+    }
+
+    private static boolean isShown(ZLTextMarkIndex marks, ZLTextPage page) {
+        if (page.PaintState != PaintStateEnum.READY || page.StartCursor.isNull() || page.EndCursor.isNull()) {
+            return false;
+        }
+        final int first = marks.firstInParagraph(page.StartCursor.getParagraphIndex());
+        return first < marks.size() && marks.getParagraphIndex(first) <= page.EndCursor.getParagraphIndex();
     }
 
     public boolean canFindNext() {
@@ -242,8 +371,14 @@ public abstract class ZLTextView extends ZLTextViewBase {
         }
     }
 
-    public void clearFindResults() {
-        if (!findResultsAreEmpty()) {
+    public synchronized void clearFindResults() {
+        mySearchTask = null;
+        if (findResultsAreEmpty()) {
+            if (myModel != null) {
+                // stops a search that has found nothing yet
+                myModel.removeAllMarks();
+            }
+        }else {
             myModel.removeAllMarks();
             rebuildPaintInfo();
             Application.getViewWidget().reset();
@@ -252,7 +387,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
     }
 
     public boolean findResultsAreEmpty() {
-        return myModel == null || myModel.getMarks().isEmpty();
+        return myModel == null || myModel.getMarkIndex().isEmpty();
     }
 
     @Override
@@ -307,6 +442,43 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 break;
             }
         }
+        if (pageIndex != PageIndex.current) {
+            prefetchBlocks(pageIndex == PageIndex.next);
+        }
+    }
+
+    private void prefetchBlocks(boolean forward) {
+        if (myPrefetcher == null) {
+            return;
+        }
+        ZLTextWordCursor start = myCurrentPage.StartCursor;
+        ZLTextWordCursor end = myCurrentPage.EndCursor;
+        // once the page past the current one is laid out, read ahead from its far edge
+        final ZLTextPage ahead = forward ? myNextPage : myPreviousPage;
+        if (ahead.PaintState == PaintStateEnum.READY) {
+            if (forward && !ahead.EndCursor.isNull()) {
+                end = ahead.EndCursor;
+            }else if (!forward && !ahead.StartCursor.isNull()) {
+                start = ahead.StartCursor;
+            }
+        }
+        if (start.isNull() && end.isNull()) {
+            return;
+        }
+        final int startIndex = start.isNull() ? end.getParagraphIndex() : start.getParagraphIndex();
+        final int endIndex = end.isNull() ? startIndex : end.getParagraphIndex();
+        myPrefetcher.prefetch(startIndex, endIndex, forward);
+    }
+
+    // paragraphs past the page painted for the page turn are built in background
+    private void prepareCursors(boolean forward) {
+        if (myCursorPreparer == null) {
+            return;
+        }
+        final ZLTextWordCursor cursor = forward ? myNextPage.EndCursor : myPreviousPage.StartCursor;
+        if (!cursor.isNull()) {
+            myCursorPreparer.prepare(cursor.getParagraphIndex(), forward);
+        }
     }
 
     public boolean removeHighlightings(Class<? extends ZLTextHighlighting> type) {
@@ -482,6 +654,12 @@ public abstract class ZLTextView extends ZLTextViewBase {
         if (page.StartCursor.isNull() || page.EndCursor.isNull()) {
             return;
         }
+        if (pageIndex != PageIndex.current) {
+            prepareCursors(pageIndex == PageIndex.next);
+            prefetchBlocks(pageIndex == PageIndex.next);
+        }else if (myPaginator != null) {
+            myPaginator.start(layoutFingerprint());
+        }
 
         final ArrayList<ZLTextLineInfo> lineInfos = page.LineInfos;
         final int[] labels = new int[lineInfos.size() + 1];
@@ -721,6 +899,16 @@ public abstract class ZLTextView extends ZLTextViewBase {
     }
 
     public final synchronized PagePosition pagePosition() {
+        if (myPaginator != null && myPaginator.isFinished()) {
+            preparePaintInfo(myCurrentPage);
+            if (!myCurrentPage.StartCursor.isNull()) {
+                final int total = myPaginator.getPagesNumber();
+                final int current = !myCurrentPage.EndCursor.isNull() && myCurrentPage.EndCursor.isEndOfText()
+                    ? total : myPaginator.findPage(myCurrentPage.StartCursor) + 1;
+                return new PagePosition(current, total);
+            }
+        }
+
         int current = computeTextPageNumber(getCurrentCharNumber(PageIndex.current, false));
         int total = computeTextPageNumber(sizeOfFullText());
 
@@ -776,6 +964,12 @@ public abstract class ZLTextView extends ZLTextViewBase {
             return;
         }
 
+        if (myPaginator != null && myPaginator.isFinished()) {
+            final int index = Math.max(0, Math.min(page, myPaginator.getPagesNumber()) - 1);
+            gotoPosition(myPaginator.getPageStart(index));
+            return;
+        }
+
         final float factor = computeCharsPerPage();
         final float textSize = page * factor;
 
@@ -848,9 +1042,11 @@ public abstract class ZLTextView extends ZLTextViewBase {
             return;
         }
         for (int wordIndex = info.RealStartElementIndex; wordIndex != endElementIndex && index < to; ++wordIndex, charIndex = 0) {
-            final ZLTextElement element = paragraph.getElement(wordIndex);
             final ZLTextElementArea area = pageAreas.get(index);
-            if (element == area.Element) {
+            // word views are rebuilt on every getElement() call, match by position;
+            // the element is taken from the area, painting creates no word views
+            if (area.ParagraphIndex == paragraph.Index && area.ElementIndex == wordIndex) {
+                final ZLTextElement element = area.Element;
                 ++index;
                 if (area.ChangeStyle) {
                     setTextStyle(area.Style);
@@ -883,7 +1079,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
             }
             final int start = info.StartElementIndex == info.EndElementIndex ? info.StartCharIndex : 0;
             final int len = info.EndCharIndex - start;
-            final ZLTextWord word = (ZLTextWord) paragraph.getElement(info.EndElementIndex);
+            final ZLTextWord word = (ZLTextWord) area.Element;
             final ZLTextPosition pos = new ZLTextFixedPosition(info.ParagraphCursor.Index, info.EndElementIndex, 0);
             final ZLTextHighlighting hl = getWordHilite(pos, hilites);
             final ZLColor hlColor = hl != null ? hl.getForegroundColor() : null;
@@ -951,16 +1147,128 @@ public abstract class ZLTextView extends ZLTextViewBase {
         resetTextStyle();
     }
 
+    // set while the paginator lays out its pages: its pass over the whole text
+    // would evict the lines of the visible pages and keep rewriting the stored ones
+    private boolean myLineCacheBypassed;
+
+    // lays out a page starting at start, for ZLTextPaginator
+    synchronized void buildPage(ZLTextPage page, ZLTextWordCursor start, ZLTextWordCursor result) {
+        page.setSize(getTextColumnWidth(), getTextAreaHeight(), twoColumnView(), false);
+        myLineCacheBypassed = true;
+        try {
+            buildInfos(page, start, result);
+        }finally {
+            myLineCacheBypassed = false;
+        }
+    }
+
+    private void useLineCache() {
+        if (myModel == null) {
+            return;
+        }
+        final String fingerprint = layoutFingerprint();
+        myLineCache.setFingerprint(fingerprint, ZLTextLineCache.file(myModel.getLayoutCacheDirectory(), myModel.getId(), fingerprint));
+    }
+
+    /**
+     * Option groups the layout fingerprint is made of; the fingerprint is built
+     * again when an option of these groups changes. Subclasses keep the options
+     * they add to the fingerprint in these groups.
+     */
+    protected static final String[] LAYOUT_OPTION_GROUPS = { "Style", "Options", "Fonts" };
+
+    // the fingerprint and what it has been built for, guarded by the view
+    private String myLayoutFingerprint;
+    private int myFingerprintRevision;
+    private int myFingerprintWidth;
+    private int myFingerprintHeight;
+    private int myFingerprintMetrics;
+
+    final synchronized String layoutFingerprint() {
+        final Config config = Config.Instance();
+        int revision = 0;
+        if (config != null) {
+            for (String group : LAYOUT_OPTION_GROUPS) {
+                revision += config.getRevision(group);
+            }
+        }
+        final int width = getContextWidth();
+        final int height = getContextHeight();
+        final int metrics = getContext().getMetricsStamp();
+        if (myLayoutFingerprint == null || revision != myFingerprintRevision
+            || width != myFingerprintWidth || height != myFingerprintHeight || metrics != myFingerprintMetrics) {
+            final String fingerprint = getLayoutFingerprint();
+            // values read before the config service is connected are defaults,
+            // and connecting does not change the revisions
+            if (config != null && !config.isInitialized()) {
+                return fingerprint;
+            }
+            myLayoutFingerprint = fingerprint;
+            myFingerprintRevision = revision;
+            myFingerprintWidth = width;
+            myFingerprintHeight = height;
+            myFingerprintMetrics = metrics;
+        }
+        return myLayoutFingerprint;
+    }
+
+    /**
+     * Everything besides the text the page layout depends on; pages laid out
+     * with equal fingerprints are equal. Subclasses add their own options,
+     * see LAYOUT_OPTION_GROUPS.
+     */
+    protected String getLayoutFingerprint() {
+        final ZLTextStyleCollection collection = getTextStyleCollection();
+        final ZLTextBaseStyle base = collection.getBaseStyle();
+        return getTextColumnWidth() + "x" + getTextAreaHeight()
+            // stored layouts are not trusted across versions, the layout code may have changed
+            + "," + versionName()
+            + "," + Integer.toHexString(getContext().getMetricsStamp())
+            // the hyphenation patterns
+            + "," + (myModel != null ? myModel.getLanguage() : "")
+            + "," + Integer.toHexString(collection.getOptionsHash())
+            + (twoColumnView() ? ",2" : ",1")
+            + "," + base.FontFamilyOption.getValue()
+            + "," + base.FontSizeOption.getValue()
+            + "," + base.LineSpaceOption.getValue()
+            + "," + base.AlignmentOption.getValue()
+            + "," + base.BoldOption.getValue()
+            + "," + base.ItalicOption.getValue()
+            + "," + base.AutoHyphenationOption.getValue()
+            + "," + base.UseCSSTextAlignmentOption.getValue()
+            + "," + base.UseCSSMarginsOption.getValue()
+            + "," + base.UseCSSFontSizeOption.getValue()
+            + "," + base.UseCSSFontFamilyOption.getValue();
+    }
+
+    private static String ourVersionName;
+
+    private static String versionName() {
+        if (ourVersionName == null) {
+            final ZLibrary library = ZLibrary.Instance();
+            if (library == null) {
+                return "";
+            }
+            ourVersionName = library.getFullVersionName();
+        }
+        return ourVersionName;
+    }
+
     private boolean isHyphenationPossible() {
         return getTextStyleCollection().getBaseStyle().AutoHyphenationOption.getValue() && getTextStyle().allowHyphenations();
     }
 
-    private volatile ZLTextWord myCachedWord;
-    private volatile ZLTextHyphenationInfo myCachedInfo;
+    // keyed by the word text, word views are not kept between getElement() calls
+    private char[] myCachedData;
+    private int myCachedOffset;
+    private int myCachedLength;
+    private ZLTextHyphenationInfo myCachedInfo;
 
     private final synchronized ZLTextHyphenationInfo getHyphenationInfo(ZLTextWord word) {
-        if (myCachedWord != word) {
-            myCachedWord = word;
+        if (myCachedData != word.Data || myCachedOffset != word.Offset || myCachedLength != word.Length) {
+            myCachedData = word.Data;
+            myCachedOffset = word.Offset;
+            myCachedLength = word.Length;
             myCachedInfo = ZLTextHyphenator.Instance().getInfo(word);
         }
         return myCachedInfo;
@@ -979,19 +1287,21 @@ public abstract class ZLTextView extends ZLTextViewBase {
     private ZLTextLineInfo processTextLineInternal(ZLTextPage page, ZLTextParagraphCursor paragraphCursor, final int startIndex, final int startCharIndex, final int endIndex, ZLTextLineInfo previousInfo) {
         final ZLPaintContext context = getContext();
         final ZLTextLineInfo info = new ZLTextLineInfo(paragraphCursor, startIndex, startCharIndex, getTextStyle());
-        final ZLTextLineInfo cachedInfo = myLineInfoCache.get(info);
-        if (cachedInfo != null) {
-            cachedInfo.adjust(previousInfo);
-            applyStyleChanges(paragraphCursor, startIndex, cachedInfo.EndElementIndex);
-            return cachedInfo;
+        final boolean isFirstLine = startIndex == 0 && startCharIndex == 0;
+        final int paragraphIndex = paragraphCursor.Index;
+        if (!myLineCacheBypassed && myLineCache.get(paragraphIndex, info)) {
+            applyStyleChanges(paragraphCursor, startIndex, info.RealStartElementIndex);
+            info.StartStyle = getTextStyle();
+            applyStyleChanges(paragraphCursor, info.RealStartElementIndex, info.EndElementIndex);
+            finishLine(info, isFirstLine, previousInfo);
+            return info;
         }
 
         int currentElementIndex = startIndex;
         int currentCharIndex = startCharIndex;
-        final boolean isFirstLine = startIndex == 0 && startCharIndex == 0;
 
         if (isFirstLine) {
-            ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
+            ZLTextElement element = paragraphCursor.getStoredElement(currentElementIndex);
             while (isStyleChangeElement(element)) {
                 applyStyleChangeElement(element);
                 ++currentElementIndex;
@@ -999,7 +1309,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 if (currentElementIndex == endIndex) {
                     break;
                 }
-                element = paragraphCursor.getElement(currentElementIndex);
+                element = paragraphCursor.getStoredElement(currentElementIndex);
             }
             info.StartStyle = getTextStyle();
             info.RealStartElementIndex = currentElementIndex;
@@ -1035,10 +1345,19 @@ public abstract class ZLTextView extends ZLTextViewBase {
         boolean removeLastSpace = false;
 
         do {
-            ZLTextElement element = paragraphCursor.getElement(currentElementIndex);
-            newWidth += getElementWidth(element, currentCharIndex);
-            newHeight = Math.max(newHeight, getElementHeight(element));
-            newDescent = Math.max(newDescent, getElementDescent(element));
+            // plain words are measured by index, the loop creates no word views
+            final boolean plainWord = paragraphCursor.isPlainWord(currentElementIndex);
+            final ZLTextElement element = plainWord ? null : paragraphCursor.getElement(currentElementIndex);
+            final boolean isWord = plainWord || element instanceof ZLTextWord;
+            if (plainWord) {
+                newWidth += getPlainWordWidth(paragraphCursor, currentElementIndex, currentCharIndex);
+                newHeight = Math.max(newHeight, getWordHeight());
+                newDescent = Math.max(newDescent, context.getDescent());
+            } else {
+                newWidth += getElementWidth(element, currentCharIndex);
+                newHeight = Math.max(newHeight, getElementHeight(element));
+                newDescent = Math.max(newDescent, getElementDescent(element));
+            }
             if (element == ZLTextElement.HSpace) {
                 if (wordOccurred) {
                     wordOccurred = false;
@@ -1048,7 +1367,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 }
             } else if (element == ZLTextElement.NBSpace) {
                 wordOccurred = true;
-            } else if (element instanceof ZLTextWord) {
+            } else if (isWord) {
                 wordOccurred = true;
                 isVisible = true;
             } else if (element instanceof ZLTextImageElement) {
@@ -1061,21 +1380,21 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 applyStyleChangeElement(element);
             }
             if (newWidth > maxWidth) {
-                if (info.EndElementIndex != startIndex || element instanceof ZLTextWord) {
+                if (info.EndElementIndex != startIndex || isWord) {
                     break;
                 }
             }
-            ZLTextElement previousElement = element;
             ++currentElementIndex;
             currentCharIndex = 0;
             boolean allowBreak = currentElementIndex == endIndex;
             if (!allowBreak) {
-                element = paragraphCursor.getElement(currentElementIndex);
-                allowBreak = previousElement != ZLTextElement.NBSpace &&
-                        element != ZLTextElement.NBSpace &&
-                        (!(element instanceof ZLTextWord) || previousElement instanceof ZLTextWord) &&
-                        !(element instanceof ZLTextImageElement) &&
-                        !(element instanceof ZLTextControlElement);
+                final ZLTextElement next = paragraphCursor.getStoredElement(currentElementIndex);
+                final boolean nextIsWord = next == null || next instanceof ZLTextWord;
+                allowBreak = element != ZLTextElement.NBSpace &&
+                        next != ZLTextElement.NBSpace &&
+                        (!nextIsWord || isWord) &&
+                        !(next instanceof ZLTextImageElement) &&
+                        !(next instanceof ZLTextControlElement);
             }
             if (allowBreak) {
                 info.IsVisible = isVisible;
@@ -1165,6 +1484,15 @@ public abstract class ZLTextView extends ZLTextViewBase {
 
         setTextStyle(storedStyle);
 
+        if (!myLineCacheBypassed && (info.EndElementIndex != endIndex || endIndex == info.ParagraphCursorLength)) {
+            myLineCache.put(paragraphIndex, info);
+        }
+        finishLine(info, isFirstLine, previousInfo);
+        return info;
+    }
+
+    // the part of the line layout that depends on the previous line
+    private void finishLine(ZLTextLineInfo info, boolean isFirstLine, ZLTextLineInfo previousInfo) {
         if (isFirstLine) {
             info.VSpaceBefore = info.StartStyle.getSpaceBefore(metrics());
             if (previousInfo != null) {
@@ -1178,12 +1506,6 @@ public abstract class ZLTextView extends ZLTextViewBase {
         if (info.isEndOfParagraph()) {
             info.VSpaceAfter = getTextStyle().getSpaceAfter(metrics());
         }
-
-        if (info.EndElementIndex != endIndex || endIndex == info.ParagraphCursorLength) {
-            myLineInfoCache.put(info, info);
-        }
-
-        return info;
     }
 
     private void prepareTextLine(ZLTextPage page, ZLTextLineInfo info, int x, int y, int columnIndex) {
@@ -1209,7 +1531,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 x += (maxWidth - getTextStyle().getRightIndent(metrics()) - info.Width) / 2;
                 break;
             case ZLTextAlignmentType.ALIGN_JUSTIFY:
-                if (!endOfParagraph && (paragraphCursor.getElement(info.EndElementIndex) != ZLTextElement.AfterParagraph)) {
+                if (!endOfParagraph && (paragraphCursor.getStoredElement(info.EndElementIndex) != ZLTextElement.AfterParagraph)) {
                     fullCorrection = maxWidth - getTextStyle().getRightIndent(metrics()) - info.Width;
                 }
                 break;
@@ -1339,10 +1661,7 @@ public abstract class ZLTextView extends ZLTextViewBase {
         }
         final int oldState = page.PaintState;
 
-        final HashMap<ZLTextLineInfo, ZLTextLineInfo> cache = myLineInfoCache;
-        for (ZLTextLineInfo info : page.LineInfos) {
-            cache.put(info, info);
-        }
+        useLineCache();
 
         switch (page.PaintState) {
             default:
@@ -1436,8 +1755,6 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 break;
         }
         page.PaintState = PaintStateEnum.READY;
-        // TODO: cache?
-        myLineInfoCache.clear();
 
         if (page == myCurrentPage) {
             if (oldState != PaintStateEnum.START_IS_KNOWN) {
@@ -1447,10 +1764,35 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 myNextPage.reset();
             }
         }
+        pinVisibleParagraphs();
+    }
+
+    // keeps the text blocks of the current page and its neighbours in the model cache
+    private void pinVisibleParagraphs() {
+        if (myModel == null || myCurrentPage.StartCursor.isNull()) {
+            return;
+        }
+        int start = myCurrentPage.StartCursor.getParagraphIndex();
+        int end = myCurrentPage.EndCursor.isNull() ? start : myCurrentPage.EndCursor.getParagraphIndex();
+        if (!myPreviousPage.StartCursor.isNull()) {
+            start = Math.min(start, myPreviousPage.StartCursor.getParagraphIndex());
+        }
+        if (!myNextPage.EndCursor.isNull()) {
+            end = Math.max(end, myNextPage.EndCursor.getParagraphIndex());
+        }
+        myModel.pinParagraphs(start, end);
     }
 
     public void clearCaches() {
         resetMetrics();
+        // style or page options changed, the layout is to be recomputed
+        synchronized (this) {
+            clearStyleCache();
+            myLineCache.invalidate();
+            if (myPaginator != null) {
+                myPaginator.reset();
+            }
+        }
         rebuildPaintInfo();
         Application.getViewWidget().reset();
         myCharWidth = -1;
@@ -1475,8 +1817,6 @@ public abstract class ZLTextView extends ZLTextViewBase {
                 myCurrentPage.PaintState = PaintStateEnum.END_IS_KNOWN;
             }
         }
-
-        myLineInfoCache.clear();
     }
 
     private int infoSize(ZLTextLineInfo info, int unit) {
@@ -28,9 +28,8 @@ import org.geometerplus.zlibrary.core.util.ZLColor;
 import org.geometerplus.zlibrary.core.view.ZLPaintContext;
 import org.geometerplus.zlibrary.core.view.ZLView;
 import org.geometerplus.zlibrary.text.model.ZLTextMetrics;
-import org.geometerplus.zlibrary.text.view.style.ZLTextExplicitlyDecoratedStyle;
-import org.geometerplus.zlibrary.text.view.style.ZLTextNGStyle;
 import org.geometerplus.zlibrary.text.view.style.ZLTextNGStyleDescription;
+import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCache;
 import org.geometerplus.zlibrary.text.view.style.ZLTextStyleCollection;
 
 abstract class ZLTextViewBase extends ZLView {
@@ -42,6 +41,8 @@ abstract class ZLTextViewBase extends ZLView {
     }
 
     private ZLTextStyle myTextStyle;
+    // decorated styles shared between paragraphs, see applyStyle()
+    private final ZLTextStyleCache myStyleCache = new ZLTextStyleCache();
     private int myWordHeight = -1;
     private ZLTextMetrics myMetrics;
 
@@ -155,6 +156,10 @@ abstract class ZLTextViewBase extends ZLView {
         setTextStyle(getTextStyleCollection().getBaseStyle());
     }
 
+    final void clearStyleCache() {
+        myStyleCache.clear();
+    }
+
     boolean isStyleChangeElement(ZLTextElement element) {
         return element == ZLTextElement.StyleClose ||
                element instanceof ZLTextStyleElement ||
@@ -173,7 +178,8 @@ abstract class ZLTextViewBase extends ZLView {
 
     void applyStyleChanges(ZLTextParagraphCursor cursor, int index, int end) {
         for (; index != end; ++index) {
-            applyStyleChangeElement(cursor.getElement(index));
+            // plain words change no style
+            applyStyleChangeElement(cursor.getStoredElement(index));
         }
     }
 
@@ -182,7 +188,7 @@ abstract class ZLTextViewBase extends ZLView {
             final ZLTextHyperlink hyperlink = control instanceof ZLTextHyperlinkControlElement ? ((ZLTextHyperlinkControlElement)control).Hyperlink : null;
             final ZLTextNGStyleDescription description = getTextStyleCollection().getDescription(control.Kind);
             if (description != null) {
-                setTextStyle(new ZLTextNGStyle(myTextStyle, description, hyperlink));
+                setTextStyle(myStyleCache.decorate(myTextStyle, description, hyperlink));
             }
         }else {
             setTextStyle(myTextStyle.Parent);
@@ -190,7 +196,7 @@ abstract class ZLTextViewBase extends ZLView {
     }
 
     private void applyStyle(ZLTextStyleElement element) {
-        setTextStyle(new ZLTextExplicitlyDecoratedStyle(myTextStyle, element.Entry));
+        setTextStyle(myStyleCache.decorate(myTextStyle, element.Entry));
     }
 
     private void applyStyleClose() {
@@ -251,6 +257,19 @@ abstract class ZLTextViewBase extends ZLView {
         return start == 0 ? word.getWidth(getContext()) : getContext().getStringWidth(word.Data, word.Offset + start, word.Length - start);
     }
 
+    // same as getWordWidth(word, start) for the plain word at the index, without the word view
+    final int getPlainWordWidth(ZLTextParagraphCursor cursor, int index, int start) {
+        if (start == 0) {
+            int width = cursor.getWordWidth(index);
+            if (width <= 1) {
+                width = getContext().getStringWidth(cursor.getWordData(index), cursor.getWordOffset(index), cursor.getWordLength(index));
+                cursor.setWordWidth(index, width);
+            }
+            return width;
+        }
+        return getContext().getStringWidth(cursor.getWordData(index), cursor.getWordOffset(index) + start, cursor.getWordLength(index) - start);
+    }
+
     final int getWordWidth(ZLTextWord word, int start, int length) {
         return getContext().getStringWidth(word.Data, word.Offset + start, length);
     }
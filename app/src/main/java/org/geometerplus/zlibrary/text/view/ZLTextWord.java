@@ -29,6 +29,10 @@ public final class ZLTextWord extends ZLTextElement {
     private int myWidth = -1;
     private Mark myMark;
     private int myParagraphOffset;
+    // set for the views over the compact word storage of a paragraph cursor;
+    // the width is then cached in the cursor and the word has no marks
+    private final ZLTextParagraphCursor myCursor;
+    private final int myElementIndex;
 
     class Mark {
 
@@ -56,10 +60,20 @@ public final class ZLTextWord extends ZLTextElement {
     }
 
     ZLTextWord(char[] data, int offset, int length, int paragraphOffset) {
+        this(null, -1, data, offset, length, paragraphOffset);
+    }
+
+    ZLTextWord(ZLTextParagraphCursor cursor, int elementIndex, char[] data, int offset, int length, int paragraphOffset) {
         Data = data;
         Offset = offset;
         Length = length;
         myParagraphOffset = paragraphOffset;
+        myCursor = cursor;
+        myElementIndex = elementIndex;
+    }
+
+    int getElementIndex() {
+        return myElementIndex;
     }
 
     public boolean isASpace() {
@@ -95,10 +109,14 @@ public final class ZLTextWord extends ZLTextElement {
     }
 
     public int getWidth(ZLPaintContext context) {
-        int width = myWidth;
+        int width = myCursor != null ? myCursor.getWordWidth(myElementIndex) : myWidth;
         if (width <= 1) {
             width = context.getStringWidth(Data, Offset, Length);
-            myWidth = width;
+            if (myCursor != null) {
+                myCursor.setWordWidth(myElementIndex, width);
+            }else {
+                myWidth = width;
+            }
         }
         return width;
     }
@@ -40,7 +40,7 @@ public class ZLTextNGStyle extends ZLTextDecoratedStyle {
     @Override
     protected List<FontEntry> getFontEntriesInternal() {
         final List<FontEntry> parentEntries = Parent.getFontEntries();
-        final String decoratedValue = myDescription.FontFamilyOption.getValue();
+        final String decoratedValue = myDescription.getFontFamily();
         if ("".equals(decoratedValue)) {
             return parentEntries;
         }
@@ -134,11 +134,8 @@ public class ZLTextNGStyle extends ZLTextDecoratedStyle {
 
     @Override
     protected int getLineSpacePercentInternal() {
-        final String lineHeight = myDescription.LineHeightOption.getValue();
-        if (!lineHeight.matches("[1-9][0-9]*%")) {
-            return Parent.getLineSpacePercent();
-        }
-        return Integer.valueOf(lineHeight.substring(0, lineHeight.length() - 1));
+        final int percent = myDescription.getLineSpacePercent();
+        return percent != -1 ? percent : Parent.getLineSpacePercent();
     }
 
     @Override
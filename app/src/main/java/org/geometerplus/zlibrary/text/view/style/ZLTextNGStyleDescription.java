@@ -20,16 +20,20 @@
 package org.geometerplus.zlibrary.text.view.style;
 
 import org.fbreader.util.Boolean3;
+import org.geometerplus.zlibrary.core.options.Config;
 import org.geometerplus.zlibrary.core.options.ZLStringOption;
 import org.geometerplus.zlibrary.text.model.ZLTextAlignmentType;
 import org.geometerplus.zlibrary.text.model.ZLTextMetrics;
 import org.geometerplus.zlibrary.text.model.ZLTextStyleEntry;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ZLTextNGStyleDescription {
 
+    // the option group of all the descriptions; snapshots follow its revision
+    static final String GROUP = "Style";
+
     public final String Name;
 
     public final ZLStringOption FontFamilyOption;
@@ -48,7 +52,7 @@ public class ZLTextNGStyleDescription {
     public final ZLStringOption LineHeightOption;
 
     private static ZLStringOption createOption(String selector, String name, Map<String, String> valueMap) {
-        return new ZLStringOption("Style", selector + "::" + name, valueMap.get(name));
+        return new ZLStringOption(GROUP, selector + "::" + name, valueMap.get(name));
     }
 
     ZLTextNGStyleDescription(String selector, Map<String, String> valueMap) {
@@ -70,8 +74,92 @@ public class ZLTextNGStyleDescription {
         LineHeightOption = createOption(selector, "line-height", valueMap);
     }
 
+    // option values parsed into the form the style getters need; replaced as a whole
+    // when any option changes, so a reader always sees a consistent set of values
+    private static final class Compiled {
+
+        final int Revision;
+
+        final String FontFamily;
+        final ZLTextStyleEntry.Length FontSize;
+        final ZLTextStyleEntry.Length VerticalAlign;
+        final ZLTextStyleEntry.Length MarginLeft;
+        final ZLTextStyleEntry.Length MarginRight;
+        final ZLTextStyleEntry.Length TextIndent;
+        final ZLTextStyleEntry.Length MarginTop;
+        final ZLTextStyleEntry.Length MarginBottom;
+        final int LineSpacePercent;
+        final Boolean3 Bold;
+        final Boolean3 Italic;
+        final Boolean3 Underlined;
+        final Boolean3 StrikedThrough;
+        final Boolean3 AllowHyphenations;
+        final byte Alignment;
+        // of all the raw option values, see ZLTextStyleCollection.getOptionsHash()
+        final int OptionsHash;
+
+        Compiled(ZLTextNGStyleDescription description, int revision) {
+            Revision = revision;
+
+            FontFamily = description.FontFamilyOption.getValue();
+            FontSize = parseLength(description.FontSizeOption.getValue());
+            VerticalAlign = parseLength(description.VerticalAlignOption.getValue());
+            MarginLeft = parseLength(description.MarginLeftOption.getValue());
+            MarginRight = parseLength(description.MarginRightOption.getValue());
+            TextIndent = parseLength(description.TextIndentOption.getValue());
+            MarginTop = parseLength(description.MarginTopOption.getValue());
+            MarginBottom = parseLength(description.MarginBottomOption.getValue());
+            LineSpacePercent = parseLineHeight(description.LineHeightOption.getValue());
+            Bold = parseFontWeight(description.FontWeightOption.getValue());
+            Italic = parseFontStyle(description.FontStyleOption.getValue());
+            final String textDecoration = description.TextDecorationOption.getValue();
+            Underlined = parseTextDecoration(textDecoration, "underline");
+            StrikedThrough = parseTextDecoration(textDecoration, "line-through");
+            AllowHyphenations = parseHyphens(description.HyphenationOption.getValue());
+            Alignment = parseAlignment(description.AlignmentOption.getValue());
+
+            int hash = 0;
+            for (ZLStringOption option : new ZLStringOption[] {
+                description.FontFamilyOption, description.FontSizeOption, description.FontWeightOption,
+                description.FontStyleOption, description.TextDecorationOption, description.HyphenationOption,
+                description.MarginTopOption, description.MarginBottomOption, description.MarginLeftOption,
+                description.MarginRightOption, description.TextIndentOption, description.AlignmentOption,
+                description.VerticalAlignOption, description.LineHeightOption
+            }) {
+                final String value = option.getValue();
+                hash = 31 * hash + (value != null ? value.hashCode() : 0);
+            }
+            OptionsHash = hash;
+        }
+    }
+
+    private volatile Compiled myCompiled;
+
+    private Compiled compiled() {
+        final Config config = Config.Instance();
+        final int revision = config != null ? config.getRevision(GROUP) : 0;
+        Compiled compiled = myCompiled;
+        if (compiled == null || compiled.Revision != revision) {
+            compiled = new Compiled(this, revision);
+            // values read before the config service is connected are defaults,
+            // and connecting does not change the revision
+            if (config == null || config.isInitialized()) {
+                myCompiled = compiled;
+            }
+        }
+        return compiled;
+    }
+
+    int getOptionsHash() {
+        return compiled().OptionsHash;
+    }
+
+    String getFontFamily() {
+        return compiled().FontFamily;
+    }
+
     int getFontSize(ZLTextMetrics metrics, int parentFontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(FontSizeOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().FontSize;
         if (length == null) {
             return parentFontSize;
         }
@@ -79,7 +167,7 @@ public class ZLTextNGStyleDescription {
     }
 
     int getVerticalAlign(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(VerticalAlignOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().VerticalAlign;
         if (length == null) {
             return base;
         }
@@ -89,12 +177,12 @@ public class ZLTextNGStyleDescription {
     }
 
     boolean hasNonZeroVerticalAlign() {
-        final ZLTextStyleEntry.Length length = parseLength(VerticalAlignOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().VerticalAlign;
         return length != null && length.Size != 0;
     }
 
     int getLeftMargin(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(MarginLeftOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().MarginLeft;
         if (length == null) {
             return base;
         }
@@ -102,7 +190,7 @@ public class ZLTextNGStyleDescription {
     }
 
     int getRightMargin(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(MarginRightOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().MarginRight;
         if (length == null) {
             return base;
         }
@@ -118,7 +206,7 @@ public class ZLTextNGStyleDescription {
     }
 
     int getFirstLineIndent(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(TextIndentOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().TextIndent;
         if (length == null) {
             return base;
         }
@@ -126,7 +214,7 @@ public class ZLTextNGStyleDescription {
     }
 
     int getSpaceBefore(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(MarginTopOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().MarginTop;
         if (length == null) {
             return base;
         }
@@ -134,15 +222,54 @@ public class ZLTextNGStyleDescription {
     }
 
     int getSpaceAfter(ZLTextMetrics metrics, int base, int fontSize) {
-        final ZLTextStyleEntry.Length length = parseLength(MarginBottomOption.getValue());
+        final ZLTextStyleEntry.Length length = compiled().MarginBottom;
         if (length == null) {
             return base;
         }
         return ZLTextStyleEntry.compute(length, metrics, fontSize, ZLTextStyleEntry.Feature.LENGTH_SPACE_AFTER);
     }
 
+    // -1 if the line height is not defined
+    int getLineSpacePercent() {
+        return compiled().LineSpacePercent;
+    }
+
     Boolean3 isBold() {
-        final String fontWeight = FontWeightOption.getValue();
+        return compiled().Bold;
+    }
+
+    Boolean3 isItalic() {
+        return compiled().Italic;
+    }
+
+    Boolean3 isUnderlined() {
+        return compiled().Underlined;
+    }
+
+    Boolean3 isStrikedThrough() {
+        return compiled().StrikedThrough;
+    }
+
+    byte getAlignment() {
+        return compiled().Alignment;
+    }
+
+    Boolean3 allowHyphenations() {
+        return compiled().AllowHyphenations;
+    }
+
+    private static int parseLineHeight(String lineHeight) {
+        if (!lineHeight.matches("[1-9][0-9]*%")) {
+            return -1;
+        }
+        try {
+            return Integer.valueOf(lineHeight.substring(0, lineHeight.length() - 1));
+        }catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Boolean3 parseFontWeight(String fontWeight) {
         if ("bold".equals(fontWeight)) {
             return Boolean3.TRUE;
         }else if ("normal".equals(fontWeight)) {
@@ -152,8 +279,7 @@ public class ZLTextNGStyleDescription {
         }
     }
 
-    Boolean3 isItalic() {
-        final String fontStyle = FontStyleOption.getValue();
+    private static Boolean3 parseFontStyle(String fontStyle) {
         if ("italic".equals(fontStyle) || "oblique".equals(fontStyle)) {
             return Boolean3.TRUE;
         }else if ("normal".equals(fontStyle)) {
@@ -163,20 +289,8 @@ public class ZLTextNGStyleDescription {
         }
     }
 
-    Boolean3 isUnderlined() {
-        final String textDecoration = TextDecorationOption.getValue();
-        if ("underline".equals(textDecoration)) {
-            return Boolean3.TRUE;
-        }else if ("".equals(textDecoration) || "inherit".equals(textDecoration)) {
-            return Boolean3.UNDEFINED;
-        }else {
-            return Boolean3.FALSE;
-        }
-    }
-
-    Boolean3 isStrikedThrough() {
-        final String textDecoration = TextDecorationOption.getValue();
-        if ("line-through".equals(textDecoration)) {
+    private static Boolean3 parseTextDecoration(String textDecoration, String decoration) {
+        if (decoration.equals(textDecoration)) {
             return Boolean3.TRUE;
         }else if ("".equals(textDecoration) || "inherit".equals(textDecoration)) {
             return Boolean3.UNDEFINED;
@@ -185,8 +299,7 @@ public class ZLTextNGStyleDescription {
         }
     }
 
-    byte getAlignment() {
-        final String alignment = AlignmentOption.getValue();
+    private static byte parseAlignment(String alignment) {
         if (alignment.length() == 0) {
             return ZLTextAlignmentType.ALIGN_UNDEFINED;
         }else if ("center".equals(alignment)) {
@@ -202,8 +315,7 @@ public class ZLTextNGStyleDescription {
         }
     }
 
-    Boolean3 allowHyphenations() {
-        final String hyphen = HyphenationOption.getValue();
+    private static Boolean3 parseHyphens(String hyphen) {
         if ("auto".equals(hyphen)) {
             return Boolean3.TRUE;
         }else if ("none".equals(hyphen)) {
@@ -213,7 +325,9 @@ public class ZLTextNGStyleDescription {
         }
     }
 
-    private static final Map<String, Object> ourCache = new HashMap<String, Object>();
+    // snapshots may be compiled on several threads; lengths are immutable,
+    // a value parsed twice at the same time is harmless
+    private static final ConcurrentHashMap<String, Object> ourCache = new ConcurrentHashMap<String, Object>();
     private static final Object ourNullObject = new Object();
 
     private static ZLTextStyleEntry.Length parseLength(String value) {
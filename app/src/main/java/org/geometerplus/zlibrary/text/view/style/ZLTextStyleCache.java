@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.view.style;
+
+import org.geometerplus.zlibrary.core.options.Config;
+import org.geometerplus.zlibrary.text.model.ZLTextStyleEntry;
+import org.geometerplus.zlibrary.text.view.ZLTextHyperlink;
+import org.geometerplus.zlibrary.text.view.ZLTextStyle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares decorated styles between equal style chains. The same (parent, entry)
+ * pairs occur in almost every paragraph; a shared style computes its font, sizes
+ * and margins once instead of once per style element. Styles depend on the style
+ * options, so the table is dropped when an option of the style group changes.
+ * The paginator and the page prerendering lay out on their own threads, so the
+ * table is guarded by the cache itself.
+ */
+public final class ZLTextStyleCache {
+
+    private static final int MAX_STYLES = 1024;
+
+    private static final class Key {
+
+        final ZLTextStyle Parent;
+        // ZLTextStyleEntry, compared by value, or ZLTextNGStyleDescription
+        final Object Decoration;
+
+        Key(ZLTextStyle parent, Object decoration) {
+            Parent = parent;
+            Decoration = decoration;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)o;
+            return Parent == other.Parent && Decoration.equals(other.Decoration);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Parent) * 31 + Decoration.hashCode();
+        }
+    }
+
+    private final LinkedHashMap<Key, ZLTextDecoratedStyle> myStyles =
+        new LinkedHashMap<Key, ZLTextDecoratedStyle>(MAX_STYLES, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ZLTextDecoratedStyle> eldest) {
+                return size() > MAX_STYLES;
+            }
+        };
+    private int myRevision;
+
+    private int myHits;
+    private int myMisses;
+
+    public synchronized ZLTextStyle decorate(ZLTextStyle parent, ZLTextStyleEntry entry) {
+        // styles inside a hyperlink refer to the hyperlink element itself
+        if (parent.Hyperlink != ZLTextHyperlink.NO_LINK) {
+            return new ZLTextExplicitlyDecoratedStyle(parent, entry);
+        }
+        final Key key = new Key(parent, entry);
+        ZLTextDecoratedStyle style = lookup(key);
+        if (style == null) {
+            style = new ZLTextExplicitlyDecoratedStyle(parent, entry);
+            myStyles.put(key, style);
+        }
+        return style;
+    }
+
+    public synchronized ZLTextStyle decorate(ZLTextStyle parent, ZLTextNGStyleDescription description, ZLTextHyperlink hyperlink) {
+        if (hyperlink != null || parent.Hyperlink != ZLTextHyperlink.NO_LINK) {
+            return new ZLTextNGStyle(parent, description, hyperlink);
+        }
+        final Key key = new Key(parent, description);
+        ZLTextDecoratedStyle style = lookup(key);
+        if (style == null) {
+            style = new ZLTextNGStyle(parent, description, null);
+            myStyles.put(key, style);
+        }
+        return style;
+    }
+
+    private ZLTextDecoratedStyle lookup(Key key) {
+        final Config config = Config.Instance();
+        final int revision = config != null ? config.getRevision(ZLTextNGStyleDescription.GROUP) : 0;
+        if (revision != myRevision) {
+            myRevision = revision;
+            myStyles.clear();
+        }
+        final ZLTextDecoratedStyle style = myStyles.get(key);
+        if (style != null) {
+            ++myHits;
+        }else {
+            ++myMisses;
+        }
+        return style;
+    }
+
+    // to be called when something the styles depend on, other than options, changes
+    public synchronized void clear() {
+        myStyles.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ZLTextStyleCache[" + myStyles.size() + " styles, " + myHits + " hits, " + myMisses + " misses]";
+    }
+}
@@ -54,6 +54,15 @@ public class ZLTextStyleCollection {
         return myDescriptionList;
     }
 
+    // changes with any option of any style description, for layout fingerprints
+    public int getOptionsHash() {
+        int hash = 0;
+        for (ZLTextNGStyleDescription description : myDescriptionList) {
+            hash = 31 * hash + description.getOptionsHash();
+        }
+        return hash;
+    }
+
     public ZLTextNGStyleDescription getDescription(byte kind) {
         return myDescriptionMap[kind & 0xFF];
     }
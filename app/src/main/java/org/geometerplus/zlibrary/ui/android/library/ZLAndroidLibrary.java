@@ -58,6 +58,8 @@ public final class ZLAndroidLibrary extends ZLibrary {
     public final ZLIntegerRangeOption BatteryLevelToTurnScreenOffOption = new ZLIntegerRangeOption("LookNFeel", "BatteryLevelToTurnScreenOff", 0, 100, 50); //y 电池电量
     //    public final ZLBooleanOption DontTurnScreenOffDuringChargingOption = new ZLBooleanOption("LookNFeel", "DontTurnScreenOffDuringCharging", true); // 屏幕方向
     public final ZLIntegerRangeOption ScreenBrightnessLevelOption = new ZLIntegerRangeOption("LookNFeel", "ScreenBrightnessLevel", 0, 100, 0); // 屏幕亮度
+    // page bitmaps kept by the view widget, see BitmapManagerImpl
+    public final ZLIntegerRangeOption PageBitmapsNumberOption = new ZLIntegerRangeOption("LookNFeel", "PageBitmapsNumber", 3, 6, 4);
 
     private final Application myApplication;
 
@@ -39,6 +39,7 @@ public final class AndroidFontUtil {
     private static volatile Map<String, String[]> ourFontAssetMap;
     private static volatile Map<String, File[]> ourFontFileMap;
     private static volatile Set<File> ourFileSet;
+    private static volatile int ourFileSetHash;
     private static volatile long ourTimeStamp;
 
     private static Map<String, String[]> getFontAssetMap() {
@@ -80,6 +81,11 @@ public final class AndroidFontUtil {
                 }
             }
             if (!fileSet.equals(ourFileSet)) {
+                int hash = 0;
+                for (File file : fileSet) {
+                    hash += file.hashCode() ^ (int)file.length() ^ (int)file.lastModified();
+                }
+                ourFileSetHash = hash;
                 ourFileSet = fileSet;
                 ourFontFileMap = new ZLTTFInfoDetector().collectFonts(fileSet);
             }
@@ -87,6 +93,11 @@ public final class AndroidFontUtil {
         return ourFontFileMap;
     }
 
+    // changes when the external font files are rescanned and differ, for layout fingerprints
+    public static int fontFilesHash() {
+        return ourFileSetHash;
+    }
+
     public static String realFontFamilyName(String fontFamily) {
         for (String name : getFontAssetMap().keySet()) {
             if (name.equalsIgnoreCase(fontFamily)) {
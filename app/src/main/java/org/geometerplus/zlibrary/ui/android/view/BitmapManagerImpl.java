@@ -31,9 +31,19 @@ import org.geometerplus.zlibrary.ui.android.view.animation.BitmapManager;
 
 
 public final class BitmapManagerImpl implements BitmapManager {
-    private final int SIZE = 2;
-    private final Bitmap[] myBitmaps = new Bitmap[SIZE];
-    private final ZLView.PageIndex[] myIndexes = new ZLView.PageIndex[SIZE];
+    // the current page, its neighbours and spare bitmaps for background rendering;
+    // a spare lets the renderer draw a page without touching the ones on the screen
+    public static final int MIN_SIZE = 3;
+
+    private final int SIZE;
+    private final Bitmap[] myBitmaps;
+    private final ZLView.PageIndex[] myIndexes;
+    // the slot is being drawn into, its index is the page being drawn
+    private final boolean[] myRendering;
+    private final long[] myLastUse;
+    private long myUseCounter;
+    // changed on every shift/reset/resize and on resetNeighbours(), a page rendered before the change is stale
+    private int myGeneration;
 
     private int myWidth;
     private int myHeight;
@@ -41,17 +51,67 @@ public final class BitmapManagerImpl implements BitmapManager {
     private final SystemInfo mySystemInfo;
     private ZLAndroidWidget myWidget;
 
-    public BitmapManagerImpl(ZLAndroidWidget widget, Context context) {
+    // frames of the page turn animation and the frames missed between them
+    private static final long FRAME_NANOS = 1000000000L / 60;
+    private long myLastFrameTime;
+    private long myFrames;
+    private long myDroppedFrames;
+    private long myHits;
+    private long myMisses;
+    private long myMissesDuringAnimation;
+    private long myBackgroundRenders;
+    private long myDiscardedRenders;
+
+    public static final class Statistics {
+
+        public final int Size;
+        public final long Frames;
+        public final long DroppedFrames;
+        public final long Hits;
+        // pages drawn on the UI thread, during an animation and in total
+        public final long Misses;
+        public final long MissesDuringAnimation;
+        public final long BackgroundRenders;
+        public final long DiscardedRenders;
+
+        Statistics(int size, long frames, long droppedFrames, long hits, long misses, long missesDuringAnimation, long backgroundRenders, long discardedRenders) {
+            Size = size;
+            Frames = frames;
+            DroppedFrames = droppedFrames;
+            Hits = hits;
+            Misses = misses;
+            MissesDuringAnimation = missesDuringAnimation;
+            BackgroundRenders = backgroundRenders;
+            DiscardedRenders = discardedRenders;
+        }
+
+        public String toString() {
+            return "bitmaps = " + Size + ", frames = " + Frames + ", dropped = " + DroppedFrames
+                + ", hits = " + Hits + ", misses = " + Misses + " (" + MissesDuringAnimation + " animated)"
+                + ", background = " + BackgroundRenders + ", discarded = " + DiscardedRenders;
+        }
+    }
+
+    public BitmapManagerImpl(ZLAndroidWidget widget, Context context, int size) {
         this.myWidget = widget;
         mySystemInfo = Paths.systemInfo(context); // 缓存相关
+        SIZE = Math.max(size, MIN_SIZE);
+        myBitmaps = new Bitmap[SIZE];
+        myIndexes = new ZLView.PageIndex[SIZE];
+        myRendering = new boolean[SIZE];
+        myLastUse = new long[SIZE];
     }
 
-    public void setSize(int w, int h) {
+    public synchronized void setSize(int w, int h) {
         if (myWidth != w || myHeight != h) {
             myWidth = w;
             myHeight = h;
+            ++myGeneration;
             for (int i = 0; i < SIZE; ++i) {
-                myBitmaps[i] = null;
+                // a slot being drawn into gets a bitmap of the new size when it is published
+                if (!myRendering[i]) {
+                    myBitmaps[i] = null;
+                }
                 myIndexes[i] = null;
             }
             System.gc();
@@ -61,82 +121,201 @@ public final class BitmapManagerImpl implements BitmapManager {
     }
 
     public Bitmap getBitmap(ZLView.PageIndex index) {
-        for (int i = 0; i < SIZE; ++i) {
-            if (index == myIndexes[i]) {
-                return myBitmaps[i];
+        final int iIndex;
+        final int generation;
+        synchronized (this) {
+            int slot = findSlot(index);
+            while (slot == -1 && isBeingRendered(index)) {
+                // the renderer has already started on this page, drawing it again would take longer
+                try {
+                    wait();
+                }catch (InterruptedException e) {
+                    break;
+                }
+                slot = findSlot(index);
             }
-        }
-        final int iIndex = getInternalIndex(index);
-        myIndexes[iIndex] = index;
-        if (myBitmaps[iIndex] == null) {
-            try {
-                myBitmaps[iIndex] = Bitmap.createBitmap(myWidth, myHeight, Bitmap.Config.RGB_565);
-            } catch (OutOfMemoryError e) {
-                System.gc();
-                System.gc();
-                myBitmaps[iIndex] = Bitmap.createBitmap(myWidth, myHeight, Bitmap.Config.RGB_565);
+            if (slot != -1) {
+                ++myHits;
+                myLastUse[slot] = ++myUseCounter;
+                return myBitmaps[slot];
+            }
+            ++myMisses;
+            if (myLastFrameTime != 0) {
+                ++myMissesDuringAnimation;
             }
+            iIndex = getInternalIndex();
+            if (iIndex == -1) {
+                throw new RuntimeException("That's impossible");
+            }
+            myRendering[iIndex] = true;
+            myIndexes[iIndex] = index;
+            generation = myGeneration;
         }
+
+        final Bitmap bitmap = allocate(iIndex);
         // 在Bitmap上绘制,传入一张空白的bitmap,和当前的index
-        myWidget.drawOnBitmap(myBitmaps[iIndex], index);
-//        /**
-//         * 这个view是自定义类型的KooView
-//         */
-//        final ZLView view = ZLApplication.Instance().getCurrentView();
-//        final ZLAndroidPaintContext context = new ZLAndroidPaintContext(
-//                mySystemInfo,
-//                new Canvas(myBitmaps[iIndex]),
-//                new ZLAndroidPaintContext.Geometry(
-//                        ZLAndroidLibrary.Instance().getScreenWidth(),
-//                        ZLAndroidLibrary.Instance().getScreenHeight(),
-//                        ZLAndroidLibrary.Instance().getScreenWidth(),
-//                        ZLAndroidLibrary.Instance().getScreenHeight(),
-//                        0,
-//                        0
-//                ), 0);
-//        /**
-//         * 把ZLAndroidWigetPaintContext与Bitmap进行绑定
-//         * 向myBitmaps[index]上画bitmap
-//         * 在ZLAndroidWidget绘制文字等信息
-//         */
-//        view.paint(context, index);
-//        /**
-//         * 将绘制好的Bitmap返回
-//         */
-        return myBitmaps[iIndex];
+        myWidget.drawOnBitmap(bitmap, index);
+        publish(iIndex, bitmap, index, generation);
+        return bitmap;
+    }
+
+    /**
+     * Draws the page into a spare bitmap unless it is there already; to be called
+     * from ZLAndroidWidget.PrepareService. Runs under the view lock, so the page
+     * cannot move between the generation check and the drawing.
+     */
+    void prerender(ZLView view, ZLView.PageIndex index) {
+        synchronized (view) {
+            if (!view.canScroll(index)) {
+                return;
+            }
+            final int iIndex;
+            final int generation;
+            synchronized (this) {
+                if (myWidth <= 0 || myHeight <= 0 || findSlot(index) != -1 || isBeingRendered(index)) {
+                    return;
+                }
+                iIndex = getInternalIndex();
+                if (iIndex == -1) {
+                    return;
+                }
+                myRendering[iIndex] = true;
+                myIndexes[iIndex] = index;
+                generation = myGeneration;
+            }
+
+            final Bitmap bitmap = allocate(iIndex);
+            myWidget.drawOnBitmap(view, bitmap, index);
+            synchronized (this) {
+                if (generation == myGeneration) {
+                    ++myBackgroundRenders;
+                }else {
+                    ++myDiscardedRenders;
+                }
+            }
+            publish(iIndex, bitmap, index, generation);
+        }
+    }
+
+    private Bitmap allocate(int iIndex) {
+        final int width;
+        final int height;
+        synchronized (this) {
+            final Bitmap bitmap = myBitmaps[iIndex];
+            if (bitmap != null && bitmap.getWidth() == myWidth && bitmap.getHeight() == myHeight) {
+                return bitmap;
+            }
+            myBitmaps[iIndex] = null;
+            width = myWidth;
+            height = myHeight;
+        }
+        try {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        } catch (OutOfMemoryError e) {
+            System.gc();
+            System.gc();
+            return Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        }
+    }
+
+    private synchronized void publish(int iIndex, Bitmap bitmap, ZLView.PageIndex index, int generation) {
+        myRendering[iIndex] = false;
+        myBitmaps[iIndex] = bitmap;
+        if (generation == myGeneration) {
+            myIndexes[iIndex] = index;
+            myLastUse[iIndex] = ++myUseCounter;
+        }else {
+            myIndexes[iIndex] = null;
+        }
+        notifyAll();
     }
 
     public void drawBitmap(Canvas canvas, int x, int y, ZLView.PageIndex index, Paint paint) {
         canvas.drawBitmap(getBitmap(index), x, y, paint);
     }
 
-    private int getInternalIndex(ZLView.PageIndex index) {
+    private int findSlot(ZLView.PageIndex index) {
         for (int i = 0; i < SIZE; ++i) {
-            if (myIndexes[i] == null) {
+            if (index == myIndexes[i] && !myRendering[i]) {
                 return i;
             }
         }
+        return -1;
+    }
+
+    private boolean isBeingRendered(ZLView.PageIndex index) {
         for (int i = 0; i < SIZE; ++i) {
-            if (myIndexes[i] != ZLView.PageIndex.current) {
+            if (myRendering[i] && index == myIndexes[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // a free slot, or the least recently used one except the current page; -1 if there is none
+    private int getInternalIndex() {
+        int best = -1;
+        for (int i = 0; i < SIZE; ++i) {
+            if (myRendering[i]) {
+                continue;
+            }
+            if (myIndexes[i] == null) {
                 return i;
             }
+            if (myIndexes[i] != ZLView.PageIndex.current && (best == -1 || myLastUse[i] < myLastUse[best])) {
+                best = i;
+            }
         }
-        throw new RuntimeException("That's impossible");
+        return best;
     }
 
-    public void reset() {
+    public synchronized void reset() {
+        ++myGeneration;
         for (int i = 0; i < SIZE; ++i) {
             myIndexes[i] = null;
         }
     }
 
+    // drops the pages but the current one, e.g. when their footer is out of date
+    public synchronized void resetNeighbours() {
+        ++myGeneration;
+        for (int i = 0; i < SIZE; ++i) {
+            if (myIndexes[i] != ZLView.PageIndex.current) {
+                myIndexes[i] = null;
+            }
+        }
+    }
+
     @Override
-    public void shift(boolean forward) {
+    public synchronized void shift(boolean forward) {
+        ++myGeneration;
         for (int i = 0; i < SIZE; ++i) {
             if (myIndexes[i] == null) {
                 continue;
             }
-            myIndexes[i] = forward ? myIndexes[i].getPrevious() : myIndexes[i].getNext();
+            // a page being drawn now belongs to the previous position, nobody should wait for it
+            myIndexes[i] = myRendering[i] ? null : forward ? myIndexes[i].getPrevious() : myIndexes[i].getNext();
+        }
+    }
+
+    // to be called on every frame of a page turn animation
+    synchronized void onAnimationFrame() {
+        final long now = System.nanoTime();
+        if (myLastFrameTime != 0) {
+            final long missed = (now - myLastFrameTime + FRAME_NANOS / 2) / FRAME_NANOS - 1;
+            if (missed > 0) {
+                myDroppedFrames += missed;
+            }
         }
+        myLastFrameTime = now;
+        ++myFrames;
+    }
+
+    synchronized void onAnimationFinished() {
+        myLastFrameTime = 0;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(SIZE, myFrames, myDroppedFrames, myHits, myMisses, myMissesDuringAnimation, myBackgroundRenders, myDiscardedRenders);
     }
-}
\ No newline at end of file
+}
@@ -26,11 +26,14 @@ import org.geometerplus.zlibrary.core.image.ZLImageData;
 import org.geometerplus.zlibrary.core.options.ZLBooleanOption;
 import org.geometerplus.zlibrary.core.util.SystemInfo;
 import org.geometerplus.zlibrary.core.util.ZLColor;
+import org.geometerplus.zlibrary.core.view.ZLAdvanceCache;
 import org.geometerplus.zlibrary.core.view.ZLPaintContext;
 import org.geometerplus.zlibrary.ui.android.image.ZLAndroidImageData;
 import org.geometerplus.zlibrary.ui.android.util.ZLAndroidColorUtil;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class ZLAndroidPaintContext extends ZLPaintContext {
 
@@ -65,6 +68,56 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 
     private ZLColor myBackgroundColor = new ZLColor(0, 0, 0);
 
+    private static final class FontKey {
+
+        final Typeface Face;
+        final float TextSize;
+        final int Flags;
+
+        FontKey(Typeface typeface, float size, int flags) {
+            Face = typeface;
+            TextSize = size;
+            Flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof FontKey)) {
+                return false;
+            }
+            final FontKey key = (FontKey)other;
+            return Face == key.Face && TextSize == key.TextSize && Flags == key.Flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Face) + 31 * Float.floatToIntBits(TextSize) + 239 * Flags;
+        }
+    }
+
+    // paint flags changing the advance widths
+    private static final int MEASURE_FLAGS =
+        Paint.DEV_KERN_TEXT_FLAG | Paint.SUBPIXEL_TEXT_FLAG | Paint.LINEAR_TEXT_FLAG | Paint.FAKE_BOLD_TEXT_FLAG;
+    private static final int MAX_CACHED_FONTS = 32;
+    // kerning pairs and ligatures of the usual Latin fonts
+    private static final String KERNING_SAMPLES = "AVToTaWaLTYofifffl";
+
+    // contexts are created for every paint, the advances are kept for the process
+    private static final LinkedHashMap<FontKey, ZLAdvanceCache> ourAdvanceCaches =
+        new LinkedHashMap<FontKey, ZLAdvanceCache>(MAX_CACHED_FONTS, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FontKey, ZLAdvanceCache> eldest) {
+                return size() > MAX_CACHED_FONTS;
+            }
+        };
+
+    private ZLAdvanceCache myAdvances;
+    // text without soft hyphens
+    private char[] myCorrectedText = new char[64];
+
     public ZLAndroidPaintContext(SystemInfo systemInfo, Canvas canvas, Geometry geometry, int scrollbarWidth) {
         super(systemInfo);
 
@@ -94,6 +147,14 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
         myOutlinePaint.setMaskFilter(new EmbossMaskFilter(new float[]{1, 1, 1}, .4f, 6f, 3.5f));
     }
 
+    @Override
+    public int getMetricsStamp() {
+        // kerning and subpixel positioning change string widths, so do the external fonts
+        return (DeviceKerningOption.getValue() ? 1 : 0)
+            | (SubpixelOption.getValue() ? 2 : 0)
+            | (AndroidFontUtil.fontFilesHash() << 2);
+    }
+
     private static ZLFile ourWallpaperFile;
     private static Bitmap ourWallpaper;
     private static FillMode ourFillMode;
@@ -289,6 +350,56 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
         myTextPaint.setTextSize(size);
         myTextPaint.setUnderlineText(underline);
         myTextPaint.setStrikeThruText(strikeThrought);
+        myAdvances = advanceCache();
+    }
+
+    private ZLAdvanceCache advanceCache() {
+        final FontKey key = new FontKey(myTextPaint.getTypeface(), myTextPaint.getTextSize(), myTextPaint.getFlags() & MEASURE_FLAGS);
+        synchronized (ourAdvanceCaches) {
+            ZLAdvanceCache cache = ourAdvanceCaches.get(key);
+            if (cache == null) {
+                cache = new ZLAdvanceCache(isKerningSensitive());
+                ourAdvanceCaches.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    private boolean isKerningSensitive() {
+        for (int i = 0; i < KERNING_SAMPLES.length(); i += 2) {
+            final float pair = myTextPaint.measureText(KERNING_SAMPLES, i, i + 2);
+            final float sum = myTextPaint.measureText(KERNING_SAMPLES, i, i + 1) + myTextPaint.measureText(KERNING_SAMPLES, i + 1, i + 2);
+            if (Math.abs(pair - sum) > .25f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // copies the text without soft hyphens to myCorrectedText; returns -1 if there are no soft hyphens
+    private int removeSoftHyphens(char[] string, int offset, int length) {
+        int index = offset;
+        final int end = offset + length;
+        while (index < end && string[index] != (char)0xAD) {
+            ++index;
+        }
+        if (index == end) {
+            return -1;
+        }
+        char[] corrected = myCorrectedText;
+        if (corrected.length < length) {
+            corrected = new char[Math.max(length, 2 * corrected.length)];
+            myCorrectedText = corrected;
+        }
+        int len = index - offset;
+        System.arraycopy(string, offset, corrected, 0, len);
+        for (++index; index < end; ++index) {
+            final char chr = string[index];
+            if (chr != (char)0xAD) {
+                corrected[len++] = chr;
+            }
+        }
+        return len;
     }
 
     @Override
@@ -328,25 +439,35 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 
     @Override
     public int getStringWidth(char[] string, int offset, int length) {
-        boolean containsSoftHyphen = false;
-        for (int i = offset; i < offset + length; ++i) {
-            if (string[i] == (char)0xAD) {
-                containsSoftHyphen = true;
-                break;
+        final ZLAdvanceCache advances = myAdvances;
+        if (advances != null && !advances.KerningSensitive) {
+            float width = 0;
+            boolean cacheable = true;
+            for (int i = offset; i < offset + length; ++i) {
+                final char chr = string[i];
+                if (chr == (char)0xAD) {
+                    continue;
+                }
+                if (!ZLAdvanceCache.isCacheable(chr)) {
+                    cacheable = false;
+                    break;
+                }
+                float advance = advances.get(chr);
+                if (advance == 0) {
+                    advance = myTextPaint.measureText(string, i, 1);
+                    advances.put(chr, advance);
+                }
+                width += advance;
+            }
+            if (cacheable) {
+                return (int)(width + 0.5f);
             }
         }
-        if (!containsSoftHyphen) {
-            return (int)(myTextPaint.measureText(new String(string, offset, length)) + 0.5f);
+        final int len = removeSoftHyphens(string, offset, length);
+        if (len == -1) {
+            return (int)(myTextPaint.measureText(string, offset, length) + 0.5f);
         }else {
-            final char[] corrected = new char[length];
-            int len = 0;
-            for (int o = offset; o < offset + length; ++o) {
-                final char chr = string[o];
-                if (chr != (char)0xAD) {
-                    corrected[len++] = chr;
-                }
-            }
-            return (int)(myTextPaint.measureText(corrected, 0, len) + 0.5f);
+            return (int)(myTextPaint.measureText(myCorrectedText, 0, len) + 0.5f);
         }
     }
 
@@ -375,25 +496,11 @@ public final class ZLAndroidPaintContext extends ZLPaintContext {
 
     @Override
     public void drawString(int x, int y, char[] string, int offset, int length) {
-        boolean containsSoftHyphen = false;
-        for (int i = offset; i < offset + length; ++i) {
-            if (string[i] == (char)0xAD) {
-                containsSoftHyphen = true;
-                break;
-            }
-        }
-        if (!containsSoftHyphen) {
+        final int len = removeSoftHyphens(string, offset, length);
+        if (len == -1) {
             myCanvas.drawText(string, offset, length, x, y, myTextPaint);
         }else {
-            final char[] corrected = new char[length];
-            int len = 0;
-            for (int o = offset; o < offset + length; ++o) {
-                final char chr = string[o];
-                if (chr != (char)0xAD) {
-                    corrected[len++] = chr;
-                }
-            }
-            myCanvas.drawText(corrected, 0, len, x, y, myTextPaint);
+            myCanvas.drawText(myCorrectedText, 0, len, x, y, myTextPaint);
         }
     }
 
@@ -36,6 +36,7 @@ import org.geometerplus.zlibrary.core.application.ZLKeyBindings;
 import org.geometerplus.zlibrary.core.util.SystemInfo;
 import org.geometerplus.zlibrary.core.view.ZLView;
 import org.geometerplus.zlibrary.core.view.ZLViewWidget;
+import org.geometerplus.zlibrary.ui.android.library.ZLAndroidLibrary;
 import org.geometerplus.zlibrary.ui.android.view.animation.*;
 
 import java.util.concurrent.ExecutorService;
@@ -48,7 +49,8 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
 
     private final Paint myPaint = new Paint();
 
-    private final BitmapManagerImpl myBitmapManager = new BitmapManagerImpl(this, getContext());
+    private final BitmapManagerImpl myBitmapManager = new BitmapManagerImpl(this, getContext(),
+            ((ZLAndroidLibrary) ZLAndroidLibrary.Instance()).PageBitmapsNumberOption.getValue());
     private final SystemInfo mySystemInfo;
 
     public ZLAndroidWidget(Context context, AttributeSet attrs, int defStyle) {
@@ -151,18 +153,23 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
         final AnimationProvider.Mode oldMode = animator.getMode();
         animator.doStep();
         if (animator.inProgress()) { // 动画过程中执行
+            myBitmapManager.onAnimationFrame();
             animator.draw(canvas); // 动画绘制
             if (animator.getMode().Auto) { // 松手后完成后续绘制
                 postInvalidate();
             }
         } else {                     // 动画结束后执行, 无动画情况只会调用这个
+            myBitmapManager.onAnimationFinished();
             switch (oldMode) {
                 case AnimatedScrollingForward: { // 当翻到 下一页/上一页 时调用
                     final ZLView.PageIndex index = animator.getPageToScrollTo(); // 得到翻页后的KooView 向左翻->next 向右翻->previous
                     // 若为next     -> next->current,current->previous
                     // 若为previous -> current->next,previous->current
-                    myBitmapManager.shift(index == ZLView.PageIndex.next);
-                    view.onScrollingFinished(index);
+                    // the background renderer holds the view lock too, it never sees the bitmaps shifted before the pages
+                    synchronized (view) {
+                        myBitmapManager.shift(index == ZLView.PageIndex.next);
+                        view.onScrollingFinished(index);
+                    }
                     ZLApplication.Instance().onRepaintFinished();
                     break;
                 }
@@ -179,8 +186,20 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
         myBitmapManager.reset();
     }
 
+    // page bitmap hits and frame drops during page turns
+    public BitmapManagerImpl.Statistics getBitmapStatistics() {
+        return myBitmapManager.getStatistics();
+    }
+
     @Override
     public void repaint() {
+        // the footer (clock, battery) of the prerendered pages is out of date now;
+        // the pages being turned stay, the prerendering after the turn redraws them;
+        // called from timer threads as well, so the animator is not created here
+        final AnimationProvider animator = myAnimationProvider;
+        if (animator == null || !animator.inProgress()) {
+            myBitmapManager.resetNeighbours();
+        }
         postInvalidate();
     }
 
@@ -250,7 +269,11 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
         if (view == null) {
             return;
         }
+        drawOnBitmap(view, bitmap, index);
+    }
 
+    // the view is passed by the caller that holds its lock, the current view may have changed since
+    void drawOnBitmap(ZLView view, Bitmap bitmap, ZLView.PageIndex index) {
         final ZLAndroidPaintContext context = new ZLAndroidPaintContext(
                 mySystemInfo,
                 new Canvas(bitmap),
@@ -277,10 +300,12 @@ public class ZLAndroidWidget extends View implements ZLViewWidget, View.OnLongCl
                 PrepareService.execute(new Runnable() {
                     public void run() {
                         final ZLView view = ZLApplication.Instance().getCurrentView(); // 得到当前view
-                        final ZLAndroidPaintContext context = new ZLAndroidPaintContext(
-                                mySystemInfo, canvas,
-                                new ZLAndroidPaintContext.Geometry(getWidth(), getHeight(), getWidth(), getHeight(), 0, 0), 0);
-                        view.preparePage(context, ZLView.PageIndex.next); // 准备下一页
+                        if (view == null) {
+                            return;
+                        }
+                        // painting a page prepares it as well, the next page first
+                        myBitmapManager.prerender(view, ZLView.PageIndex.next); // 准备下一页
+                        myBitmapManager.prerender(view, ZLView.PageIndex.previous);
                     }
                 });
             }
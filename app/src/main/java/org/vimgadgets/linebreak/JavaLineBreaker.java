@@ -0,0 +1,246 @@
+package org.vimgadgets.linebreak;
+
+import java.util.Arrays;
+
+import static org.vimgadgets.linebreak.LineBreakData.*;
+
+/**
+ * Pure Java version of liblinebreak's set_linebreaks() for UTF-16, used when
+ * the native library is not available (e.g. headless runs on a desktop JVM).
+ * Same classes and pair table, so the breaks are the same as the native ones.
+ * An instance is not thread-safe.
+ */
+final class JavaLineBreaker {
+
+    // pair table actions
+    private static final byte DIR = 0; // direct break opportunity
+    private static final byte IND = 1; // indirect break opportunity
+    private static final byte CMI = 2; // indirect break opportunity for combining marks
+    private static final byte CMP = 3; // prohibited break for combining marks
+    private static final byte PRO = 4; // prohibited break
+
+    private static final byte[][] PAIRS = {
+        { PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, PRO, CMP, PRO, PRO, PRO, PRO, PRO, PRO }, // OP
+        { DIR, PRO, PRO, IND, IND, PRO, PRO, PRO, PRO, IND, IND, DIR, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // CL
+        { DIR, PRO, PRO, IND, IND, PRO, PRO, PRO, PRO, IND, IND, IND, IND, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // CP
+        { PRO, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, IND, IND, IND, IND, IND, IND, IND, IND, IND, IND, PRO, CMI, PRO, IND, IND, IND, IND, IND }, // QU
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, IND, IND, IND, IND, IND, IND, IND, IND, IND, IND, PRO, CMI, PRO, IND, IND, IND, IND, IND }, // GL
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, DIR, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // NS
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, DIR, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // EX
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // SY
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, IND, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // IS
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, IND, IND, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, IND, IND, IND, IND, IND }, // PR
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, IND, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // PO
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, IND, IND, IND, IND, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // NU
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, IND, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // AL
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // ID
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // IN
+        { DIR, PRO, PRO, IND, DIR, IND, PRO, PRO, PRO, DIR, DIR, IND, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // HY
+        { DIR, PRO, PRO, IND, DIR, IND, PRO, PRO, PRO, DIR, DIR, DIR, DIR, DIR, DIR, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // BA
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, IND, IND, IND, IND, IND, IND, IND, IND, IND, IND, PRO, CMI, PRO, IND, IND, IND, IND, IND }, // BB
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, DIR, DIR, DIR, DIR, IND, IND, DIR, PRO, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // B2
+        { DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, DIR, PRO, DIR, DIR, DIR, DIR, DIR, DIR, DIR }, // ZW
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, DIR, IND, IND, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, DIR }, // CM
+        { IND, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, IND, IND, IND, IND, IND, IND, IND, IND, IND, IND, PRO, CMI, PRO, IND, IND, IND, IND, IND }, // WJ
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, IND, IND }, // H2
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, IND }, // H3
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, IND, IND, IND, IND, DIR }, // JL
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, IND, IND }, // JV
+        { DIR, PRO, PRO, IND, IND, IND, PRO, PRO, PRO, DIR, IND, DIR, DIR, DIR, IND, IND, IND, DIR, DIR, PRO, CMI, PRO, DIR, DIR, DIR, DIR, IND }, // JT
+    };
+
+    private static final int EOS = -1;
+
+    private static byte[] ourBmpClasses;
+
+    // classes of the basic multilingual plane, for a lookup without search
+    private static synchronized byte[] bmpClasses() {
+        if (ourBmpClasses == null) {
+            final byte[] classes = new byte[0x10000];
+            Arrays.fill(classes, (byte)XX);
+            final int[] table = DEFAULT;
+            for (int i = 0; i < table.length && table[i] < 0x10000; i += 3) {
+                final int end = Math.min(table[i + 1], 0xFFFF);
+                for (int ch = table[i]; ch <= end; ++ch) {
+                    classes[ch] = (byte)table[i + 2];
+                }
+            }
+            ourBmpClasses = classes;
+        }
+        return ourBmpClasses;
+    }
+
+    private final byte[] myBmpClasses = bmpClasses();
+    private final int[] myLanguageTable;
+    // ambiguous characters are ideographic in Chinese, Japanese and Korean
+    private final boolean myAmbiguousIsIdeographic;
+    private int myPosition;
+
+    JavaLineBreaker(String language) {
+        myLanguageTable = languageTable(language);
+        myAmbiguousIsIdeographic = language != null &&
+            (language.startsWith("zh") || language.startsWith("ja") || language.startsWith("ko"));
+    }
+
+    // class of the code point in the table of triples, XX if there is none
+    private static int find(int[] table, int ch) {
+        int low = 0;
+        int high = table.length / 3 - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (ch < table[3 * middle]) {
+                high = middle - 1;
+            }else if (ch > table[3 * middle + 1]) {
+                low = middle + 1;
+            }else {
+                return table[3 * middle + 2];
+            }
+        }
+        return XX;
+    }
+
+    private int classOf(int ch) {
+        if (myLanguageTable != null) {
+            final int c = find(myLanguageTable, ch);
+            if (c != XX) {
+                return c;
+            }
+        }
+        return ch < 0x10000 ? myBmpClasses[ch] : find(DEFAULT, ch);
+    }
+
+    private int resolve(int c) {
+        switch (c) {
+            case AI:
+                return myAmbiguousIsIdeographic ? ID : AL;
+            case SA:
+            case SG:
+            case XX:
+                return AL;
+            default:
+                return c;
+        }
+    }
+
+    private int nextChar(char[] data, int offset, int length) {
+        if (myPosition == length) {
+            return EOS;
+        }
+        final char ch = data[offset + myPosition++];
+        if (ch < 0xD800 || ch > 0xDBFF) {
+            return ch;
+        }
+        if (myPosition == length) {
+            --myPosition;
+            return EOS;
+        }
+        final char low = data[offset + myPosition];
+        if (low < 0xDC00 || low > 0xDFFF) {
+            return ch;
+        }
+        ++myPosition;
+        return ((ch & 0x3FF) << 10) + (low & 0x3FF) + 0x10000;
+    }
+
+    void setLineBreaks(char[] data, int offset, int length, byte[] breaks, int breaksOffset) {
+        myPosition = 0;
+        int ch = nextChar(data, offset, length);
+        if (ch == EOS) {
+            return;
+        }
+        int posLast = -1;
+        int cur = resolve(classOf(ch));
+        int next = 0;
+        int last;
+        boolean newLine;
+        do {
+            // special treatment for the first character of a line
+            switch (cur) {
+                case LF:
+                case NL:
+                    cur = BK;
+                    break;
+                case SP:
+                    cur = WJ;
+                    break;
+            }
+            newLine = false;
+            for (;;) {
+                for (++posLast; posLast < myPosition - 1; ++posLast) {
+                    breaks[breaksOffset + posLast] = LineBreaker.INSIDEACHAR;
+                }
+                last = next;
+                ch = nextChar(data, offset, length);
+                if (ch == EOS) {
+                    break;
+                }
+                next = classOf(ch);
+                if (cur == BK || (cur == CR && next != LF)) {
+                    breaks[breaksOffset + posLast] = LineBreaker.MUSTBREAK;
+                    cur = resolve(next);
+                    newLine = true;
+                    break;
+                }
+
+                switch (next) {
+                    case SP:
+                        breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        continue;
+                    case BK:
+                    case LF:
+                    case NL:
+                        breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        cur = BK;
+                        continue;
+                    case CR:
+                        breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        cur = CR;
+                        continue;
+                    case CB:
+                        breaks[breaksOffset + posLast] = LineBreaker.ALLOWBREAK;
+                        cur = BA;
+                        continue;
+                }
+
+                next = resolve(next);
+                switch (PAIRS[cur - 1][next - 1]) {
+                    case DIR:
+                        breaks[breaksOffset + posLast] = LineBreaker.ALLOWBREAK;
+                        break;
+                    case CMI:
+                    case IND:
+                        if (last == SP) {
+                            breaks[breaksOffset + posLast] = LineBreaker.ALLOWBREAK;
+                        }else {
+                            breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        }
+                        break;
+                    case CMP:
+                        breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        if (last != SP) {
+                            continue;
+                        }
+                        break;
+                    case PRO:
+                        breaks[breaksOffset + posLast] = LineBreaker.NOBREAK;
+                        break;
+                }
+                cur = next;
+            }
+        } while (newLine);
+
+        // break after the last character
+        breaks[breaksOffset + posLast] = LineBreaker.MUSTBREAK;
+        // unfinished surrogate pair
+        for (int pos = myPosition; pos < length; ++pos) {
+            breaks[breaksOffset + pos] = LineBreaker.INSIDEACHAR;
+        }
+
+        // as the JNI wrapper does: no break after a soft hyphen
+        for (int i = 0; i < length; ++i) {
+            if (data[offset + i] == (char)0xAD) {
+                breaks[breaksOffset + i] = LineBreaker.NOBREAK;
+            }
+        }
+    }
+}
@@ -1,10 +1,44 @@
 package org.vimgadgets.linebreak;
 
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// an instance is to be used by one thread at a time
 public final class LineBreaker {
 
+    // false if the native library cannot be loaded; JavaLineBreaker does the job then
+    private static final boolean ourNativeAvailable;
+    // the library built before setLineBreaksForRuns() has no batched call;
+    // per-run calls are used with it
+    private static volatile boolean ourBatchAvailable = true;
+
     static {
-        System.loadLibrary("LineBreak-v2");
-        init();
+        boolean available;
+        try {
+            System.loadLibrary("LineBreak-v2");
+            init();
+            available = true;
+        }catch (UnsatisfiedLinkError e) {
+            available = false;
+        }
+        ourNativeAvailable = available;
+        if (available) {
+            try {
+                createLanguageHandle(null);
+            }catch (UnsatisfiedLinkError e) {
+                ourBatchAvailable = false;
+            }
+        }
+    }
+
+    /**
+     * True if setLineBreaks(data, offsets, lengths, count, breaks) breaks all the
+     * runs in one native call. The prebuilt libraries in jniLibs predate that call,
+     * it needs the library rebuilt with ndk-build. Otherwise (an old library, or
+     * no library at all) batching saves nothing, and callers break entry by entry.
+     */
+    public static boolean isBatchAvailable() {
+        return ourNativeAvailable && ourBatchAvailable;
     }
 
     public static final char MUSTBREAK = 0;
@@ -18,17 +52,168 @@ public final class LineBreaker {
 
     private static native void setLineBreaksForString(String data, String lang, byte[] breaks);
 
+    private static native long createLanguageHandle(String lang);
+
+    private static native void setLineBreaksForRuns(char[] data, int[] offsets, int[] lengths, int count, long langHandle, byte[] breaks);
+
+    public static final class Statistics {
+
+        // JNI crossings, batched calls (usually one per paragraph), text runs and chars
+        public final long Calls;
+        public final long Batches;
+        public final long Runs;
+        public final long Chars;
+        public final long TimeNanos;
+        public final boolean Native;
+
+        Statistics(long calls, long batches, long runs, long chars, long timeNanos, boolean isNative) {
+            Calls = calls;
+            Batches = batches;
+            Runs = runs;
+            Chars = chars;
+            TimeNanos = timeNanos;
+            Native = isNative;
+        }
+
+        public long averageNanosPerBatch() {
+            return Batches > 0 ? TimeNanos / Batches : 0;
+        }
+
+        public String toString() {
+            return (Native ? "native" : "java") + ": calls = " + Calls + ", batches = " + Batches
+                + ", runs = " + Runs + ", chars = " + Chars + ", time/batch = " + averageNanosPerBatch() + "ns";
+        }
+    }
+
+    private static final AtomicLong ourCalls = new AtomicLong();
+    private static final AtomicLong ourBatches = new AtomicLong();
+    private static final AtomicLong ourRuns = new AtomicLong();
+    private static final AtomicLong ourChars = new AtomicLong();
+    private static final AtomicLong ourTimeNanos = new AtomicLong();
+
+    public static Statistics getStatistics() {
+        return new Statistics(
+            ourCalls.get(), ourBatches.get(), ourRuns.get(), ourChars.get(), ourTimeNanos.get(), ourNativeAvailable
+        );
+    }
+
+    // native language handles live as long as the process; there are a few languages only
+    private static final HashMap<String, Long> ourLanguageHandles = new HashMap<String, Long>();
+
+    private static long languageHandle(String lang) {
+        synchronized (ourLanguageHandles) {
+            final Long cached = ourLanguageHandles.get(lang);
+            if (cached != null) {
+                return cached;
+            }
+            long handle;
+            try {
+                handle = createLanguageHandle(lang);
+            }catch (UnsatisfiedLinkError e) {
+                ourBatchAvailable = false;
+                handle = 0;
+            }
+            ourLanguageHandles.put(lang, handle);
+            return handle;
+        }
+    }
+
     private final String myLanguage;
+    private long myLanguageHandle;
+    private JavaLineBreaker myJavaBreaker;
+    private byte[] myRunBreaks;
 
     public LineBreaker(String lang) {
         myLanguage = lang;
     }
 
+    public String getLanguage() {
+        return myLanguage;
+    }
+
+    private JavaLineBreaker javaBreaker() {
+        if (myJavaBreaker == null) {
+            myJavaBreaker = new JavaLineBreaker(myLanguage);
+        }
+        return myJavaBreaker;
+    }
+
     public void setLineBreaks(char[] data, int offset, int length, byte[] breaks) {
-        setLineBreaksForCharArray(data, offset, length, myLanguage, breaks);
+        final long start = System.nanoTime();
+        if (ourNativeAvailable) {
+            setLineBreaksForCharArray(data, offset, length, myLanguage, breaks);
+            ourCalls.incrementAndGet();
+        }else {
+            javaBreaker().setLineBreaks(data, offset, length, breaks, 0);
+        }
+        count(1, length, start);
     }
 
     public void setLineBreaks(String data, byte[] breaks) {
-        setLineBreaksForString(data, myLanguage, breaks);
+        final long start = System.nanoTime();
+        if (ourNativeAvailable) {
+            setLineBreaksForString(data, myLanguage, breaks);
+            ourCalls.incrementAndGet();
+        }else {
+            final char[] chars = data.toCharArray();
+            javaBreaker().setLineBreaks(chars, 0, chars.length, breaks, 0);
+        }
+        count(1, data.length(), start);
+    }
+
+    /**
+     * Breaks of several runs of text, e.g. all the text entries of a paragraph,
+     * in one native call. Run i is data[offsets[i] .. offsets[i] + lengths[i]),
+     * its breaks are written to the same positions of breaks; every run is
+     * broken on its own, as by setLineBreaks(data, offsets[i], lengths[i], ...).
+     */
+    public void setLineBreaks(char[] data, int[] offsets, int[] lengths, int count, byte[] breaks) {
+        final long start = System.nanoTime();
+        int chars = 0;
+        for (int i = 0; i < count; ++i) {
+            chars += lengths[i];
+        }
+        if (!ourNativeAvailable) {
+            final JavaLineBreaker breaker = javaBreaker();
+            for (int i = 0; i < count; ++i) {
+                breaker.setLineBreaks(data, offsets[i], lengths[i], breaks, offsets[i]);
+            }
+            count(count, chars, start);
+            return;
+        }
+
+        if (ourBatchAvailable && myLanguageHandle == 0 && myLanguage != null) {
+            myLanguageHandle = languageHandle(myLanguage);
+        }
+        if (ourBatchAvailable) {
+            try {
+                setLineBreaksForRuns(data, offsets, lengths, count, myLanguageHandle, breaks);
+                ourCalls.incrementAndGet();
+                count(count, chars, start);
+                return;
+            }catch (UnsatisfiedLinkError e) {
+                ourBatchAvailable = false;
+            }
+        }
+        // the library predates setLineBreaksForRuns(), see isBatchAvailable();
+        // the per-run call writes from the start of the array
+        byte[] runBreaks = myRunBreaks;
+        if (runBreaks == null || runBreaks.length < data.length) {
+            runBreaks = new byte[data.length];
+            myRunBreaks = runBreaks;
+        }
+        for (int i = 0; i < count; ++i) {
+            setLineBreaksForCharArray(data, offsets[i], lengths[i], myLanguage, runBreaks);
+            System.arraycopy(runBreaks, 0, breaks, offsets[i], lengths[i]);
+        }
+        ourCalls.addAndGet(count);
+        count(count, chars, start);
+    }
+
+    private static void count(int runs, int chars, long start) {
+        ourBatches.incrementAndGet();
+        ourRuns.addAndGet(runs);
+        ourChars.addAndGet(chars);
+        ourTimeNanos.addAndGet(System.nanoTime() - start);
     }
 }
@@ -18,6 +18,9 @@
  */
 
 #include <jni.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
 
 #include "liblinebreak-2.0/linebreak.h"
 
@@ -45,7 +48,8 @@ void Java_org_vimgadgets_linebreak_LineBreaker_setLineBreaksForCharArray(JNIEnv
   	env->ReleaseStringUTFChars(lang, langArray);
 	}
 	env->ReleaseByteArrayElements(breaks, breaksArray, 0);
-	env->ReleaseCharArrayElements(data, dataArray, 0);
+	// the text is not changed, no copy-back
+	env->ReleaseCharArrayElements(data, dataArray, JNI_ABORT);
 }
 
 extern "C"
@@ -63,3 +67,42 @@ void Java_org_vimgadgets_linebreak_LineBreaker_setLineBreaksForString(JNIEnv *en
 	env->ReleaseByteArrayElements(breaks, breaksArray, 0);
 	env->ReleaseStringChars(data, dataArray);
 }
+
+extern "C"
+jlong Java_org_vimgadgets_linebreak_LineBreaker_createLanguageHandle(JNIEnv *env, jobject thiz, jstring lang) {
+	if (lang == 0) {
+		return 0;
+	}
+	const char *langArray = env->GetStringUTFChars(lang, 0);
+	// never freed: one handle per language for the process lifetime
+	char *copy = strdup(langArray);
+	env->ReleaseStringUTFChars(lang, langArray);
+	return (jlong)(intptr_t)copy;
+}
+
+extern "C"
+void Java_org_vimgadgets_linebreak_LineBreaker_setLineBreaksForRuns(JNIEnv *env, jobject thiz, jcharArray data, jintArray offsets, jintArray lengths, jint count, jlong langHandle, jbyteArray breaks) {
+	jint* offsetsArray = env->GetIntArrayElements(offsets, 0);
+	jint* lengthsArray = env->GetIntArrayElements(lengths, 0);
+	jchar* dataArray = env->GetCharArrayElements(data, 0);
+	jbyte* breaksArray = env->GetByteArrayElements(breaks, 0);
+	const char *langArray = (const char*)(intptr_t)langHandle;
+
+	for (jint i = 0; i < count; ++i) {
+		const jchar* start = dataArray + offsetsArray[i];
+		const jchar* end = start + lengthsArray[i];
+		jbyte* runBreaks = breaksArray + offsetsArray[i];
+		set_linebreaks_utf16(start, lengthsArray[i], langArray, (char*)runBreaks);
+		for (const jchar* ptr = start; ptr < end; ++ptr) {
+			if (*ptr == (jchar)0xAD) {
+				runBreaks[ptr - start] = LINEBREAK_NOBREAK;
+			}
+		}
+	}
+
+	env->ReleaseByteArrayElements(breaks, breaksArray, 0);
+	// the input arrays are not changed, no copy-back
+	env->ReleaseCharArrayElements(data, dataArray, JNI_ABORT);
+	env->ReleaseIntArrayElements(lengths, lengthsArray, JNI_ABORT);
+	env->ReleaseIntArrayElements(offsets, offsetsArray, JNI_ABORT);
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.core.util;
+
+/**
+ * Times the Boyer-Moore-Horspool search against the char by char scan of
+ * ZLSearchUtilTest on a large synthetic text. Not a part of the test suite,
+ * run it by hand from the test classpath.
+ */
+public class ZLSearchUtilBenchmark {
+
+    private static final int TEXT_LENGTH = 8 << 20;
+    private static final int ROUNDS = 5;
+
+    private static int countHorspool(char[] text, ZLSearchPattern pattern) {
+        int count = 0;
+        for (long range = ZLSearchUtil.findRange(text, 0, text.length, pattern, 0); range >= 0;
+             range = ZLSearchUtil.findRange(text, 0, text.length, pattern, ZLSearchUtil.start(range) + 1)) {
+            ++count;
+        }
+        return count;
+    }
+
+    private static int countNaive(char[] text, ZLSearchPattern pattern) {
+        int count = 0;
+        for (long range = ZLSearchUtilTest.naiveFind(text, 0, text.length, pattern, 0); range >= 0;
+             range = ZLSearchUtilTest.naiveFind(text, 0, text.length, pattern, ZLSearchUtil.start(range) + 1)) {
+            ++count;
+        }
+        return count;
+    }
+
+    public static void main(String[] args) {
+        final char[] text = ZLSearchUtilTest.createText(TEXT_LENGTH);
+        for (String p : ZLSearchUtilTest.PATTERNS) {
+            final ZLSearchPattern pattern = new ZLSearchPattern(p, true);
+            long horspoolNanos = Long.MAX_VALUE;
+            long naiveNanos = Long.MAX_VALUE;
+            int hits = 0;
+            for (int round = 0; round < ROUNDS; ++round) {
+                long start = System.nanoTime();
+                hits = countHorspool(text, pattern);
+                horspoolNanos = Math.min(horspoolNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                final int naiveHits = countNaive(text, pattern);
+                naiveNanos = Math.min(naiveNanos, System.nanoTime() - start);
+                if (naiveHits != hits) {
+                    throw new IllegalStateException("\"" + p + "\": " + hits + " hits, naive scan finds " + naiveHits);
+                }
+            }
+            System.out.println("ZLSearchUtil: \"" + p + "\", " + hits + " hits in " + TEXT_LENGTH + " chars"
+                + ", horspool = " + horspoolNanos / 1000000 + "ms, naive = " + naiveNanos / 1000000 + "ms");
+        }
+    }
+}
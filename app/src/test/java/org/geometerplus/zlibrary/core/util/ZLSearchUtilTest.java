@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+
+package org.geometerplus.zlibrary.core.util;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the Boyer-Moore-Horspool search against a char by char scan following
+ * the same matching rules, on a synthetic text with zero-width spaces.
+ */
+public class ZLSearchUtilTest {
+
+    static final String[] PATTERNS = {
+        "the quick brown fox jumps", "Horspool", "zebra", "ab"
+    };
+
+    private static char[] ourText;
+
+    @BeforeClass
+    public static void setUp() {
+        ourText = createText(1 << 16);
+    }
+
+    static char[] createText(int length) {
+        final Random random = new Random(20150101);
+        final String[] words = {
+            "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "Horspool", "search", "a", "ab"
+        };
+        final StringBuilder builder = new StringBuilder(length + 64);
+        while (builder.length() < length) {
+            final String word = words[random.nextInt(words.length)];
+            // zero-width spaces inside words, as the native reader inserts them
+            if (random.nextInt(50) == 0 && word.length() > 2) {
+                builder.append(word, 0, 2).append('\u200b').append(word, 2, word.length());
+            }else {
+                builder.append(word);
+            }
+            builder.append(random.nextInt(20) == 0 ? ". " : " ");
+        }
+        final char[] text = new char[length];
+        builder.getChars(0, length, text, 0);
+        return text;
+    }
+
+    // the scan ZLSearchUtil used before: every start, zero-width spaces skipped after the first char
+    static long naiveFind(char[] text, int offset, int length, ZLSearchPattern pattern, int pos) {
+        final char[] lower = pattern.LowerCasePattern;
+        final char[] upper = pattern.UpperCasePattern;
+        final int end = offset + length;
+        for (int start = offset + pos; start <= end - lower.length; ++start) {
+            if (text[start] == '\u200b') {
+                continue;
+            }
+            int j = 0;
+            int k = start;
+            while (j < lower.length && k < end) {
+                final char symbol = text[k++];
+                if (symbol == '\u200b' && j > 0) {
+                    continue;
+                }
+                if (symbol != lower[j] && (upper == null || symbol != upper[j])) {
+                    break;
+                }
+                ++j;
+            }
+            if (j == lower.length) {
+                return ((long)(start - offset) << 32) | (k - start);
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void sameMatches() {
+        final int length = 1 << 16;
+        for (String p : PATTERNS) {
+            for (boolean ignoreCase : new boolean[] { false, true }) {
+                final ZLSearchPattern pattern = new ZLSearchPattern(p, ignoreCase);
+                long expected = naiveFind(ourText, 0, length, pattern, 0);
+                long actual = ZLSearchUtil.findRange(ourText, 0, length, pattern, 0);
+                while (true) {
+                    assertEquals(expected, actual);
+                    if (actual < 0) {
+                        break;
+                    }
+                    final int next = ZLSearchUtil.start(actual) + 1;
+                    expected = naiveFind(ourText, 0, length, pattern, next);
+                    actual = ZLSearchUtil.findRange(ourText, 0, length, pattern, next);
+                }
+            }
+        }
+    }
+}
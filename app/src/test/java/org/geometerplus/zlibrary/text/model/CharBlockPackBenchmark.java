@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Packs the text blocks of a book and compares reading them from the pack with
+ * reading the raw block files; prints the timings and sizes.
+ * Arguments: a directory with the block files of a real book (0.ncache, 1.ncache,
+ * ... as written by the native model builder into the cache directory) and,
+ * optionally, their extension. The files are copied, the directory is not changed.
+ * Without arguments a synthetic book is used, its numbers are for a smoke run only.
+ * Not a part of the test suite, run it by hand from the test classpath.
+ */
+public class CharBlockPackBenchmark {
+
+    // an unpacked copy of the same blocks
+    private static final String RAW_EXTENSION = "raw";
+    private static final int SYNTHETIC_BLOCKS_NUMBER = 64;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final File directory = CharBlockPackTest.createDirectory();
+        try {
+            final int blocksNumber;
+            if (args.length > 0) {
+                blocksNumber = copyBlocks(new File(args[0]), args.length > 1 ? args[1] : CharBlockPackTest.EXTENSION, directory);
+                if (blocksNumber == 0) {
+                    System.err.println("No block files in " + args[0]);
+                    return;
+                }
+            }else {
+                blocksNumber = syntheticBlocks(directory);
+            }
+            run(directory, blocksNumber);
+        }finally {
+            CharBlockPackTest.deleteDirectory(directory);
+        }
+    }
+
+    // copies the block files 0, 1, ... up to the first missing one; returns their number
+    private static int copyBlocks(File from, String extension, File to) throws IOException {
+        int count = 0;
+        for (File file = new File(from, "0." + extension); file.isFile(); file = new File(from, count + "." + extension)) {
+            copy(file, new File(to, count + "." + CharBlockPackTest.EXTENSION));
+            copy(file, new File(to, count + "." + RAW_EXTENSION));
+            ++count;
+        }
+        return count;
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        final FileInputStream input = new FileInputStream(from);
+        try {
+            final FileOutputStream output = new FileOutputStream(to);
+            try {
+                final byte[] buffer = new byte[8192];
+                for (int rd = input.read(buffer); rd > 0; rd = input.read(buffer)) {
+                    output.write(buffer, 0, rd);
+                }
+            }finally {
+                output.close();
+            }
+        }finally {
+            input.close();
+        }
+    }
+
+    private static int syntheticBlocks(File directory) throws IOException {
+        final Random random = new Random(20150101);
+        for (int i = 0; i < SYNTHETIC_BLOCKS_NUMBER; ++i) {
+            final char[] block = CharBlockPackTest.textBlock(random, CharBlockPackTest.MAX_BLOCK_SIZE, i % 4 == 3);
+            CharBlockPackTest.write(new File(directory, i + "." + CharBlockPackTest.EXTENSION), block);
+            CharBlockPackTest.write(new File(directory, i + "." + RAW_EXTENSION), block);
+        }
+        return SYNTHETIC_BLOCKS_NUMBER;
+    }
+
+    private static void run(File directory, int blocksNumber) throws IOException {
+        final String extension = CharBlockPackTest.EXTENSION;
+        final String directoryName = directory.getPath();
+        long rawSize = 0;
+        for (int i = 0; i < blocksNumber; ++i) {
+            rawSize += new File(directory, i + "." + RAW_EXTENSION).length();
+        }
+
+        long start = System.nanoTime();
+        final long packSize = CharBlockPack.pack(directoryName, extension, blocksNumber);
+        final long packNanos = System.nanoTime() - start;
+
+        // storages without a cache or mapping go to the disk for every block
+        final CachedCharStorage packed = new CachedCharStorage(directoryName, extension, blocksNumber, new LruCharBlockCache(0), false);
+        final CachedCharStorage raw = new CachedCharStorage(directoryName, RAW_EXTENSION, blocksNumber, new LruCharBlockCache(0), false);
+        for (int i = 0; i < blocksNumber; ++i) {
+            if (!Arrays.equals(raw.block(i), packed.block(i))) {
+                throw new IllegalStateException("Block " + i + " differs after packing");
+            }
+        }
+        long packedReadNanos = Long.MAX_VALUE;
+        long rawReadNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round) {
+            start = System.nanoTime();
+            for (int i = 0; i < blocksNumber; ++i) {
+                packed.block(i);
+            }
+            packedReadNanos = Math.min(packedReadNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < blocksNumber; ++i) {
+                raw.block(i);
+            }
+            rawReadNanos = Math.min(rawReadNanos, System.nanoTime() - start);
+        }
+
+        System.out.println("CharBlockPack: " + blocksNumber + " blocks, raw = " + rawSize + " bytes, packed = " + packSize
+            + " bytes (" + (100 * packSize / Math.max(1, rawSize)) + "%), pack = " + packNanos / 1000000 + "ms"
+            + ", read packed = " + packedReadNanos / 1000000 + "ms, read raw = " + rawReadNanos / 1000000 + "ms");
+    }
+}
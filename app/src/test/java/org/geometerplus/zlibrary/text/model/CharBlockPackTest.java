@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CharBlockPackTest {
+
+    static final String EXTENSION = "ncache";
+    // the native writer's block: 131072 bytes
+    static final int MAX_BLOCK_SIZE = 65536;
+
+    private File myDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        myDirectory = createDirectory();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory(myDirectory);
+    }
+
+    static File createDirectory() throws IOException {
+        final File directory = File.createTempFile("blockpack", "");
+        directory.delete();
+        directory.mkdirs();
+        return directory;
+    }
+
+    static void deleteDirectory(File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    // mostly ASCII text with control entries, or Cyrillic text for the blocks stored as is
+    static char[] textBlock(Random random, int length, boolean cyrillic) {
+        final char[] block = new char[length];
+        for (int i = 0; i < block.length; ++i) {
+            final int r = random.nextInt(100);
+            if (r < 2) {
+                block[i] = (char)random.nextInt(32);
+            }else if (r < 17) {
+                block[i] = ' ';
+            }else if (cyrillic) {
+                block[i] = (char)(0x430 + random.nextInt(32));
+            }else {
+                block[i] = (char)('a' + random.nextInt(26));
+            }
+        }
+        return block;
+    }
+
+    static void write(File file, char[] block) throws IOException {
+        final byte[] data = new byte[block.length * 2];
+        for (int i = 0; i < block.length; ++i) {
+            data[2 * i] = (byte)block[i];
+            data[2 * i + 1] = (byte)(block[i] >> 8);
+        }
+        final FileOutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data);
+        }finally {
+            stream.close();
+        }
+    }
+
+    private char[][] writeBlocks() throws IOException {
+        final Random random = new Random(20150101);
+
+        // no char below 0x100: every char takes 2 or 3 bytes re-encoded
+        final char[] nonLatin = new char[4096];
+        for (int i = 0; i < nonLatin.length; ++i) {
+            nonLatin[i] = (char)(i % 2 == 0 ? 0x4E00 + random.nextInt(0x5000) : 0x100 + random.nextInt(0x3F00));
+        }
+
+        // ASCII with the chars at the bounds of the 1, 2 and 3 byte encodings
+        final char[] bounds = textBlock(random, MAX_BLOCK_SIZE, false);
+        final char[] specials = { 0, 0x7F, 0x80, 0xFF, 0x100, 0x3FFF, 0x4000, 0xD800, 0xDFFF, 0xFFFF };
+        for (int i = 0; i < bounds.length; i += 97) {
+            bounds[i] = specials[random.nextInt(specials.length)];
+        }
+
+        final char[][] blocks = {
+            new char[0],
+            nonLatin,
+            textBlock(random, MAX_BLOCK_SIZE, true),
+            bounds,
+            textBlock(random, MAX_BLOCK_SIZE, false),
+            { 'a' },
+        };
+        for (int i = 0; i < blocks.length; ++i) {
+            write(new File(myDirectory, i + "." + EXTENSION), blocks[i]);
+        }
+        return blocks;
+    }
+
+    @Test
+    public void packAndRead() throws IOException {
+        final char[][] blocks = writeBlocks();
+        final String directoryName = myDirectory.getPath();
+
+        long rawSize = 0;
+        for (char[] b : blocks) {
+            rawSize += 2 * b.length;
+        }
+        final long packSize = CharBlockPack.pack(directoryName, EXTENSION, blocks.length);
+        // the mostly ASCII blocks are re-encoded
+        assertTrue(packSize < rawSize);
+
+        final CharBlockPack pack = CharBlockPack.open(CharBlockPack.file(directoryName, EXTENSION));
+        assertEquals(blocks.length, pack.size());
+        for (int i = 0; i < blocks.length; ++i) {
+            assertArrayEquals(blocks[i], pack.block(i));
+            final CharBuffer raw = pack.rawBuffer(i);
+            if (raw != null) {
+                final char[] chars = new char[raw.remaining()];
+                raw.get(chars);
+                assertArrayEquals(blocks[i], chars);
+            }
+        }
+        // the re-encoding does not pay for non-Latin text
+        assertNotNull(pack.rawBuffer(1));
+        assertNull(pack.rawBuffer(4));
+    }
+
+    @Test
+    public void readThroughStorage() throws IOException {
+        final char[][] blocks = writeBlocks();
+        final String directoryName = myDirectory.getPath();
+        CharBlockPack.pack(directoryName, EXTENSION, blocks.length);
+        CharBlockPack.deleteBlockFiles(directoryName, EXTENSION, blocks.length);
+
+        for (boolean mapped : new boolean[] { false, true }) {
+            final CachedCharStorage storage = new CachedCharStorage(directoryName, EXTENSION, blocks.length, new LruCharBlockCache(0), mapped);
+            for (int i = 0; i < blocks.length; ++i) {
+                assertArrayEquals(blocks[i], storage.block(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2007-2015 FBReader.ORG Limited <contact@fbreader.org>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301, USA.
+ */
+
+package org.geometerplus.zlibrary.text.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ZLTextMarkIndexTest {
+
+    // marks (3,0), (3,10), (5,4), (7,1)
+    private static ZLTextMarkIndex sample() {
+        final ZLTextMarkIndex.Builder builder = new ZLTextMarkIndex.Builder();
+        builder.add(3, 0, 2);
+        builder.add(3, 10, 2);
+        builder.add(5, 4, 2);
+        builder.add(7, 1, 2);
+        return builder.build();
+    }
+
+    @Test
+    public void firstInParagraph() {
+        final ZLTextMarkIndex marks = sample();
+        assertEquals(0, marks.firstInParagraph(0));
+        assertEquals(0, marks.firstInParagraph(3));
+        assertEquals(2, marks.firstInParagraph(4));
+        assertEquals(2, marks.firstInParagraph(5));
+        assertEquals(3, marks.firstInParagraph(6));
+        assertEquals(3, marks.firstInParagraph(7));
+        assertEquals(4, marks.firstInParagraph(8));
+    }
+
+    @Test
+    public void lowerBound() {
+        final ZLTextMarkIndex marks = sample();
+        assertEquals(0, marks.lowerBound(3, Integer.MIN_VALUE));
+        assertEquals(0, marks.lowerBound(3, 0));
+        assertEquals(1, marks.lowerBound(3, 1));
+        assertEquals(1, marks.lowerBound(3, 10));
+        assertEquals(2, marks.lowerBound(3, Integer.MAX_VALUE));
+        assertEquals(4, marks.lowerBound(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, marks.lowerBound(Integer.MIN_VALUE, Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void nextAndPrevious() {
+        final ZLTextMarkIndex marks = sample();
+        final ZLTextMark next = marks.next(new ZLTextMark(3, 5, 0));
+        assertEquals(3, next.ParagraphIndex);
+        assertEquals(10, next.Offset);
+        final ZLTextMark previous = marks.previous(new ZLTextMark(5, 4, 0));
+        assertEquals(3, previous.ParagraphIndex);
+        assertEquals(10, previous.Offset);
+        assertNull(marks.next(new ZLTextMark(7, 2, 0)));
+        assertNull(marks.previous(new ZLTextMark(3, 0, 0)));
+    }
+
+    @Test
+    public void merge() {
+        final ZLTextMarkIndex.Builder builder = new ZLTextMarkIndex.Builder();
+        builder.add(3, 5, 1);
+        builder.add(6, 0, 1);
+        final ZLTextMarkIndex merged = sample().merge(builder.build());
+        assertEquals(6, merged.size());
+        for (int i = 1; i < merged.size(); ++i) {
+            assertTrue(merged.get(i - 1).compareTo(merged.get(i)) <= 0);
+        }
+        assertEquals(0, merged.firstInParagraph(3));
+        assertEquals(3, merged.firstInParagraph(5));
+        assertEquals(4, merged.firstInParagraph(6));
+    }
+
+    @Test
+    public void empty() {
+        final ZLTextMarkIndex marks = new ZLTextMarkIndex.Builder().build();
+        assertTrue(marks.isEmpty());
+        assertEquals(0, marks.firstInParagraph(0));
+        assertNull(marks.first());
+        assertNull(marks.last());
+        assertNull(marks.next(new ZLTextMark(0, 0, 0)));
+    }
+}
@@ -0,0 +1,81 @@
+package org.vimgadgets.linebreak;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Breaks of the Java fallback on a few strings with known UAX #14 classes.
+ * Break i is the break opportunity after char i; in the expected strings
+ * '!' is MUSTBREAK, '/' is ALLOWBREAK, '-' is NOBREAK and '.' is INSIDEACHAR.
+ */
+public class JavaLineBreakerTest {
+
+    private static String breaks(String language, String text) {
+        final char[] data = ("##" + text).toCharArray();
+        final byte[] breaks = new byte[data.length + 3];
+        new JavaLineBreaker(language).setLineBreaks(data, 2, text.length(), breaks, 3);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < text.length(); ++i) {
+            builder.append("!/-.".charAt(breaks[3 + i]));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void spaces() {
+        // AL SP: no break before a space, a break after it
+        assertEquals("---/--!", breaks("en", "abc def"));
+        assertEquals("--/-/-!", breaks("en", "a  b c!"));
+        // GL: no break around a no-break space
+        assertEquals("--------!", breaks("en", "word\u00a0word"));
+    }
+
+    @Test
+    public void punctuation() {
+        // OP, CL, IS, NU: no break after an opening bracket, before a closing one, inside a number
+        assertEquals("---/--!", breaks("en", "(a) 1,0"));
+        // PR, PO: a number keeps its sign
+        assertEquals("-/----/!", breaks("en", "x 1.5% y"));
+        // QU
+        assertEquals("---/!", breaks("en", "\"a\" b"));
+        // HY: a break after a hyphen between letters
+        assertEquals("-/-!", breaks("en", "a-bc"));
+    }
+
+    @Test
+    public void mandatoryBreaks() {
+        // LF
+        assertEquals("-!-!", breaks("en", "a\nb\n"));
+    }
+
+    @Test
+    public void ideographs() {
+        // ID: a break between any two ideographs, not before a closing mark
+        assertEquals("//-!", breaks("zh", "\u4e2d\u6587\u5b57\u3002"));
+    }
+
+    @Test
+    public void surrogates() {
+        // the high surrogate of a pair is inside the char
+        assertEquals("./!", breaks("en", "\ud840\udc00\u4e2d"));
+    }
+
+    @Test
+    public void runsAreBrokenSeparately() {
+        // LineBreaker falls back to JavaLineBreaker without the native library
+        final char[] data = "Hello, (world)! 2+2=4 \u4e2d\u6587 end".toCharArray();
+        final int[] offsets = { 0, 7, 16 };
+        final int[] lengths = { 7, 9, data.length - 16 };
+        final byte[] batched = new byte[data.length];
+        final LineBreaker breaker = new LineBreaker("en");
+        breaker.setLineBreaks(data, offsets, lengths, offsets.length, batched);
+        for (int run = 0; run < offsets.length; ++run) {
+            final byte[] single = new byte[lengths[run]];
+            breaker.setLineBreaks(data, offsets[run], lengths[run], single);
+            for (int i = 0; i < lengths[run]; ++i) {
+                assertEquals("run " + run + ", break " + i, single[i], batched[offsets[run] + i]);
+            }
+        }
+    }
+}